@@ -0,0 +1,85 @@
+#!/usr/bin/env bash
+# Reports time to first HTTP response and resident memory for each startup mode.
+# Build the artifacts first:
+#   ./mvnw package                      -> jvm
+#   ./mvnw -Paot-cds package            -> aot-cds
+#   ./mvnw -Pnative native:compile      -> native
+# Usage: scripts/startup-benchmark.sh [jvm|aot-cds|native ...]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT="${PORT:-8088}"
+RUNS="${RUNS:-5}"
+URL="http://localhost:${PORT}/api/v1/actuator/health"
+JAR_NAME="$(ls target/*.jar 2>/dev/null | grep -v -- '-plain\.jar$' | head -n 1 | xargs -r basename)"
+MODES=("$@")
+if [ ${#MODES[@]} -eq 0 ]; then
+    MODES=(jvm aot-cds native)
+fi
+
+command_for() {
+    case "$1" in
+        jvm)
+            echo "java -jar target/${JAR_NAME}"
+            ;;
+        aot-cds)
+            echo "java -XX:SharedArchiveFile=target/cds/application.jsa -Dspring.aot.enabled=true -jar target/cds/${JAR_NAME}"
+            ;;
+        native)
+            echo "target/Book_Social_Netwok"
+            ;;
+    esac
+}
+
+available() {
+    case "$1" in
+        jvm) [ -n "$JAR_NAME" ] ;;
+        aot-cds) [ -f target/cds/application.jsa ] ;;
+        native) [ -x target/Book_Social_Netwok ] ;;
+        *) return 1 ;;
+    esac
+}
+
+now_millis() {
+    date +%s%3N
+}
+
+# any status code counts, secured endpoints answer with 403 once the server is up
+wait_for_first_response() {
+    local pid=$1
+    while kill -0 "$pid" 2>/dev/null; do
+        local code
+        code="$(curl -s -o /dev/null -w '%{http_code}' "$URL" || true)"
+        if [ "$code" != "000" ]; then
+            return 0
+        fi
+        sleep 0.01
+    done
+    return 1
+}
+
+rss_mb() {
+    awk '/^VmRSS:/ { printf "%.1f", $2 / 1024 }' "/proc/$1/status"
+}
+
+printf '%-8s %4s %14s %10s\n' mode run first-req-ms rss-mb
+for mode in "${MODES[@]}"; do
+    if ! available "$mode"; then
+        echo "skipping ${mode}: artifact not built" >&2
+        continue
+    fi
+    for run in $(seq 1 "$RUNS"); do
+        start=$(now_millis)
+        $(command_for "$mode") --server.port="$PORT" > "target/startup-${mode}.log" 2>&1 &
+        pid=$!
+        if ! wait_for_first_response "$pid"; then
+            echo "${mode} exited before serving a request, see target/startup-${mode}.log" >&2
+            break
+        fi
+        elapsed=$(( $(now_millis) - start ))
+        printf '%-8s %4s %14s %10s\n' "$mode" "$run" "$elapsed" "$(rss_mb "$pid")"
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+    done
+done
@@ -0,0 +1,83 @@
+package com.example.book_social_netwok.benchmark;
+
+import com.example.book_social_netwok.exception.BusinessException;
+import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.handler.BusinessErrorResponses;
+import com.example.book_social_netwok.handler.ExceptionResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.OWN_BOOK;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+/**
+ * Cost of rejecting a request by exception, from the throw inside the service to the response
+ * the handler returns. The call depth stands in for the servlet, security and proxy frames
+ * sitting above a service method. "legacy" is the previous path: a regular exception that
+ * fills in its stack trace, and a response built per rejection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class RejectionBenchmark {
+
+    @Param({"20", "150"})
+    private int depth;
+
+    private BusinessErrorResponses responses;
+
+    @Setup
+    public void setUp() {
+        responses = new BusinessErrorResponses(new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public ResponseEntity<ExceptionResponse> legacy() {
+        try {
+            throwAt(depth, true);
+            return null;
+        } catch (LegacyRejection ex) {
+            return ResponseEntity
+                    .status(BAD_REQUEST)
+                    .body(
+                            ExceptionResponse.builder()
+                                    .error(ex.getMessage())
+                                    .build()
+                    );
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ExceptionResponse> stackless() {
+        try {
+            throwAt(depth, false);
+            return null;
+        } catch (BusinessException ex) {
+            return responses.reject(ex);
+        }
+    }
+
+    private static void throwAt(int depth, boolean legacy) {
+        if (depth > 0) {
+            throwAt(depth - 1, legacy);
+            return;
+        }
+        if (legacy) {
+            throw new LegacyRejection("You cannot borrow your own Book");
+        }
+        throw new OperationNotPermittedException(OWN_BOOK);
+    }
+
+    private static final class LegacyRejection extends RuntimeException {
+
+        private LegacyRejection(String msg) {
+            super(msg);
+        }
+    }
+}
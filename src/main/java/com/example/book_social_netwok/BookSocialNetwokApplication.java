@@ -1,17 +1,24 @@
 package com.example.book_social_netwok;
 
+import com.example.book_social_netwok.config.NativeHints;
 import com.example.book_social_netwok.role.Role;
 import com.example.book_social_netwok.role.RoleRepository;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableJpaAuditing(auditorAwareRef = "auditorAware")
 @EnableAsync
+@EnableScheduling
+@EnableCaching
+@ImportRuntimeHints(NativeHints.class)
 public class BookSocialNetwokApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,37 @@
+package com.example.book_social_netwok.auth;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("account")
+@RequiredArgsConstructor
+@Tag(name = "Account")
+public class AccountController {
+
+    private final AuthenticationService authenticationService;
+
+    @PatchMapping("/password")
+    public ResponseEntity<Void> changePassword(
+            @Valid @RequestBody ChangePasswordRequest request,
+            Authentication connectedUser
+    ){
+        authenticationService.changePassword(request, connectedUser);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PatchMapping("/{user-id}/status")
+    @Secured("ADMIN")
+    public ResponseEntity<Void> updateAccountStatus(
+            @PathVariable("user-id") Integer userId,
+            @RequestBody AccountStatusRequest request
+    ){
+        authenticationService.updateAccountStatus(userId, request);
+        return ResponseEntity.noContent().build();
+    }
+}
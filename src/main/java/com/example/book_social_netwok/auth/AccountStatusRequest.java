@@ -0,0 +1,8 @@
+package com.example.book_social_netwok.auth;
+
+// a null field leaves that flag as it is
+public record AccountStatusRequest(
+        Boolean accountLocked,
+        Boolean enabled
+) {
+}
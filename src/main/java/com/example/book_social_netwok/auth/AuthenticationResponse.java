@@ -10,4 +10,7 @@ import lombok.*;
 public class AuthenticationResponse {
 
     private String token;
+    private String refreshToken;
+    // access token lifetime in seconds
+    private long expiresIn;
 }
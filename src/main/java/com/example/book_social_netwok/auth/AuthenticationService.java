@@ -2,29 +2,44 @@ package com.example.book_social_netwok.auth;
 
 import com.example.book_social_netwok.email.EmailService;
 import com.example.book_social_netwok.email.EmailTemplateName;
+import com.example.book_social_netwok.event.DomainEvent;
+import com.example.book_social_netwok.event.DomainEventPublisher;
+import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.exception.ResourceNotFoundException;
 import com.example.book_social_netwok.role.Role;
 import com.example.book_social_netwok.role.RoleRepository;
 import com.example.book_social_netwok.security.JwtService;
-import com.example.book_social_netwok.user.Token;
-import com.example.book_social_netwok.user.TokenRepository;
-import com.example.book_social_netwok.user.User;
-import com.example.book_social_netwok.user.UserRepository;
+import com.example.book_social_netwok.security.TokenRevocationList;
+import com.example.book_social_netwok.user.*;
+import io.jsonwebtoken.JwtException;
 import jakarta.mail.MessagingException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.INCORRECT_CURRENT_PASSWORD;
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.NEW_PASSWORD_DOES_NOT_MATCH;
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.USER_NOT_FOUND;
 
 @Service
 @RequiredArgsConstructor
@@ -37,10 +52,17 @@ public class AuthenticationService {
     private final EmailService emailService;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final DomainEventPublisher domainEventPublisher;
+    private final TokenRevocationList tokenRevocationList;
+    private final SecureRandom secureRandom = new SecureRandom();
 
     @Value("${application.mailing.frontend.activation-url}")
     private String activationUrl;
 
+    @Value("${application.security.jwt.refresh-expiration}")
+    private long refreshExpiration;
+
     public void register(RegistrationRequest request) throws MessagingException {
         Role userRole = roleRepository.findByName("USER")
                 //todo - better exception handling
@@ -69,24 +91,36 @@ public class AuthenticationService {
                 user.getEmail(),
                 user.fullName(),
                 EmailTemplateName.ACTIVATE_ACCOUNT,
-                activationUrl,
+                // the code alone is not unique, the activation page sends the email back with it
+                UriComponentsBuilder.fromUriString(activationUrl)
+                        .queryParam("email", user.getEmail())
+                        .encode()
+                        .toUriString(),
                 newToken,
                 "Account Activation"
                 );
     }
 
     private String generateAndSaveActivationToken(User user) {
-        //GenerateToken
-        String generatedToken = generateActivationToken(6);
-        Token token = Token.builder()
-                .token(generatedToken)
-                .createdAt(LocalDateTime.now())
-                .expiresAt(LocalDateTime.now().plusMinutes(15))
-                .user(user)
-                .build();
-        tokenRepository.save(token);
-
-        return generatedToken;
+        // a resend supersedes the codes previously issued to this user
+        tokenRepository.deleteUnvalidatedByUserId(user.getId());
+        // the unique index decides, a code colliding with one of the user's validated codes is drawn again
+        for (int attempt = 0; attempt < 5; attempt++) {
+            String generatedToken = generateActivationToken(6);
+            Token token = Token.builder()
+                    .token(generatedToken)
+                    .createdAt(LocalDateTime.now())
+                    .expiresAt(LocalDateTime.now().plusMinutes(15))
+                    .user(user)
+                    .build();
+            try {
+                tokenRepository.saveAndFlush(token);
+                return generatedToken;
+            } catch (DataIntegrityViolationException e) {
+                // retried with a fresh code
+            }
+        }
+        throw new IllegalStateException("Could not generate a unique activation token");
     }
 
     private String generateActivationToken(int length) {
@@ -108,18 +142,139 @@ public class AuthenticationService {
                 )
         );
 
-        Map<String, Object> claims = new HashMap<>();
         User user = (User) auth.getPrincipal();
+        return issueTokens(user, UUID.randomUUID().toString());
+    }
+
+    @Transactional(dontRollbackOn = AuthenticationException.class)
+    public AuthenticationResponse refresh(RefreshTokenRequest request) {
+        RefreshToken savedToken = refreshTokenRepository.findByTokenHash(hashRefreshToken(request.refreshToken()))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        User user = savedToken.getUser();
+
+        if (savedToken.getRevokedAt() != null) {
+            // a rotated token presented again means it leaked: end every session of this login
+            refreshTokenRepository.revokeFamily(savedToken.getFamilyId(), LocalDateTime.now());
+            revokeAccessTokens(user);
+            throw new BadCredentialsException("Refresh token has already been used");
+        }
+        if (LocalDateTime.now().isAfter(savedToken.getExpiresAt())) {
+            throw new BadCredentialsException("Refresh token has expired");
+        }
+        if (!user.isAccountNonLocked()) {
+            throw new LockedException("Account locked");
+        }
+        if (!user.isEnabled()) {
+            throw new DisabledException("Account disabled");
+        }
+
+        if (refreshTokenRepository.revokeIfActive(savedToken.getId(), LocalDateTime.now()) == 0) {
+            // a concurrent refresh with the same token rotated it first
+            throw new BadCredentialsException("Refresh token has already been used");
+        }
+        return issueTokens(user, savedToken.getFamilyId());
+    }
+
+    @Transactional
+    public void logout(RefreshTokenRequest request, String accessToken) {
+        refreshTokenRepository.findByTokenHash(hashRefreshToken(request.refreshToken()))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+        if (accessToken != null) {
+            try {
+                tokenRevocationList.revoke(jwtService.extractAllClaims(accessToken).getId());
+            } catch (JwtException | IllegalArgumentException e) {
+                // an expired or invalid access token does not need revoking
+            }
+        }
+    }
+
+    @Transactional
+    public void changePassword(ChangePasswordRequest request, Authentication connectedUser) {
+        User user = findUser(((User) connectedUser.getPrincipal()).getId());
+        if (!passwordEncoder.matches(request.currentPassword(), user.getPassword())) {
+            throw new OperationNotPermittedException(INCORRECT_CURRENT_PASSWORD);
+        }
+        if (!request.newPassword().equals(request.confirmationPassword())) {
+            throw new OperationNotPermittedException(NEW_PASSWORD_DOES_NOT_MATCH);
+        }
+        user.setPassword(passwordEncoder.encode(request.newPassword()));
+        revokeAllSessions(user);
+    }
+
+    @Transactional
+    public void updateAccountStatus(Integer userId, AccountStatusRequest request) {
+        User user = findUser(userId);
+        boolean locking = request.accountLocked() != null && request.accountLocked() && !user.isAccountLocked();
+        boolean disabling = request.enabled() != null && !request.enabled() && user.isEnabled();
+        if (request.accountLocked() != null) {
+            user.setAccountLocked(request.accountLocked());
+        }
+        if (request.enabled() != null) {
+            user.setEnabled(request.enabled());
+        }
+        if (locking || disabling) {
+            revokeAllSessions(user);
+        } else {
+            userRepository.save(user);
+        }
+    }
+
+    /**
+     * Ends every session of the user immediately: refresh tokens are revoked and access tokens
+     * issued for an older token version are rejected from now on.
+     */
+    @Transactional
+    public void revokeAllSessions(User user) {
+        refreshTokenRepository.revokeAllForUser(user.getId(), LocalDateTime.now());
+        revokeAccessTokens(user);
+    }
+
+    private void revokeAccessTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+        tokenRevocationList.revokeAllFor(user.getUsername(), user.getTokenVersion());
+    }
+
+    private User findUser(Integer userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException(USER_NOT_FOUND));
+    }
+
+    private AuthenticationResponse issueTokens(User user, String familyId) {
+        Map<String, Object> claims = new HashMap<>();
         claims.put("fullName", user.fullName());
         String jwtToken = jwtService.generateToken(claims, user);
+
+        byte[] randomBytes = new byte[32];
+        secureRandom.nextBytes(randomBytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hashRefreshToken(refreshToken))
+                .familyId(familyId)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plus(Duration.ofMillis(refreshExpiration)))
+                .user(user)
+                .build());
+
         return AuthenticationResponse.builder()
                 .token(jwtToken)
+                .refreshToken(refreshToken)
+                .expiresIn(jwtService.getJwtExpiration() / 1000)
                 .build();
     }
 
+    private String hashRefreshToken(String refreshToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(refreshToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
 //    @Transactional
-    public void activateAccount(String token) throws MessagingException {
-        Token savedToken = tokenRepository.findByToken(token)
+    public void activateAccount(String email, String token) throws MessagingException {
+        Token savedToken = tokenRepository.findByUserEmailAndToken(email, token)
                 .orElseThrow(() -> new RuntimeException("Invalid token"));
 
         if(LocalDateTime.now().isAfter(savedToken.getExpiresAt())){
@@ -135,6 +290,6 @@ public class AuthenticationService {
 
         savedToken.setValidatedAt(LocalDateTime.now());
         tokenRepository.save(savedToken);
-
+        domainEventPublisher.publish(new DomainEvent.UserActivated(user.getId(), user.getEmail()));
     }
 }
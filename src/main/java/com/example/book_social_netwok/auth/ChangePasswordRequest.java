@@ -0,0 +1,15 @@
+package com.example.book_social_netwok.auth;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record ChangePasswordRequest(
+        @NotBlank(message = "Current password is mandatory")
+        String currentPassword,
+        @NotBlank(message = "New password is mandatory")
+        @Size(min = 8, message = "Password should be 8 characters long minimum")
+        String newPassword,
+        @NotBlank(message = "Password confirmation is mandatory")
+        String confirmationPassword
+) {
+}
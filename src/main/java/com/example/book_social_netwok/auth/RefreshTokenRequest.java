@@ -0,0 +1,9 @@
+package com.example.book_social_netwok.auth;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequest(
+        @NotBlank(message = "Refresh token is mandatory")
+        String refreshToken
+) {
+}
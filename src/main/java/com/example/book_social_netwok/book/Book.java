@@ -1,6 +1,7 @@
 package com.example.book_social_netwok.book;
 
 import com.example.book_social_netwok.common.BaseEntity;
+import com.example.book_social_netwok.edition.Edition;
 import com.example.book_social_netwok.feedback.Feedback;
 import com.example.book_social_netwok.history.BookTransactionHistory;
 import com.example.book_social_netwok.user.User;
@@ -10,6 +11,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -19,6 +22,11 @@ import java.util.List;
 @NoArgsConstructor
 @SuperBuilder
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_owner_flags", columnList = "owner_id, archived, shareable"),
+        @Index(name = "idx_book_edition_flags", columnList = "edition_id, archived, shareable")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Book extends BaseEntity {
 
     private String title;
@@ -33,6 +41,10 @@ public class Book extends BaseEntity {
     @JoinColumn(name = "owner_id")
     private User owner;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "edition_id")
+    private Edition edition;
+
     @OneToMany(mappedBy = "book")
     private List<Feedback> feedbacks;
 
@@ -0,0 +1,11 @@
+package com.example.book_social_netwok.book;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record BookBatchRequest(
+        @NotEmpty(message = "Book ids are mandatory")
+        List<Integer> ids
+) {
+}
@@ -0,0 +1,8 @@
+package com.example.book_social_netwok.book;
+
+public enum BookBulkOutcome {
+    UPDATED,
+    UNCHANGED,
+    NOT_FOUND,
+    NOT_OWNER
+}
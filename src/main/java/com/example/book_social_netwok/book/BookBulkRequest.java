@@ -0,0 +1,16 @@
+package com.example.book_social_netwok.book;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Either explicit book ids or a filter on the owner's own books, not both.
+ */
+public record BookBulkRequest(
+        @NotNull(message = "Action is mandatory")
+        BookBulkAction action,
+        List<@NotNull(message = "Book ids cannot be null") Integer> ids,
+        String authorName
+) {
+}
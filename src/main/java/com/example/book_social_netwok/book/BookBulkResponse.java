@@ -0,0 +1,19 @@
+package com.example.book_social_netwok.book;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookBulkResponse {
+
+    private BookBulkAction action;
+    private int updated;
+    private int unchanged;
+    private int rejected;
+    private List<BookBulkResult> results;
+}
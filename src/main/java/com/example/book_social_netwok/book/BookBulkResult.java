@@ -0,0 +1,14 @@
+package com.example.book_social_netwok.book;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookBulkResult {
+
+    private Integer bookId;
+    private BookBulkOutcome outcome;
+}
@@ -0,0 +1,182 @@
+package com.example.book_social_netwok.book;
+
+import com.example.book_social_netwok.cache.EntityCacheCoherence;
+import com.example.book_social_netwok.event.DomainEvent;
+import com.example.book_social_netwok.event.DomainEventPublisher;
+import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.reservation.ReservationService;
+import com.example.book_social_netwok.user.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Archives, restores, shares or unshares many of an owner's books at once. The ids are handled
+ * in chunks, each one a plain read of the current flags plus one set-based UPDATE limited to
+ * the owner's rows that change, in its own transaction, so a large library never holds row
+ * locks for long and other owners' rows are never locked. A failing chunk leaves the chunks
+ * before it applied. The leaderboard and the waitlists hear of a chunk only once it commits.
+ */
+@Service
+@Slf4j
+public class BookBulkService {
+
+    private final BookRepository bookRepository;
+    private final BookCache bookCache;
+    private final EntityCacheCoherence entityCacheCoherence;
+    private final OwnerStatsService ownerStatsService;
+    private final ReservationService reservationService;
+    private final DomainEventPublisher domainEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.book.bulk.max-ids}")
+    private int maxIds;
+
+    @Value("${application.book.bulk.chunk-size}")
+    private int chunkSize;
+
+    public BookBulkService(
+            BookRepository bookRepository,
+            BookCache bookCache,
+            EntityCacheCoherence entityCacheCoherence,
+            OwnerStatsService ownerStatsService,
+            ReservationService reservationService,
+            DomainEventPublisher domainEventPublisher,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.bookRepository = bookRepository;
+        this.bookCache = bookCache;
+        this.entityCacheCoherence = entityCacheCoherence;
+        this.ownerStatsService = ownerStatsService;
+        this.reservationService = reservationService;
+        this.domainEventPublisher = domainEventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public BookBulkResponse apply(BookBulkRequest request, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        List<Integer> bookIds = selectBooks(request, user.getId());
+        List<BookBulkResult> results = new ArrayList<>(bookIds.size());
+        for (int from = 0; from < bookIds.size(); from += chunkSize) {
+            List<Integer> chunk = bookIds.subList(from, Math.min(from + chunkSize, bookIds.size()));
+            results.addAll(transactionTemplate.execute(status -> applyChunk(request.action(), chunk, user.getId())));
+        }
+        ownerStatsService.evict(user.getId());
+
+        Map<BookBulkOutcome, Integer> counts = new EnumMap<>(BookBulkOutcome.class);
+        results.forEach(result -> counts.merge(result.getOutcome(), 1, Integer::sum));
+        log.debug("Bulk {} of {} books by owner {}: {}", request.action(), bookIds.size(), user.getId(), counts);
+        return BookBulkResponse.builder()
+                .action(request.action())
+                .updated(counts.getOrDefault(BookBulkOutcome.UPDATED, 0))
+                .unchanged(counts.getOrDefault(BookBulkOutcome.UNCHANGED, 0))
+                .rejected(counts.getOrDefault(BookBulkOutcome.NOT_FOUND, 0) + counts.getOrDefault(BookBulkOutcome.NOT_OWNER, 0))
+                .results(results)
+                .build();
+    }
+
+    private List<Integer> selectBooks(BookBulkRequest request, Integer ownerId) {
+        boolean byIds = request.ids() != null && !request.ids().isEmpty();
+        boolean byAuthor = request.authorName() != null && !request.authorName().isBlank();
+        if (byIds == byAuthor) {
+            throw new OperationNotPermittedException("Select the books either by ids or by author name");
+        }
+        List<Integer> bookIds = byIds
+                ? List.copyOf(new LinkedHashSet<>(request.ids()))
+                : bookRepository.findIdsByOwnerAndAuthorName(ownerId, request.authorName().strip());
+        if (bookIds.size() > maxIds) {
+            throw new OperationNotPermittedException("You cannot change more than " + maxIds + " books at once");
+        }
+        return bookIds;
+    }
+
+    private List<BookBulkResult> applyChunk(BookBulkAction action, List<Integer> chunk, Integer ownerId) {
+        Map<Integer, BookStateRow> states = statesOf(chunk);
+        List<Integer> candidates = new ArrayList<>();
+        for (Integer bookId : chunk) {
+            BookStateRow state = states.get(bookId);
+            if (state != null && Objects.equals(state.ownerId(), ownerId) && !isApplied(action, state)) {
+                candidates.add(bookId);
+            }
+        }
+        Set<Integer> changed = new LinkedHashSet<>(candidates);
+        if (!candidates.isEmpty() && update(action, candidates, ownerId) < candidates.size()) {
+            // a concurrent change got there first; this transaction's snapshot still shows the old
+            // flags for those rows, and its own update for the rest
+            statesOf(candidates).values().stream()
+                    .filter(state -> !isApplied(action, state))
+                    .forEach(state -> changed.remove(state.bookId()));
+        }
+
+        List<BookBulkResult> results = new ArrayList<>(chunk.size());
+        List<Integer> shown = new ArrayList<>();
+        List<Integer> hidden = new ArrayList<>();
+        for (Integer bookId : chunk) {
+            BookStateRow state = states.get(bookId);
+            BookBulkOutcome outcome;
+            if (state == null) {
+                outcome = BookBulkOutcome.NOT_FOUND;
+            } else if (!Objects.equals(state.ownerId(), ownerId)) {
+                outcome = BookBulkOutcome.NOT_OWNER;
+            } else if (!changed.contains(bookId)) {
+                outcome = BookBulkOutcome.UNCHANGED;
+            } else {
+                outcome = BookBulkOutcome.UPDATED;
+                boolean wasVisible = !state.archived() && state.shareable();
+                boolean visible = switch (action) {
+                    case ARCHIVE, UNSHARE -> false;
+                    case UNARCHIVE -> state.shareable();
+                    case SHARE -> !state.archived();
+                };
+                if (visible != wasVisible) {
+                    (visible ? shown : hidden).add(bookId);
+                }
+            }
+            results.add(new BookBulkResult(bookId, outcome));
+        }
+        if (changed.isEmpty()) {
+            return results;
+        }
+
+        bookCache.evictAll(changed);
+        entityCacheCoherence.evictAll(Book.class, changed);
+        reservationService.handOffAfterCommit(shown);
+        if (!shown.isEmpty() || !hidden.isEmpty()) {
+            domainEventPublisher.publish(new DomainEvent.BooksUpdated(ownerId, shown, hidden));
+        }
+        return results;
+    }
+
+    private Map<Integer, BookStateRow> statesOf(Collection<Integer> bookIds) {
+        Map<Integer, BookStateRow> states = new HashMap<>();
+        for (BookStateRow state : bookRepository.findStatesByIdIn(bookIds)) {
+            states.put(state.bookId(), state);
+        }
+        return states;
+    }
+
+    private int update(BookBulkAction action, List<Integer> bookIds, Integer ownerId) {
+        LocalDateTime now = LocalDateTime.now();
+        return switch (action) {
+            case ARCHIVE -> bookRepository.updateArchived(bookIds, ownerId, true, now);
+            case UNARCHIVE -> bookRepository.updateArchived(bookIds, ownerId, false, now);
+            case SHARE -> bookRepository.updateShareable(bookIds, ownerId, true, now);
+            case UNSHARE -> bookRepository.updateShareable(bookIds, ownerId, false, now);
+        };
+    }
+
+    private static boolean isApplied(BookBulkAction action, BookStateRow state) {
+        return switch (action) {
+            case ARCHIVE -> state.archived();
+            case UNARCHIVE -> !state.archived();
+            case SHARE -> state.shareable();
+            case UNSHARE -> !state.shareable();
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.book_social_netwok.book;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Single-book cache of mapped responses shared by the detail and batch endpoints. Covers can
+ * be megabytes, so entries hold the response without it plus the cover location, and the
+ * cover is read from storage on every hit. The region is bounded in ehcache.xml.
+ */
+@Component
+public class BookCache {
+
+    public static final String BOOKS_CACHE = "books";
+
+    // past this many ids one clear is cheaper than an invalidation message per id
+    private static final int CLEAR_THRESHOLD = 64;
+
+    private final Cache cache;
+
+    public BookCache(CacheManager cacheManager) {
+        this.cache = cacheManager.getCache(BOOKS_CACHE);
+    }
+
+    public Entry get(Integer bookId) {
+        return cache.get(bookId, Entry.class);
+    }
+
+    public void put(Entry entry) {
+        cache.put(entry.book().getId(), entry);
+    }
+
+    // the coherent cache evicts again after commit and tells the other nodes
+    public void evict(Integer bookId) {
+        cache.evict(bookId);
+    }
+
+    public void evictAll(Collection<Integer> bookIds) {
+        if (bookIds.size() > CLEAR_THRESHOLD) {
+            cache.clear();
+        } else {
+            bookIds.forEach(cache::evict);
+        }
+    }
+
+    // the response is shared between hits and must not be modified
+    public record Entry(BookResponse book, String coverLocation) {
+    }
+}
@@ -5,11 +5,15 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("books")
 @RequiredArgsConstructor
@@ -17,6 +21,7 @@ import org.springframework.web.multipart.MultipartFile;
 public class BookController {
 
     private final BookService bookService;
+    private final BookBulkService bookBulkService;
 
     @PostMapping
     public ResponseEntity<Integer> saveBook(
@@ -28,9 +33,15 @@ public class BookController {
 
     @GetMapping("/{book-id}")
     public ResponseEntity<BookResponse> findBookById(
-            @PathVariable("book-id") Integer bookId
+            @PathVariable("book-id") Integer bookId,
+            WebRequest webRequest
     ){
-        return ResponseEntity.ok(bookService.findById(bookId));
+        if (bookService.findBookVersion(bookId).isNotModified(webRequest)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(bookService.findById(bookId));
     }
 
     @GetMapping
@@ -42,13 +53,40 @@ public class BookController {
         return ResponseEntity.ok(bookService.findAllBooks(pageNum, pageSize, connectedUser));
     }
 
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<BookResponse>> findBooksByIds(
+            @RequestParam(name = "ids") List<Integer> bookIds
+    ){
+        return ResponseEntity.ok(bookService.findAllByIds(bookIds));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookResponse>> findBooksByIds(
+            @Valid @RequestBody BookBatchRequest bookBatchRequest
+    ){
+        return ResponseEntity.ok(bookService.findAllByIds(bookBatchRequest.ids()));
+    }
+
     @GetMapping("/owner")
     public ResponseEntity<PageResponse<BookResponse>> findAllBooksByOwner(
             @RequestParam(name = "page", defaultValue = "0", required = false) int pageNum,
             @RequestParam(name = "size", defaultValue = "10", required = false) int pageSize,
+            Authentication connectedUser,
+            WebRequest webRequest
+    ){
+        if (bookService.findOwnerBooksVersion(pageNum, pageSize, connectedUser).isNotModified(webRequest)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(bookService.findAllBooksByOwner(pageNum, pageSize, connectedUser));
+    }
+
+    @GetMapping("/owner/stats")
+    public ResponseEntity<OwnerStatsResponse> findOwnerStats(
             Authentication connectedUser
     ){
-        return ResponseEntity.ok(bookService.findAllBooksByOwner(pageNum, pageSize, connectedUser));
+        return ResponseEntity.ok(bookService.findOwnerStats(connectedUser));
     }
 
     @GetMapping("/borrowed")
@@ -86,6 +124,14 @@ public class BookController {
         return ResponseEntity.ok(bookService.updateArchivedStatus(bookId, connectedUser));
     }
 
+    @PatchMapping("/bulk")
+    public ResponseEntity<BookBulkResponse> updateBooks(
+            @Valid @RequestBody BookBulkRequest bookBulkRequest,
+            Authentication connectedUser
+    ){
+        return ResponseEntity.ok(bookBulkService.apply(bookBulkRequest, connectedUser));
+    }
+
     @PostMapping("/borrow/{book-id}")
     public ResponseEntity<Integer> borrowBook(
             @PathVariable("book-id") Integer bookId,
@@ -0,0 +1,12 @@
+package com.example.book_social_netwok.book;
+
+public record BookFlags(
+        Integer ownerId,
+        boolean archived,
+        boolean shareable
+) {
+
+    public boolean isVisible() {
+        return !archived && shareable;
+    }
+}
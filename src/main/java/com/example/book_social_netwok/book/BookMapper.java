@@ -1,16 +1,24 @@
 package com.example.book_social_netwok.book;
 
-import com.example.book_social_netwok.file.FileUtils;
-import com.example.book_social_netwok.history.BookTransactionHistory;
+import com.example.book_social_netwok.edition.Isbn;
+import com.example.book_social_netwok.file.FileStorageService;
+import com.example.book_social_netwok.history.BorrowedBookView;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 @Service
+@RequiredArgsConstructor
 public class BookMapper {
+
+    private final FileStorageService fileStorageService;
+
+    // an ISBN that does not parse is kept as typed, the book just stays without an edition
     public Book toBook(BookRequest bookRequest) {
         return Book.builder()
                 .id(bookRequest.id())
                 .title(bookRequest.title())
                 .authorName(bookRequest.authorName())
+                .isbn(Isbn.toIsbn13(bookRequest.isbn()).orElse(bookRequest.isbn()))
                 .synopsis(bookRequest.synopsis())
                 .archived(false)
                 .shareable(bookRequest.sharable())
@@ -28,19 +36,53 @@ public class BookMapper {
                 .archived(book.isArchived())
                 .shareable(book.isShareable())
                 .owner(book.getOwner().fullName())
-                .cover(FileUtils.readFileFromLocation(book.getBookCover()))
+                .cover(fileStorageService.readFile(book.getBookCover()))
+                .build();
+    }
+
+    // the cover is attached separately, see withCover
+    public BookResponse toBookResponseWithoutCover(BookRow bookRow) {
+        double rate = 0.0;
+        if (bookRow.feedbackCount() != null && bookRow.feedbackCount() > 0) {
+            rate = Math.round(bookRow.noteSum() / bookRow.feedbackCount() * 10.0) / 10.0;
+        }
+        return BookResponse.builder()
+                .id(bookRow.id())
+                .title(bookRow.title())
+                .authorName(bookRow.authorName())
+                .isbn(bookRow.isbn())
+                .synopsis(bookRow.synopsis())
+                .rate(rate)
+                .archived(bookRow.archived())
+                .shareable(bookRow.shareable())
+                .owner(bookRow.ownerFirstname() + " " + bookRow.ownerLastname())
+                .build();
+    }
+
+    public BookResponse withCover(BookResponse book, String coverLocation) {
+        return BookResponse.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .authorName(book.getAuthorName())
+                .isbn(book.getIsbn())
+                .synopsis(book.getSynopsis())
+                .rate(book.getRate())
+                .archived(book.isArchived())
+                .shareable(book.isShareable())
+                .owner(book.getOwner())
+                .cover(fileStorageService.readFile(coverLocation))
                 .build();
     }
 
-    public BorrowedBookResponse toBorrowedBookResponse(BookTransactionHistory bookTransactionHistory) {
+    public BorrowedBookResponse toBorrowedBookResponse(BorrowedBookView borrowedBook) {
         return BorrowedBookResponse.builder()
-                .id(bookTransactionHistory.getBook().getId())
-                .title(bookTransactionHistory.getBook().getTitle())
-                .authorName(bookTransactionHistory.getBook().getAuthorName())
-                .isbn(bookTransactionHistory.getBook().getIsbn())
-                .rate(bookTransactionHistory.getBook().getRate())
-                .returned(bookTransactionHistory.isReturned())
-                .returnApproved(bookTransactionHistory.isReturnedApproved())
+                .id(borrowedBook.getBookId())
+                .title(borrowedBook.getTitle())
+                .authorName(borrowedBook.getAuthorName())
+                .isbn(borrowedBook.getIsbn())
+                .rate(borrowedBook.getRate() == null ? 0.0 : borrowedBook.getRate().doubleValue())
+                .returned(Boolean.TRUE.equals(borrowedBook.getReturned()))
+                .returnApproved(Boolean.TRUE.equals(borrowedBook.getReturnedApproved()))
                 .build();
     }
 }
@@ -1,12 +1,28 @@
 package com.example.book_social_netwok.book;
 
+import com.example.book_social_netwok.common.VersionStamp;
+import com.example.book_social_netwok.suggest.SuggestRow;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.example.book_social_netwok.cache.EntityCacheCoherence.ROW_EVICTED_SPACE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecificationExecutor<Book> {
     @Query("""
@@ -16,4 +32,165 @@ public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecifi
         AND book.owner.id != :userId
         """)
     Page<Book> findAllDisplayableBooks(Pageable pageable, Integer userId);
+
+    @Query(value = """
+        SELECT COUNT(book.id) AS owned,
+               COALESCE(SUM(CASE WHEN book.shareable = true THEN 1 ELSE 0 END), 0) AS shared,
+               COALESCE(SUM(CASE WHEN book.archived = true THEN 1 ELSE 0 END), 0) AS archived,
+               COALESCE(SUM(loans.lent_out), 0) AS lentOut,
+               COALESCE(SUM(loans.awaiting_approval), 0) AS awaitingApproval,
+               COALESCE(SUM(loans.borrows), 0) + COALESCE(SUM(archived_loans.borrows), 0) AS totalBorrows
+        FROM book book
+        LEFT JOIN (
+            SELECT history.book_id,
+                   SUM(CASE WHEN history.returned = false THEN 1 ELSE 0 END) AS lent_out,
+                   SUM(CASE WHEN history.returned = true AND history.returned_approved = false THEN 1 ELSE 0 END) AS awaiting_approval,
+                   COUNT(*) AS borrows
+            FROM book_transaction_history history
+            JOIN book owned ON owned.id = history.book_id
+            WHERE owned.owner_id = :ownerId
+            GROUP BY history.book_id
+        ) loans ON loans.book_id = book.id
+        LEFT JOIN (
+            SELECT archived.book_id, COUNT(*) AS borrows
+            FROM book_transaction_history_archive archived
+            JOIN book owned ON owned.id = archived.book_id
+            WHERE owned.owner_id = :ownerId
+            GROUP BY archived.book_id
+        ) archived_loans ON archived_loans.book_id = book.id
+        WHERE book.owner_id = :ownerId
+        """, nativeQuery = true)
+    OwnerStatsView findOwnerStats(Integer ownerId);
+
+    // new feedback only touches the summary row, its time has to move Last-Modified too
+    @Query("""
+        SELECT new com.example.book_social_netwok.common.VersionStamp(
+            GREATEST(COALESCE(book.lastModifiedDate, book.createdDate),
+                     COALESCE(summary.lastModifiedDate, book.createdDate)),
+            1L,
+            COALESCE(summary.feedbackCount, 0L))
+        FROM Book book
+        LEFT JOIN BookRatingSummary summary ON summary.bookId = book.id
+        WHERE book.id = :bookId
+        """)
+    Optional<VersionStamp> findVersionById(Integer bookId);
+
+    @Query("""
+        SELECT new com.example.book_social_netwok.common.VersionStamp(
+            MAX(GREATEST(COALESCE(book.lastModifiedDate, book.createdDate),
+                         COALESCE(summary.lastModifiedDate, book.createdDate))),
+            COUNT(book),
+            COALESCE(SUM(summary.feedbackCount), 0L))
+        FROM Book book
+        LEFT JOIN BookRatingSummary summary ON summary.bookId = book.id
+        WHERE book.owner.id = :ownerId
+        """)
+    VersionStamp findVersionByOwner(Integer ownerId);
+
+    @Query("""
+        SELECT new com.example.book_social_netwok.book.BookRow(
+            book.id, book.title, book.authorName, book.isbn, book.synopsis, book.bookCover,
+            book.archived, book.shareable, owner.firstname, owner.lastname,
+            summary.feedbackCount, summary.noteSum)
+        FROM Book book
+        JOIN book.owner owner
+        LEFT JOIN BookRatingSummary summary ON summary.bookId = book.id
+        WHERE book.id IN :bookIds
+        """)
+    List<BookRow> findRowsByIdIn(Collection<Integer> bookIds);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT new com.example.book_social_netwok.suggest.SuggestRow(
+            book.id, book.title, book.authorName,
+            (SELECT COUNT(history) FROM BookTransactionHistory history WHERE history.book.id = book.id)
+                + (SELECT COUNT(archived) FROM ArchivedBookTransaction archived WHERE archived.book.id = book.id),
+            summary.feedbackCount, summary.noteSum)
+        FROM Book book
+        LEFT JOIN BookRatingSummary summary ON summary.bookId = book.id
+        WHERE book.archived = false
+        AND book.shareable = true
+        """)
+    Stream<SuggestRow> streamSuggestRows();
+
+    @Query("""
+        SELECT new com.example.book_social_netwok.book.BookFlags(book.owner.id, book.archived, book.shareable)
+        FROM Book book
+        WHERE book.id = :bookId
+        """)
+    Optional<BookFlags> findFlagsById(Integer bookId);
+
+    // each toggle only matches when it leaves the book with the given visibility, so the affected rows
+    // tell the caller the new visibility without reading the row back; the caller evicts the cached row
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = ROW_EVICTED_SPACE))
+    @Query(value = """
+        UPDATE book
+        SET shareable = NOT shareable,
+            last_modified_date = :now,
+            last_modified_by = :ownerId
+        WHERE id = :bookId
+        AND owner_id = :ownerId
+        AND (archived = false AND shareable = false) = :visibleAfter
+        """, nativeQuery = true)
+    int toggleShareable(Integer bookId, Integer ownerId, boolean visibleAfter, LocalDateTime now);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = ROW_EVICTED_SPACE))
+    @Query(value = """
+        UPDATE book
+        SET archived = NOT archived,
+            last_modified_date = :now,
+            last_modified_by = :ownerId
+        WHERE id = :bookId
+        AND owner_id = :ownerId
+        AND (archived = true AND shareable = true) = :visibleAfter
+        """, nativeQuery = true)
+    int toggleArchived(Integer bookId, Integer ownerId, boolean visibleAfter, LocalDateTime now);
+
+    @Query("""
+        SELECT new com.example.book_social_netwok.book.BookStateRow(book.id, book.owner.id, book.archived, book.shareable)
+        FROM Book book
+        WHERE book.id IN :bookIds
+        """)
+    List<BookStateRow> findStatesByIdIn(Collection<Integer> bookIds);
+
+    @Query("""
+        SELECT book.id
+        FROM Book book
+        WHERE book.owner.id = :ownerId
+        AND book.authorName = :authorName
+        ORDER BY book.id
+        """)
+    List<Integer> findIdsByOwnerAndAuthorName(Integer ownerId, String authorName);
+
+    // set-based and limited to the owner's rows whose flag differs; the caller evicts the cached rows
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = ROW_EVICTED_SPACE))
+    @Query(value = """
+        UPDATE book
+        SET archived = :archived,
+            last_modified_date = :now,
+            last_modified_by = :ownerId
+        WHERE id IN :bookIds
+        AND owner_id = :ownerId
+        AND archived != :archived
+        """, nativeQuery = true)
+    int updateArchived(Collection<Integer> bookIds, Integer ownerId, boolean archived, LocalDateTime now);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = ROW_EVICTED_SPACE))
+    @Query(value = """
+        UPDATE book
+        SET shareable = :shareable,
+            last_modified_date = :now,
+            last_modified_by = :ownerId
+        WHERE id IN :bookIds
+        AND owner_id = :ownerId
+        AND shareable != :shareable
+        """, nativeQuery = true)
+    int updateShareable(Collection<Integer> bookIds, Integer ownerId, boolean shareable, LocalDateTime now);
 }
@@ -0,0 +1,17 @@
+package com.example.book_social_netwok.book;
+
+public record BookRow(
+        Integer id,
+        String title,
+        String authorName,
+        String isbn,
+        String synopsis,
+        String bookCover,
+        boolean archived,
+        boolean shareable,
+        String ownerFirstname,
+        String ownerLastname,
+        Long feedbackCount,
+        Double noteSum
+) {
+}
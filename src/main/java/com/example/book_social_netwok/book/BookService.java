@@ -1,25 +1,38 @@
 package com.example.book_social_netwok.book;
 
+import com.example.book_social_netwok.cache.EntityCacheCoherence;
 import com.example.book_social_netwok.common.PageResponse;
+import com.example.book_social_netwok.common.ResourceVersion;
+import com.example.book_social_netwok.edition.EditionService;
+import com.example.book_social_netwok.edition.Isbn;
+import com.example.book_social_netwok.event.DomainEvent;
+import com.example.book_social_netwok.event.DomainEventPublisher;
+import com.example.book_social_netwok.exception.BusinessException;
 import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.exception.ResourceNotFoundException;
 import com.example.book_social_netwok.file.FileStorageService;
 import com.example.book_social_netwok.history.BookTransactionHistory;
+import com.example.book_social_netwok.history.ActiveLoan;
 import com.example.book_social_netwok.history.BookTransactionHistoryRepository;
+import com.example.book_social_netwok.history.BorrowedBookView;
+import com.example.book_social_netwok.reservation.ReservationService;
 import com.example.book_social_netwok.user.User;
-import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
-import java.util.Objects;
+import java.time.LocalDateTime;
+import java.util.*;
 
 import static com.example.book_social_netwok.book.BookSpecification.withOwnerId;
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.*;
 
 @Service
 @RequiredArgsConstructor
@@ -29,19 +42,71 @@ public class BookService {
     private final BookRepository bookRepository;
     private final BookTransactionHistoryRepository bookTransactionHistoryRepository;
     private final FileStorageService fileStorageService;
+    private final OwnerStatsService ownerStatsService;
+    private final BookCache bookCache;
+    private final EntityCacheCoherence entityCacheCoherence;
+    private final DomainEventPublisher domainEventPublisher;
+    private final ReservationService reservationService;
+    private final EditionService editionService;
+
+    @Value("${application.book.batch.max-ids}")
+    private int maxBatchSize;
 
     public Integer save(BookRequest bookRequest, Authentication connectedUser) {
         User user = (User) connectedUser.getPrincipal();
         Book book = bookMapper.toBook(bookRequest);
         book.setOwner(user);
+        book.setEdition(Isbn.toIsbn13(book.getIsbn())
+                .map(isbn13 -> editionService.resolve(isbn13, book.getTitle(), book.getAuthorName()))
+                .orElse(null));
 
-        return bookRepository.save(book).getId();
+        Integer bookId = bookRepository.save(book).getId();
+        ownerStatsService.evict(user.getId());
+        domainEventPublisher.publish(new DomainEvent.BookCreated(bookId, user.getId(), book.getTitle(), book.getAuthorName(),
+                !book.isArchived() && book.isShareable()));
+        return bookId;
     }
 
+    // same rows and rating source as the batch lookup, so both agree on every field
     public BookResponse findById(Integer bookId) {
-        return bookRepository.findById(bookId)
-                .map(bookMapper::toBookResponse)
-                .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
+        return findAllByIds(List.of(bookId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException(BOOK_NOT_FOUND));
+    }
+
+    public List<BookResponse> findAllByIds(List<Integer> bookIds) {
+        Set<Integer> requestedIds = new LinkedHashSet<>(bookIds);
+        if (requestedIds.size() > maxBatchSize) {
+            throw new OperationNotPermittedException("You cannot request more than " + maxBatchSize + " books at once");
+        }
+        Map<Integer, BookCache.Entry> found = new HashMap<>();
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer bookId : requestedIds) {
+            BookCache.Entry cached = bookCache.get(bookId);
+            if (cached != null) {
+                found.put(bookId, cached);
+            } else {
+                missingIds.add(bookId);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            for (BookRow bookRow : bookRepository.findRowsByIdIn(missingIds)) {
+                BookCache.Entry entry = new BookCache.Entry(bookMapper.toBookResponseWithoutCover(bookRow), bookRow.bookCover());
+                bookCache.put(entry);
+                found.put(bookRow.id(), entry);
+            }
+        }
+        return requestedIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .map(entry -> bookMapper.withCover(entry.book(), entry.coverLocation()))
+                .toList();
+    }
+
+    public ResourceVersion findBookVersion(Integer bookId) {
+        return bookRepository.findVersionById(bookId)
+                .map(ResourceVersion::of)
+                .orElse(ResourceVersion.UNKNOWN);
     }
 
     public PageResponse<BookResponse> findAllBooks(int pageNum, int pageSize, Authentication connectedUser) {
@@ -76,10 +141,20 @@ public class BookService {
                 books.isLast());
     }
 
+    public OwnerStatsResponse findOwnerStats(Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        return ownerStatsService.findOwnerStats(user.getId());
+    }
+
+    public ResourceVersion findOwnerBooksVersion(int pageNum, int pageSize, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        return ResourceVersion.of(bookRepository.findVersionByOwner(user.getId()), user.getId(), pageNum, pageSize);
+    }
+
     public PageResponse<BorrowedBookResponse> findAllBorrowedBooks(int pageNum, int pageSize, Authentication connectedUser) {
         User user = (User) connectedUser.getPrincipal();
-        Pageable pageable = PageRequest.of(pageNum, pageSize, Sort.by("createdDate").descending());
-        Page<BookTransactionHistory> allBorrowedBooks = bookTransactionHistoryRepository.findAllBorrowedBooks(pageable, user.getId());
+        Pageable pageable = PageRequest.of(pageNum, pageSize);
+        Page<BorrowedBookView> allBorrowedBooks = bookTransactionHistoryRepository.findAllBorrowedBooks(pageable, user.getId());
         List<BorrowedBookResponse> bookResponses = allBorrowedBooks.stream()
                 .map(bookMapper::toBorrowedBookResponse)
                 .toList();
@@ -94,8 +169,8 @@ public class BookService {
 
     public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int pageNum, int pageSize, Authentication connectedUser) {
         User user = (User) connectedUser.getPrincipal();
-        Pageable pageable = PageRequest.of(pageNum, pageSize, Sort.by("createdDate").descending());
-        Page<BookTransactionHistory> allBorrowedBooks = bookTransactionHistoryRepository.findAllReturnedBooks(pageable, user.getId());
+        Pageable pageable = PageRequest.of(pageNum, pageSize);
+        Page<BorrowedBookView> allBorrowedBooks = bookTransactionHistoryRepository.findAllReturnedBooks(pageable, user.getId());
         List<BorrowedBookResponse> bookResponses = allBorrowedBooks.stream()
                 .map(bookMapper::toBorrowedBookResponse)
                 .toList();
@@ -108,46 +183,52 @@ public class BookService {
                 allBorrowedBooks.isLast());
     }
 
+    // under repeatable read a first statement that matches nothing still locks the row for the second one
+    @Transactional
     public Integer updateSharableStatus(Integer bookId, Authentication connectedUser) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No Book found with ID: " + bookId));
         User user = (User) connectedUser.getPrincipal();
-        if(!Objects.equals(book.getOwner().getId(), user.getId())) {
-            throw new OperationNotPermittedException("You Cannot update others books sharable status");
+        LocalDateTime now = LocalDateTime.now();
+        boolean visible = bookRepository.toggleShareable(bookId, user.getId(), true, now) > 0;
+        if (!visible && bookRepository.toggleShareable(bookId, user.getId(), false, now) == 0) {
+            throw toggleRejection(bookId);
         }
-        book.setShareable(!book.isShareable());
-        bookRepository.save(book);
+        onFlagsChanged(bookId, user.getId(), visible);
         return bookId;
     }
 
+    @Transactional
     public Integer updateArchivedStatus(Integer bookId, Authentication connectedUser) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No Book found with ID: " + bookId));
         User user = (User) connectedUser.getPrincipal();
-        if(!Objects.equals(book.getOwner().getId(), user.getId())) {
-            throw new OperationNotPermittedException("You Cannot update others books archived status");
+        LocalDateTime now = LocalDateTime.now();
+        boolean visible = bookRepository.toggleArchived(bookId, user.getId(), true, now) > 0;
+        if (!visible && bookRepository.toggleArchived(bookId, user.getId(), false, now) == 0) {
+            throw toggleRejection(bookId);
         }
-        book.setArchived(!book.isArchived());
-        bookRepository.save(book);
+        onFlagsChanged(bookId, user.getId(), visible);
         return bookId;
     }
 
+    @Transactional
     public Integer borrowBook(Integer bookId, Authentication connectedUser) {
         Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No Book found with ID: " + bookId));
+                .orElseThrow(() -> new ResourceNotFoundException(BOOK_NOT_FOUND));
         if(book.isArchived() || !book.isShareable()){
-            throw new OperationNotPermittedException("You cannot borrow this Book since it is archived or not sharable");
+            throw new OperationNotPermittedException(BOOK_NOT_SHAREABLE);
         }
         User user = (User) connectedUser.getPrincipal();
         if(Objects.equals(book.getOwner().getId(), user.getId())) {
-            throw new OperationNotPermittedException("You cannot borrow your own Book");
+            throw new OperationNotPermittedException(OWN_BOOK);
         }
 
         final boolean isAlreadyBorrowed = bookTransactionHistoryRepository.isAlreadyBorrowedByUser(bookId, user.getId());
 
         if(isAlreadyBorrowed){
-            throw new OperationNotPermittedException("The requested book is already borrowed");
+            throw new OperationNotPermittedException(BOOK_ALREADY_BORROWED);
         }
+        if(bookTransactionHistoryRepository.existsOpenLoan(bookId)){
+            throw new OperationNotPermittedException(BOOK_ON_LOAN);
+        }
+        reservationService.claimHold(bookId, user.getId());
 
         BookTransactionHistory bookTransactionHistory = BookTransactionHistory.builder()
                 .user(user)
@@ -156,54 +237,122 @@ public class BookService {
                 .returnedApproved(false)
                 .build();
 
-        return bookTransactionHistoryRepository.save(bookTransactionHistory).getId();
+        Integer transactionId = bookTransactionHistoryRepository.save(bookTransactionHistory).getId();
+        ownerStatsService.evict(book.getOwner().getId());
+        domainEventPublisher.publish(new DomainEvent.BookBorrowed(bookId, book.getTitle(), book.getAuthorName(),
+                book.getOwner().getId(), user.getId(), transactionId, !book.isArchived() && book.isShareable()));
+        return transactionId;
     }
 
+    @Transactional
     public Integer returnBorrowBook(Integer bookId, Authentication connectedUser) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No Book found with ID: " + bookId));
-        if(book.isArchived() || !book.isShareable()){
-            throw new OperationNotPermittedException("You cannot borrow this Book since it is archived or not sharable");
-        }
-
         User user = (User) connectedUser.getPrincipal();
-        if(Objects.equals(book.getOwner().getId(), user.getId()))
-            throw new OperationNotPermittedException("You cannot borrow or return your own Book");
-
-        BookTransactionHistory bookTransactionHistory = bookTransactionHistoryRepository.findByBookIdAndUserId(bookId, user.getId())
-                .orElseThrow(() -> new OperationNotPermittedException("You did not borrow this book"));
-        bookTransactionHistory.setReturned(true);
-        return bookTransactionHistoryRepository.save(bookTransactionHistory).getId();
+        ActiveLoan loan = bookTransactionHistoryRepository.findByBookIdAndUserId(bookId, user.getId())
+                .orElseThrow(() -> returnRejection(bookId, user));
+        if (loan.archived() || !loan.shareable()) {
+            throw new OperationNotPermittedException(BOOK_NOT_SHAREABLE);
+        }
+        if (bookTransactionHistoryRepository.markReturned(loan.transactionId(), user.getId(), LocalDateTime.now()) == 0) {
+            throw new OperationNotPermittedException(BOOK_NOT_BORROWED);
+        }
+        ownerStatsService.evict(loan.ownerId());
+        domainEventPublisher.publish(new DomainEvent.BookReturned(bookId, loan.title(), loan.ownerId(),
+                user.getId(), loan.transactionId()));
+        return loan.transactionId();
     }
 
+    @Transactional
     public Integer approveReturnBorrowBook(Integer bookId, Authentication connectedUser) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No Book found with ID: " + bookId));
-
-        if(book.isArchived() || !book.isShareable()){
-            throw new OperationNotPermittedException("You cannot borrow or return your own Book");
-        }
-
         User user = (User) connectedUser.getPrincipal();
-
-        if(!Objects.equals(book.getOwner().getId(), user.getId()))
-            throw new OperationNotPermittedException("This book is not you own book you cannot approve it");
-
-        BookTransactionHistory bookTransactionHistory = bookTransactionHistoryRepository.findByBookIdAndOwnerId(bookId, user.getId())
-                .orElseThrow(() -> new OperationNotPermittedException("The book is not returned yet. You cannot approve its return"));
-
-        bookTransactionHistory.setReturnedApproved(true);
-        return bookTransactionHistoryRepository.save(bookTransactionHistory).getId();
+        ActiveLoan loan = bookTransactionHistoryRepository.findByBookIdAndOwnerId(bookId, user.getId())
+                .orElseThrow(() -> approvalRejection(bookId, user));
+        if (loan.archived() || !loan.shareable()) {
+            throw new OperationNotPermittedException(BOOK_NOT_SHAREABLE);
+        }
+        if (bookTransactionHistoryRepository.markReturnApproved(loan.transactionId(), user.getId(), LocalDateTime.now()) == 0) {
+            throw new OperationNotPermittedException(BOOK_NOT_RETURNED);
+        }
+        ownerStatsService.evict(user.getId());
+        reservationService.handOff(bookId);
+        domainEventPublisher.publish(new DomainEvent.ReturnApproved(bookId, loan.title(), user.getId(),
+                loan.borrowerId(), loan.transactionId()));
+        return loan.transactionId();
     }
 
+    // the previous cover is only deleted once the book points at the new one
     public void uploadBookCoverPicture(MultipartFile file, Authentication connectedUser, Integer bookId) {
         Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No Book found with ID: " + bookId));
+                .orElseThrow(() -> new ResourceNotFoundException(BOOK_NOT_FOUND));
 
         User user = (User) connectedUser.getPrincipal();
+        if (!Objects.equals(book.getOwner().getId(), user.getId())) {
+            throw new OperationNotPermittedException(NOT_BOOK_OWNER);
+        }
 
+        String previousCover = book.getBookCover();
         String bookCoverPath = fileStorageService.saveFile(file, user.getId());
+        if (bookCoverPath == null) {
+            throw new BusinessException(FILE_NOT_SAVED);
+        }
         book.setBookCover(bookCoverPath);
-        bookRepository.save(book);
+        try {
+            bookRepository.save(book);
+        } catch (RuntimeException e) {
+            fileStorageService.deleteFile(bookCoverPath);
+            throw e;
+        }
+        bookCache.evict(bookId);
+        if (previousCover != null && !previousCover.equals(bookCoverPath)) {
+            fileStorageService.deleteFile(previousCover);
+        }
+    }
+
+    private void onFlagsChanged(Integer bookId, Integer ownerId, boolean visible) {
+        ownerStatsService.evict(ownerId);
+        bookCache.evict(bookId);
+        entityCacheCoherence.evict(Book.class, bookId);
+        if (visible) {
+            // a hold that ended while the book was hidden went to nobody
+            reservationService.handOffAfterCommit(List.of(bookId));
+        }
+        // the leaderboard follows the event, so a rolled back toggle never reaches it
+        domainEventPublisher.publish(new DomainEvent.BookUpdated(bookId, ownerId, visible));
+    }
+
+    // only runs when the toggle changed nothing, to tell the caller why
+    private BusinessException toggleRejection(Integer bookId) {
+        if (bookRepository.findFlagsById(bookId).isEmpty()) {
+            return new ResourceNotFoundException(BOOK_NOT_FOUND);
+        }
+        return new OperationNotPermittedException(NOT_BOOK_OWNER);
+    }
+
+    // only runs when no matching loan was found, to tell the caller why
+    private BusinessException returnRejection(Integer bookId, User user) {
+        BookFlags flags = bookRepository.findFlagsById(bookId).orElse(null);
+        if (flags == null) {
+            return new ResourceNotFoundException(BOOK_NOT_FOUND);
+        }
+        if (!flags.isVisible()) {
+            return new OperationNotPermittedException(BOOK_NOT_SHAREABLE);
+        }
+        if (Objects.equals(flags.ownerId(), user.getId())) {
+            return new OperationNotPermittedException(OWN_BOOK);
+        }
+        return new OperationNotPermittedException(BOOK_NOT_BORROWED);
+    }
+
+    private BusinessException approvalRejection(Integer bookId, User user) {
+        BookFlags flags = bookRepository.findFlagsById(bookId).orElse(null);
+        if (flags == null) {
+            return new ResourceNotFoundException(BOOK_NOT_FOUND);
+        }
+        if (!flags.isVisible()) {
+            return new OperationNotPermittedException(BOOK_NOT_SHAREABLE);
+        }
+        if (!Objects.equals(flags.ownerId(), user.getId())) {
+            return new OperationNotPermittedException(NOT_BOOK_OWNER);
+        }
+        return new OperationNotPermittedException(BOOK_NOT_RETURNED);
     }
 }
@@ -0,0 +1,9 @@
+package com.example.book_social_netwok.book;
+
+public record BookStateRow(
+        Integer bookId,
+        Integer ownerId,
+        boolean archived,
+        boolean shareable
+) {
+}
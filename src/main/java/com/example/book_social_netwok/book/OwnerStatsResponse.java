@@ -0,0 +1,18 @@
+package com.example.book_social_netwok.book;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OwnerStatsResponse {
+
+    private long owned;
+    private long shared;
+    private long archived;
+    private long lentOut;
+    private long awaitingApproval;
+    private long totalBorrows;
+}
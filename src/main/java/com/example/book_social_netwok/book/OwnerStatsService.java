@@ -0,0 +1,36 @@
+package com.example.book_social_netwok.book;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class OwnerStatsService {
+
+    public static final String OWNER_STATS_CACHE = "ownerStats";
+
+    private final BookRepository bookRepository;
+
+    @Cacheable(cacheNames = OWNER_STATS_CACHE, key = "#ownerId")
+    public OwnerStatsResponse findOwnerStats(Integer ownerId) {
+        OwnerStatsView stats = bookRepository.findOwnerStats(ownerId);
+        return OwnerStatsResponse.builder()
+                .owned(toLong(stats.getOwned()))
+                .shared(toLong(stats.getShared()))
+                .archived(toLong(stats.getArchived()))
+                .lentOut(toLong(stats.getLentOut()))
+                .awaitingApproval(toLong(stats.getAwaitingApproval()))
+                .totalBorrows(toLong(stats.getTotalBorrows()))
+                .build();
+    }
+
+    @CacheEvict(cacheNames = OWNER_STATS_CACHE, key = "#ownerId")
+    public void evict(Integer ownerId) {
+    }
+
+    private static long toLong(Number value) {
+        return value == null ? 0 : value.longValue();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.book_social_netwok.book;
+
+public interface OwnerStatsView {
+
+    Number getOwned();
+
+    Number getShared();
+
+    Number getArchived();
+
+    Number getLentOut();
+
+    Number getAwaitingApproval();
+
+    Number getTotalBorrows();
+}
@@ -0,0 +1,142 @@
+package com.example.book_social_netwok.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the in-process caches of several nodes coherent. Local evictions are sent over the
+ * {@link InvalidationBus} once the surrounding transaction commits, and peers evict the same
+ * key from the handler registered for the region. Each message carries a version from the
+ * origin's clock; a message not newer than the last one applied for the same key is dropped.
+ */
+@Component
+@Slf4j
+public class CacheCoherence {
+
+    public static final String CLEAR_ALL = "*";
+
+    private final String nodeId;
+    private final InvalidationBus bus;
+    private final Map<String, InvalidationHandler> handlers = new ConcurrentHashMap<>();
+    private final Map<String, Long> appliedVersions;
+    private final AtomicLong clock = new AtomicLong();
+    private final Counter published;
+    private final Counter applied;
+    private final Counter stale;
+
+    public CacheCoherence(
+            InvalidationBus bus,
+            MeterRegistry meterRegistry,
+            @Value("${application.cache.coherence.node-id}") String nodeId,
+            @Value("${application.cache.coherence.tracked-keys}") int trackedKeys
+    ) {
+        this.nodeId = nodeId;
+        this.bus = bus;
+        this.appliedVersions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > trackedKeys;
+            }
+        };
+        this.published = invalidations(meterRegistry, "published");
+        this.applied = invalidations(meterRegistry, "applied");
+        this.stale = invalidations(meterRegistry, "stale");
+        bus.subscribe(this::receive);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void register(String region, InvalidationHandler handler) {
+        handlers.put(region, handler);
+    }
+
+    /**
+     * Re-applies what the peers published for the region within the last {@code window}, for
+     * regions holding state rather than copies: a starting node has nothing to reload it from.
+     * Handlers have to be idempotent, a replayed message may also arrive through the bus.
+     */
+    public void replay(String region, Duration window) {
+        bus.replay(region, window, invalidation -> applyLocally(region, invalidation.key()));
+    }
+
+    /**
+     * Tells the peers to drop the key, or the whole region when the key is null. Inside a
+     * transaction this waits for the commit and also evicts locally once more, so a reader
+     * that loaded the pre-commit value in between does not keep it.
+     */
+    public void publish(String region, Object key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyLocally(region, key);
+                    send(region, key);
+                }
+            });
+        } else {
+            send(region, key);
+        }
+    }
+
+    private void send(String region, Object key) {
+        try {
+            bus.publish(new CacheInvalidation(nodeId, nextVersion(), region, key));
+            published.increment();
+        } catch (RuntimeException e) {
+            // the local change already committed, peers catch up when their entries expire or get evicted again
+            log.warn("Could not publish invalidation of {} in {}", key, region, e);
+        }
+    }
+
+    private void receive(CacheInvalidation invalidation) {
+        // other traffic on the bus, e.g. notifications, must not push tracked versions out
+        if (nodeId.equals(invalidation.origin()) || !handlers.containsKey(invalidation.region())) {
+            return;
+        }
+        String versionKey = invalidation.origin() + "|" + invalidation.region() + "|"
+                + (invalidation.key() == null ? CLEAR_ALL : invalidation.key());
+        synchronized (appliedVersions) {
+            Long last = appliedVersions.get(versionKey);
+            if (last != null && last >= invalidation.version()) {
+                stale.increment();
+                return;
+            }
+            appliedVersions.put(versionKey, invalidation.version());
+        }
+        applyLocally(invalidation.region(), invalidation.key());
+        applied.increment();
+    }
+
+    private void applyLocally(String region, Object key) {
+        InvalidationHandler handler = handlers.get(region);
+        if (handler != null) {
+            handler.invalidate(key);
+        }
+    }
+
+    // wall clock in microseconds, bumped on ties, so versions keep growing across restarts too
+    private long nextVersion() {
+        long now = System.currentTimeMillis() * 1000;
+        return clock.updateAndGet(last -> Math.max(last + 1, now));
+    }
+
+    private static Counter invalidations(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("cache.invalidations")
+                .description("Cache invalidation messages by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
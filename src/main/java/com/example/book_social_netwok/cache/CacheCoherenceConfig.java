@@ -0,0 +1,27 @@
+package com.example.book_social_netwok.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import javax.cache.Caching;
+import java.io.IOException;
+
+@Configuration
+public class CacheCoherenceConfig {
+
+    // the application caches are bounded in the same ehcache.xml as the second-level cache
+    @Bean
+    public CacheManager cacheManager(
+            CacheCoherence cacheCoherence,
+            @Value("${spring.cache.jcache.config}") Resource config
+    ) throws IOException {
+        JCacheCacheManager target = new JCacheCacheManager(Caching.getCachingProvider()
+                .getCacheManager(config.getURI(), getClass().getClassLoader()));
+        target.afterPropertiesSet();
+        return new CoherentCacheManager(target, cacheCoherence);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.book_social_netwok.cache;
+
+/**
+ * One eviction sent between nodes. A null key clears the whole region. Versions only
+ * grow per origin, so a receiver can tell a late or repeated message from a fresh one.
+ */
+public record CacheInvalidation(
+        String origin,
+        long version,
+        String region,
+        Object key
+) {
+}
@@ -0,0 +1,49 @@
+package com.example.book_social_netwok.cache;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CacheInvalidationMessageRepository extends JpaRepository<CacheInvalidationMessage, Long> {
+
+    @Query("""
+            SELECT COALESCE(MAX(message.id), 0)
+            FROM CacheInvalidationMessage message
+            """)
+    long findLatestId();
+
+    @Query("""
+            SELECT message
+            FROM CacheInvalidationMessage message
+            WHERE message.id > :afterId
+            ORDER BY message.id
+            """)
+    List<CacheInvalidationMessage> findAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("""
+            SELECT message
+            FROM CacheInvalidationMessage message
+            WHERE message.region = :region
+            AND message.createdAt >= :since
+            AND message.id > :afterId
+            ORDER BY message.id
+            """)
+    List<CacheInvalidationMessage> findRecent(
+            @Param("region") String region,
+            @Param("since") LocalDateTime since,
+            @Param("afterId") long afterId,
+            Pageable pageable
+    );
+
+    @Modifying
+    @Query("""
+            DELETE FROM CacheInvalidationMessage message
+            WHERE message.createdAt < :before
+            """)
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,80 @@
+package com.example.book_social_netwok.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Spring cache whose evictions also reach the other nodes. Reads and puts stay local.
+ */
+class CoherentCache implements Cache {
+
+    private final Cache target;
+    private final CacheCoherence cacheCoherence;
+
+    CoherentCache(Cache target, CacheCoherence cacheCoherence) {
+        this.target = target;
+        this.cacheCoherence = cacheCoherence;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return target.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return target.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return target.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        target.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return target.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        target.evict(key);
+        cacheCoherence.publish(getName(), key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = target.evictIfPresent(key);
+        cacheCoherence.publish(getName(), key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        target.clear();
+        cacheCoherence.publish(getName(), null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean present = target.invalidate();
+        cacheCoherence.publish(getName(), null);
+        return present;
+    }
+}
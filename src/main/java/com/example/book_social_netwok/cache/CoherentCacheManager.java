@@ -0,0 +1,47 @@
+package com.example.book_social_netwok.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps every cache of the target manager in a {@link CoherentCache} and registers the
+ * plain cache as the local handler of its region.
+ */
+public class CoherentCacheManager implements CacheManager {
+
+    private final CacheManager target;
+    private final CacheCoherence cacheCoherence;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public CoherentCacheManager(CacheManager target, CacheCoherence cacheCoherence) {
+        this.target = target;
+        this.cacheCoherence = cacheCoherence;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache cache = target.getCache(cacheName);
+            if (cache == null) {
+                return null;
+            }
+            cacheCoherence.register(cacheName, key -> {
+                if (key == null) {
+                    cache.clear();
+                } else {
+                    cache.evict(key);
+                }
+            });
+            return new CoherentCache(cache, cacheCoherence);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return target.getCacheNames();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.book_social_netwok.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Extends the coherence layer to the Hibernate second-level cache. Updates and deletes of
+ * cached entities are announced after commit. A bulk JPQL update bypasses these events and
+ * makes Hibernate drop the whole region of the entity it touches, so conditional updates of
+ * cached rows are native statements declaring {@link #ROW_EVICTED_SPACE}, and their callers
+ * evict the changed ids through {@link #evict(Class, Object)} or {@link #evictAll(Class, Collection)}.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityCacheCoherence implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    /**
+     * Query space of native updates whose callers evict the changed rows themselves. No entity
+     * is mapped to it, so Hibernate leaves every region alone after the statement.
+     */
+    public static final String ROW_EVICTED_SPACE = "row_evicted";
+
+    private static final String REGION_PREFIX = "entity:";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheCoherence cacheCoherence;
+
+    @PostConstruct
+    public void start() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.canWriteToCache()) {
+                String entityName = persister.getEntityName();
+                cacheCoherence.register(REGION_PREFIX + entityName, id -> {
+                    if (id == null) {
+                        sessionFactory.getCache().evictEntityData(entityName);
+                    } else {
+                        sessionFactory.getCache().evictEntityData(entityName, id);
+                    }
+                });
+            }
+        });
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    public void evict(Class<?> entityClass, Object id) {
+        entityManagerFactory.getCache().evict(entityClass, id);
+        cacheCoherence.publish(REGION_PREFIX + entityClass.getName(), id);
+    }
+
+    public void evictAll(Class<?> entityClass, Collection<?> ids) {
+        ids.forEach(id -> evict(entityClass, id));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        cacheCoherence.publish(REGION_PREFIX + event.getPersister().getEntityName(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        cacheCoherence.publish(REGION_PREFIX + event.getPersister().getEntityName(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.canWriteToCache();
+    }
+}
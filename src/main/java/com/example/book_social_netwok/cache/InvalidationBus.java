@@ -0,0 +1,18 @@
+package com.example.book_social_netwok.cache;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+public interface InvalidationBus {
+
+    void publish(CacheInvalidation invalidation);
+
+    void subscribe(Consumer<CacheInvalidation> subscriber);
+
+    /**
+     * Hands the messages of the region published within the last {@code window} to the
+     * subscriber, oldest first. A bus that keeps no history has nothing to replay.
+     */
+    default void replay(String region, Duration window, Consumer<CacheInvalidation> subscriber) {
+    }
+}
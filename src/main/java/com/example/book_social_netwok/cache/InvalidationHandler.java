@@ -0,0 +1,10 @@
+package com.example.book_social_netwok.cache;
+
+/**
+ * Local side of a region: drops one key, or everything when the key is null.
+ */
+@FunctionalInterface
+public interface InvalidationHandler {
+
+    void invalidate(Object key);
+}
@@ -0,0 +1,177 @@
+package com.example.book_social_netwok.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Uses a table as the bus: publishers insert a row, every node polls for rows past the
+ * last id it has seen. Needs nothing besides the database the nodes already share.
+ * Ids are allocated at insert but become visible at commit, so a smaller id can show up
+ * after a larger one was read; skipped ids are re-read until they appear or the gap times
+ * out, which also covers ids lost to rolled back inserts. Rows are purged once every node
+ * has had plenty of time to read them, and a starting node can replay the recent rows of a
+ * region whose state outlives a cache entry.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "application.cache.coherence.bus", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcInvalidationBus implements InvalidationBus {
+
+    private final CacheInvalidationMessageRepository messageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Consumer<CacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+    // skipped id -> when it was first missed, only touched by the polling thread
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+
+    private long lastSeenId;
+
+    @Value("${application.cache.coherence.jdbc.poll-batch-size}")
+    private int pollBatchSize;
+
+    @Value("${application.cache.coherence.jdbc.retention}")
+    private Duration retention;
+
+    @Value("${application.cache.coherence.jdbc.gap-timeout}")
+    private Duration gapTimeout;
+
+    @Value("${application.cache.coherence.jdbc.max-gaps}")
+    private int maxGaps;
+
+    public JdbcInvalidationBus(
+            CacheInvalidationMessageRepository messageRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.messageRepository = messageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // publishing happens after the caller's commit, so it needs a transaction of its own
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // a fresh node has empty caches, older messages cannot concern it unless a region asks for a replay
+    @PostConstruct
+    public void start() {
+        lastSeenId = messageRepository.findLatestId();
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        CacheInvalidationMessage message = CacheInvalidationMessage.builder()
+                .origin(invalidation.origin())
+                .version(invalidation.version())
+                .region(invalidation.region())
+                .cacheKey(encodeKey(invalidation.key()))
+                .createdAt(LocalDateTime.now())
+                .build();
+        transactionTemplate.executeWithoutResult(status -> messageRepository.save(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void replay(String region, Duration window, Consumer<CacheInvalidation> subscriber) {
+        LocalDateTime since = LocalDateTime.now().minus(window);
+        long afterId = 0;
+        List<CacheInvalidationMessage> messages;
+        do {
+            messages = messageRepository.findRecent(region, since, afterId, PageRequest.of(0, pollBatchSize));
+            for (CacheInvalidationMessage message : messages) {
+                subscriber.accept(toInvalidation(message));
+                afterId = message.getId();
+            }
+        } while (messages.size() == pollBatchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${application.cache.coherence.jdbc.poll-interval-millis}")
+    public synchronized void poll() {
+        long now = System.currentTimeMillis();
+        if (!gaps.isEmpty()) {
+            for (CacheInvalidationMessage message : messageRepository.findAllById(List.copyOf(gaps.keySet()))) {
+                gaps.remove(message.getId());
+                deliver(message);
+            }
+            long expired = now - gapTimeout.toMillis();
+            gaps.values().removeIf(missedAt -> missedAt < expired);
+        }
+        List<CacheInvalidationMessage> messages;
+        do {
+            messages = messageRepository.findAfter(lastSeenId, PageRequest.of(0, pollBatchSize));
+            for (CacheInvalidationMessage message : messages) {
+                for (long skipped = lastSeenId + 1; skipped < message.getId(); skipped++) {
+                    if (gaps.size() >= maxGaps) {
+                        log.warn("Too many unfilled ids on the invalidation bus, giving up on ids {} to {}",
+                                skipped, message.getId() - 1);
+                        break;
+                    }
+                    gaps.put(skipped, now);
+                }
+                deliver(message);
+                lastSeenId = message.getId();
+            }
+        } while (messages.size() == pollBatchSize);
+    }
+
+    private void deliver(CacheInvalidationMessage message) {
+        CacheInvalidation invalidation = toInvalidation(message);
+        for (Consumer<CacheInvalidation> subscriber : subscribers) {
+            subscriber.accept(invalidation);
+        }
+    }
+
+    private static CacheInvalidation toInvalidation(CacheInvalidationMessage message) {
+        return new CacheInvalidation(
+                message.getOrigin(),
+                message.getVersion(),
+                message.getRegion(),
+                decodeKey(message.getCacheKey()));
+    }
+
+    @Scheduled(fixedDelayString = "${application.cache.coherence.jdbc.purge-interval-millis}")
+    public void purge() {
+        int deleted = transactionTemplate.execute(status ->
+                messageRepository.deleteOlderThan(LocalDateTime.now().minus(retention)));
+        if (deleted > 0) {
+            log.debug("Purged {} cache invalidation messages", deleted);
+        }
+    }
+
+    // cache keys here are ids or names, the prefix keeps Integer 5 and "5" apart
+    static String encodeKey(Object key) {
+        return switch (key) {
+            case null -> null;
+            case Integer value -> "i:" + value;
+            case Long value -> "l:" + value;
+            default -> "s:" + key;
+        };
+    }
+
+    static Object decodeKey(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        String value = encoded.substring(2);
+        return switch (encoded.charAt(0)) {
+            case 'i' -> Integer.valueOf(value);
+            case 'l' -> Long.valueOf(value);
+            default -> value;
+        };
+    }
+}
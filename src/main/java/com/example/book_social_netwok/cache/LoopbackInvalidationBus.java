@@ -0,0 +1,31 @@
+package com.example.book_social_netwok.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers every message to every subscriber in the same JVM, synchronously. Several
+ * {@link CacheCoherence} nodes sharing one instance behave like a cluster on a perfect network.
+ */
+@Component
+@ConditionalOnProperty(name = "application.cache.coherence.bus", havingValue = "loopback")
+public class LoopbackInvalidationBus implements InvalidationBus {
+
+    private final List<Consumer<CacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        for (Consumer<CacheInvalidation> subscriber : subscribers) {
+            subscriber.accept(invalidation);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
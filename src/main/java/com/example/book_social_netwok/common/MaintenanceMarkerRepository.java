@@ -0,0 +1,21 @@
+package com.example.book_social_netwok.common;
+
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+public interface MaintenanceMarkerRepository extends JpaRepository<MaintenanceMarker, String> {
+
+    // nodes starting together may finish the same task, the second marker is ignored instead of failing the start
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "maintenance_marker"))
+    @Query(value = """
+            INSERT IGNORE INTO maintenance_marker (name, completed_at)
+            VALUES (:name, CURRENT_TIMESTAMP)
+            """, nativeQuery = true)
+    void markCompleted(String name);
+}
@@ -0,0 +1,39 @@
+package com.example.book_social_netwok.common;
+
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Validators for conditional GET. The ETag also covers the request parameters that
+ * shape the response (caller, page, sort) so different views never share a tag.
+ */
+public record ResourceVersion(String etag, long lastModifiedMillis) {
+
+    public static final ResourceVersion UNKNOWN = new ResourceVersion(null, -1);
+
+    public static ResourceVersion of(VersionStamp stamp, Object... discriminators) {
+        if (stamp == null || stamp.lastModified() == null) {
+            return UNKNOWN;
+        }
+        long lastModified = stamp.lastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        String parts = Arrays.stream(discriminators)
+                .map(String::valueOf)
+                .collect(Collectors.joining("-"));
+        String etag = "\"" + Long.toHexString(lastModified)
+                + "-" + stamp.count()
+                + "-" + stamp.related()
+                + (parts.isEmpty() ? "" : "-" + parts) + "\"";
+        return new ResourceVersion(etag, lastModified);
+    }
+
+    /**
+     * Answers If-None-Match / If-Modified-Since. When this returns true the response has
+     * already been turned into a 304 and the handler should return without a body.
+     */
+    public boolean isNotModified(WebRequest webRequest) {
+        return etag != null && webRequest.checkNotModified(etag, lastModifiedMillis);
+    }
+}
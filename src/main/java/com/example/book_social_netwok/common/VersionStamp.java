@@ -0,0 +1,14 @@
+package com.example.book_social_netwok.common;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cheap summary of the rows behind a response: their latest modification time plus
+ * counters that change when rows are added, removed or updated in bulk.
+ */
+public record VersionStamp(
+        LocalDateTime lastModified,
+        Long count,
+        Long related
+) {
+}
@@ -0,0 +1,116 @@
+package com.example.book_social_netwok.config;
+
+import com.example.book_social_netwok.auth.AuthenticationRequest;
+import com.example.book_social_netwok.auth.AuthenticationResponse;
+import com.example.book_social_netwok.auth.RefreshTokenRequest;
+import com.example.book_social_netwok.auth.RegistrationRequest;
+import com.example.book_social_netwok.book.*;
+import com.example.book_social_netwok.common.CursorPageResponse;
+import com.example.book_social_netwok.common.PageResponse;
+import com.example.book_social_netwok.common.VersionStamp;
+import com.example.book_social_netwok.edition.EditionCopyResponse;
+import com.example.book_social_netwok.edition.EditionResponse;
+import com.example.book_social_netwok.edition.UnlinkedBookRow;
+import com.example.book_social_netwok.feedback.FeedbackRequest;
+import com.example.book_social_netwok.feedback.FeedbackResponse;
+import com.example.book_social_netwok.feedback.RatingSummaryResponse;
+import com.example.book_social_netwok.feedback.RatingTotals;
+import com.example.book_social_netwok.geo.GeoBookRow;
+import com.example.book_social_netwok.geo.GeoUserRow;
+import com.example.book_social_netwok.geo.LocationRequest;
+import com.example.book_social_netwok.geo.NearbyBookResponse;
+import com.example.book_social_netwok.handler.ExceptionResponse;
+import com.example.book_social_netwok.history.ActiveLoan;
+import com.example.book_social_netwok.history.BookTransactionExportRow;
+import com.example.book_social_netwok.leaderboard.LeaderboardEntryResponse;
+import com.example.book_social_netwok.notification.Notification;
+import com.example.book_social_netwok.reservation.HoldDeadline;
+import com.example.book_social_netwok.reservation.ReservationResponse;
+import com.example.book_social_netwok.suggest.SuggestRow;
+import com.example.book_social_netwok.suggest.SuggestionResponse;
+import com.example.book_social_netwok.user.UserTokenVersion;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import javax.sql.DataSource;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    // request and response bodies, serialized by Jackson
+    private static final List<Class<?>> PAYLOADS = List.of(
+            AuthenticationRequest.class, AuthenticationResponse.class, RefreshTokenRequest.class,
+            RegistrationRequest.class, BookRequest.class, BookBatchRequest.class, BookResponse.class,
+            BorrowedBookResponse.class, OwnerStatsResponse.class, FeedbackRequest.class, FeedbackResponse.class,
+            RatingSummaryResponse.class, LocationRequest.class, NearbyBookResponse.class,
+            LeaderboardEntryResponse.class, ReservationResponse.class, ExceptionResponse.class,
+            PageResponse.class, CursorPageResponse.class, Notification.class, SuggestionResponse.class,
+            EditionResponse.class, EditionCopyResponse.class, BookBulkRequest.class, BookBulkResponse.class,
+            BookBulkResult.class
+    );
+
+    // targets of JPQL constructor expressions
+    private static final List<Class<?>> PROJECTIONS = List.of(
+            BookRow.class, BookFlags.class, VersionStamp.class, GeoBookRow.class, GeoUserRow.class,
+            ActiveLoan.class, BookTransactionExportRow.class, HoldDeadline.class, SuggestRow.class,
+            UnlinkedBookRow.class, BookStateRow.class, UserTokenVersion.class, RatingTotals.class
+    );
+
+    // QueryCountingDataSource wraps each of these in a JDK proxy implementing just that interface
+    private static final List<Class<?>> JDBC_PROXIES = List.of(
+            DataSource.class, Connection.class, Statement.class, PreparedStatement.class,
+            CallableStatement.class, ResultSet.class
+    );
+
+    // jjwt 0.11 loads its implementation by class name and its serializers through the service loader
+    private static final List<String> JJWT_TYPES = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DefaultCompressionCodecResolver",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    );
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        for (Class<?> payload : PAYLOADS) {
+            bindings.registerReflectionHints(hints.reflection(), payload);
+            registerLombokBuilders(hints, payload);
+        }
+        for (Class<?> projection : PROJECTIONS) {
+            hints.reflection().registerType(projection, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+        for (String type : JJWT_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        for (Class<?> jdbcType : JDBC_PROXIES) {
+            hints.proxies().registerJdkProxy(jdbcType);
+        }
+        hints.resources()
+                .registerPattern("META-INF/services/io.jsonwebtoken.io.*")
+                .registerPattern("templates/*.html")
+                .registerPattern("ehcache.xml");
+    }
+
+    private void registerLombokBuilders(RuntimeHints hints, Class<?> type) {
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            if (nested.getSimpleName().endsWith("Builder")) {
+                hints.reflection().registerType(nested,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+        }
+    }
+}
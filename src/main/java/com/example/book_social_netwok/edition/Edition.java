@@ -0,0 +1,40 @@
+package com.example.book_social_netwok.edition;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A published edition, shared by every copy with the same ISBN whoever owns it. Ratings of all
+ * copies add up here, so the edition-wide rating is one row instead of an aggregate per request.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "edition", indexes = @Index(name = "uk_edition_isbn13", columnList = "isbn13", unique = true))
+public class Edition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, length = 13)
+    private String isbn13;
+
+    private String title;
+    private String authorName;
+    private long feedbackCount;
+    private double noteSum;
+    private LocalDateTime createdDate;
+
+    public double average() {
+        if (feedbackCount == 0) {
+            return 0.0;
+        }
+        return Math.round(noteSum / feedbackCount * 10.0) / 10.0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.book_social_netwok.edition;
+
+import com.example.book_social_netwok.common.PageResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("editions")
+@RequiredArgsConstructor
+@Tag(name = "Edition")
+public class EditionController {
+
+    private final EditionService editionService;
+
+    @GetMapping("/{isbn}")
+    public ResponseEntity<EditionResponse> findEdition(
+            @PathVariable("isbn") String isbn
+    ){
+        return ResponseEntity.ok(editionService.findByIsbn(isbn));
+    }
+
+    @GetMapping("/{isbn}/copies")
+    public ResponseEntity<PageResponse<EditionCopyResponse>> findAvailableCopies(
+            @PathVariable("isbn") String isbn,
+            @RequestParam(name = "page", defaultValue = "0", required = false) int pageNum,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int pageSize,
+            Authentication connectedUser
+    ){
+        return ResponseEntity.ok(editionService.findAvailableCopies(isbn, pageNum, pageSize, connectedUser));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.book_social_netwok.edition;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EditionCopyResponse {
+
+    private Integer bookId;
+    private String synopsis;
+    private String owner;
+    // loans of the owner's books that were returned and approved
+    private long ownerLendings;
+}
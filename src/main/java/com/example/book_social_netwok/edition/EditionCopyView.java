@@ -0,0 +1,14 @@
+package com.example.book_social_netwok.edition;
+
+public interface EditionCopyView {
+
+    Integer getBookId();
+
+    String getSynopsis();
+
+    String getOwnerFirstname();
+
+    String getOwnerLastname();
+
+    Number getOwnerLendings();
+}
@@ -0,0 +1,91 @@
+package com.example.book_social_netwok.edition;
+
+import com.example.book_social_netwok.book.Book;
+import com.example.book_social_netwok.book.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Links books saved before editions existed to the edition of their ISBN, a batch per
+ * transaction, and recounts the ratings of the editions they join. Books saved since link
+ * themselves, so what stays unlinked after a run is a book whose ISBN does not parse; the
+ * job remembers how far it got and starts the next run there instead of reading those again.
+ * The mark only moves past a committed batch, so a batch that failed is retried. A restart
+ * walks every unlinked book once more.
+ */
+@Component
+@Slf4j
+public class EditionLinkJob {
+
+    private final EditionRepository editionRepository;
+    private final EditionService editionService;
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.edition.link.batch-size}")
+    private int batchSize;
+
+    // every book up to this id is linked or has an ISBN that does not parse
+    private int checkedUpTo;
+
+    public EditionLinkJob(
+            EditionRepository editionRepository,
+            EditionService editionService,
+            BookRepository bookRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.editionRepository = editionRepository;
+        this.editionService = editionService;
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${application.edition.link.interval-millis}")
+    public synchronized void link() {
+        long linked = 0;
+        int count;
+        do {
+            List<UnlinkedBookRow> books = editionRepository.findUnlinkedBooks(checkedUpTo, PageRequest.of(0, batchSize));
+            count = books.size();
+            if (count > 0) {
+                linked += transactionTemplate.execute(status -> linkBatch(books));
+                checkedUpTo = books.getLast().bookId();
+            }
+        } while (count == batchSize);
+        if (linked > 0) {
+            log.info("Linked {} books to their editions", linked);
+        }
+    }
+
+    private int linkBatch(List<UnlinkedBookRow> books) {
+        Map<String, List<UnlinkedBookRow>> byIsbn = new LinkedHashMap<>();
+        for (UnlinkedBookRow book : books) {
+            Isbn.toIsbn13(book.isbn())
+                    .ifPresent(isbn13 -> byIsbn.computeIfAbsent(isbn13, key -> new ArrayList<>()).add(book));
+        }
+        int linked = 0;
+        Set<Integer> editionIds = new HashSet<>();
+        for (Map.Entry<String, List<UnlinkedBookRow>> copies : byIsbn.entrySet()) {
+            UnlinkedBookRow first = copies.getValue().getFirst();
+            Edition edition = editionService.resolve(copies.getKey(), first.title(), first.authorName());
+            // linked as entities, a bulk UPDATE would drop every cached book on each batch
+            for (Book book : bookRepository.findAllById(copies.getValue().stream().map(UnlinkedBookRow::bookId).toList())) {
+                book.setEdition(edition);
+                book.setIsbn(copies.getKey());
+                linked++;
+            }
+            editionIds.add(edition.getId());
+        }
+        if (!editionIds.isEmpty()) {
+            editionRepository.recountRatings(editionIds);
+        }
+        return linked;
+    }
+}
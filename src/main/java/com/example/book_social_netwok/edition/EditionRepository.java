@@ -0,0 +1,145 @@
+package com.example.book_social_netwok.edition;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+public interface EditionRepository extends JpaRepository<Edition, Integer> {
+
+    Optional<Edition> findByIsbn13(String isbn13);
+
+    // a locking read returns the latest committed row instead of the transaction's snapshot
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("""
+            SELECT edition
+            FROM Edition edition
+            WHERE edition.isbn13 = :isbn13
+            """)
+    Optional<Edition> findByIsbn13ForShare(String isbn13);
+
+    // the unique index on isbn13 settles concurrent creations of the same edition
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "edition"))
+    @Query(value = """
+            INSERT IGNORE INTO edition (isbn13, title, author_name, feedback_count, note_sum, created_date)
+            VALUES (:isbn13, :title, :authorName, 0, 0, CURRENT_TIMESTAMP)
+            """, nativeQuery = true)
+    void createIfMissing(String isbn13, String title, String authorName);
+
+    @Query("""
+            SELECT COUNT(book)
+            FROM Book book
+            WHERE book.edition.id = :editionId
+            """)
+    long countCopies(Integer editionId);
+
+    // a copy is available when it is shared, not lent out and not held for a waiting reader
+    @Query(value = """
+            SELECT book.id AS bookId,
+                   book.synopsis AS synopsis,
+                   owner.firstname AS ownerFirstname,
+                   owner.lastname AS ownerLastname,
+                   COALESCE(lendings.completed, 0) + COALESCE(archived_lendings.completed, 0) AS ownerLendings
+            FROM book book
+            JOIN _user owner ON owner.id = book.owner_id
+            LEFT JOIN (
+                SELECT owned.owner_id, COUNT(*) AS completed
+                FROM book_transaction_history history
+                JOIN book owned ON owned.id = history.book_id
+                WHERE history.returned_approved = true
+                AND owned.owner_id IN (SELECT copy.owner_id FROM book copy WHERE copy.edition_id = :editionId)
+                GROUP BY owned.owner_id
+            ) lendings ON lendings.owner_id = book.owner_id
+            LEFT JOIN (
+                SELECT owned.owner_id, COUNT(*) AS completed
+                FROM book_transaction_history_archive archived
+                JOIN book owned ON owned.id = archived.book_id
+                WHERE owned.owner_id IN (SELECT copy.owner_id FROM book copy WHERE copy.edition_id = :editionId)
+                GROUP BY owned.owner_id
+            ) archived_lendings ON archived_lendings.owner_id = book.owner_id
+            WHERE book.edition_id = :editionId
+            AND book.archived = false
+            AND book.shareable = true
+            AND book.owner_id != :userId
+            AND NOT EXISTS (SELECT 1 FROM book_transaction_history loan
+                            WHERE loan.book_id = book.id AND loan.returned_approved = false)
+            AND NOT EXISTS (SELECT 1 FROM reservation hold
+                            WHERE hold.book_id = book.id AND hold.status = 'HELD')
+            ORDER BY ownerLendings DESC, book.id
+            """,
+            countQuery = """
+            SELECT COUNT(*)
+            FROM book book
+            WHERE book.edition_id = :editionId
+            AND book.archived = false
+            AND book.shareable = true
+            AND book.owner_id != :userId
+            AND NOT EXISTS (SELECT 1 FROM book_transaction_history loan
+                            WHERE loan.book_id = book.id AND loan.returned_approved = false)
+            AND NOT EXISTS (SELECT 1 FROM reservation hold
+                            WHERE hold.book_id = book.id AND hold.status = 'HELD')
+            """,
+            nativeQuery = true)
+    Page<EditionCopyView> findAvailableCopies(Integer editionId, Integer userId, Pageable pageable);
+
+    @Modifying
+    @Query("""
+            UPDATE Edition edition
+            SET edition.feedbackCount = edition.feedbackCount + 1,
+                edition.noteSum = edition.noteSum + :note
+            WHERE edition.id = (SELECT book.edition.id FROM Book book WHERE book.id = :bookId)
+            """)
+    int addFeedback(Integer bookId, double note);
+
+    // used when copies join an edition after they were rated
+    @Modifying
+    @Query("""
+            UPDATE Edition edition
+            SET edition.feedbackCount = (
+                    SELECT COALESCE(SUM(summary.feedbackCount), 0L)
+                    FROM BookRatingSummary summary
+                    WHERE summary.bookId IN (SELECT book.id FROM Book book WHERE book.edition.id = edition.id)),
+                edition.noteSum = (
+                    SELECT COALESCE(SUM(summary.noteSum), 0.0)
+                    FROM BookRatingSummary summary
+                    WHERE summary.bookId IN (SELECT book.id FROM Book book WHERE book.edition.id = edition.id))
+            WHERE edition.id IN :editionIds
+            """)
+    int recountRatings(Collection<Integer> editionIds);
+
+    @Modifying
+    @Query("""
+            UPDATE Edition edition
+            SET edition.feedbackCount = (
+                    SELECT COALESCE(SUM(summary.feedbackCount), 0L)
+                    FROM BookRatingSummary summary
+                    WHERE summary.bookId IN (SELECT book.id FROM Book book WHERE book.edition.id = edition.id)),
+                edition.noteSum = (
+                    SELECT COALESCE(SUM(summary.noteSum), 0.0)
+                    FROM BookRatingSummary summary
+                    WHERE summary.bookId IN (SELECT book.id FROM Book book WHERE book.edition.id = edition.id))
+            """)
+    int recountAllRatings();
+
+    @Query("""
+            SELECT new com.example.book_social_netwok.edition.UnlinkedBookRow(book.id, book.isbn, book.title, book.authorName)
+            FROM Book book
+            WHERE book.edition IS NULL
+            AND book.isbn IS NOT NULL
+            AND book.id > :afterId
+            ORDER BY book.id
+            """)
+    List<UnlinkedBookRow> findUnlinkedBooks(Integer afterId, Pageable pageable);
+}
@@ -0,0 +1,19 @@
+package com.example.book_social_netwok.edition;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EditionResponse {
+
+    private Integer id;
+    private String isbn;
+    private String title;
+    private String authorName;
+    private double rate;
+    private long feedbackCount;
+    private long copies;
+}
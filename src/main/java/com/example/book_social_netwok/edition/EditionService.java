@@ -0,0 +1,80 @@
+package com.example.book_social_netwok.edition;
+
+import com.example.book_social_netwok.common.PageResponse;
+import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.exception.ResourceNotFoundException;
+import com.example.book_social_netwok.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.EDITION_NOT_FOUND;
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.INVALID_ISBN;
+
+@Service
+@RequiredArgsConstructor
+public class EditionService {
+
+    private final EditionRepository editionRepository;
+
+    /**
+     * The edition of the given ISBN-13, created from the copy's title and author when it is the
+     * first copy of it. When another transaction created it after this one's snapshot was taken,
+     * the insert is ignored and only a locking read finds the row.
+     */
+    @Transactional
+    public Edition resolve(String isbn13, String title, String authorName) {
+        return editionRepository.findByIsbn13(isbn13).orElseGet(() -> {
+            editionRepository.createIfMissing(isbn13, title, authorName);
+            return editionRepository.findByIsbn13ForShare(isbn13)
+                    .orElseThrow(() -> new IllegalStateException("Edition " + isbn13 + " was not created"));
+        });
+    }
+
+    public EditionResponse findByIsbn(String isbn) {
+        Edition edition = findEdition(isbn);
+        return EditionResponse.builder()
+                .id(edition.getId())
+                .isbn(edition.getIsbn13())
+                .title(edition.getTitle())
+                .authorName(edition.getAuthorName())
+                .rate(edition.average())
+                .feedbackCount(edition.getFeedbackCount())
+                .copies(editionRepository.countCopies(edition.getId()))
+                .build();
+    }
+
+    public PageResponse<EditionCopyResponse> findAvailableCopies(String isbn, int pageNum, int pageSize, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        Edition edition = findEdition(isbn);
+        Page<EditionCopyView> copies = editionRepository.findAvailableCopies(edition.getId(), user.getId(),
+                PageRequest.of(pageNum, pageSize));
+        List<EditionCopyResponse> copyResponses = copies.stream()
+                .map(copy -> EditionCopyResponse.builder()
+                        .bookId(copy.getBookId())
+                        .synopsis(copy.getSynopsis())
+                        .owner(copy.getOwnerFirstname() + " " + copy.getOwnerLastname())
+                        .ownerLendings(copy.getOwnerLendings().longValue())
+                        .build())
+                .toList();
+        return new PageResponse<>(copyResponses,
+                copies.getNumber(),
+                copies.getSize(),
+                copies.getTotalElements(),
+                copies.getTotalPages(),
+                copies.isFirst(),
+                copies.isLast());
+    }
+
+    private Edition findEdition(String isbn) {
+        String isbn13 = Isbn.toIsbn13(isbn)
+                .orElseThrow(() -> new OperationNotPermittedException(INVALID_ISBN));
+        return editionRepository.findByIsbn13(isbn13)
+                .orElseThrow(() -> new ResourceNotFoundException(EDITION_NOT_FOUND));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.book_social_netwok.edition;
+
+import java.util.Optional;
+
+/**
+ * ISBN parsing. Every ISBN-10 has an ISBN-13 twin with the 978 prefix, so both forms of the
+ * same edition normalize to the same thirteen digits.
+ */
+public final class Isbn {
+
+    private Isbn() {
+    }
+
+    /**
+     * The ISBN-13 for an ISBN-10 or ISBN-13 written with or without hyphens and spaces,
+     * or empty when the text is not a valid ISBN.
+     */
+    public static Optional<String> toIsbn13(String raw) {
+        if (raw == null) {
+            return Optional.empty();
+        }
+        StringBuilder digits = new StringBuilder(13);
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if ((c == 'X' || c == 'x') && digits.length() == 9) {
+                digits.append('X');
+            } else if (c != '-' && c != ' ') {
+                return Optional.empty();
+            }
+        }
+        if (digits.length() == 10 && isValidIsbn10(digits)) {
+            String isbn12 = "978" + digits.substring(0, 9);
+            return Optional.of(isbn12 + checkDigit13(isbn12));
+        }
+        if (digits.length() == 13 && digits.indexOf("X") < 0
+                && (digits.charAt(12) - '0') == checkDigit13(digits.substring(0, 12))) {
+            return Optional.of(digits.toString());
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isValidIsbn10(CharSequence digits) {
+        int sum = 0;
+        for (int i = 0; i < 10; i++) {
+            int value = digits.charAt(i) == 'X' ? 10 : digits.charAt(i) - '0';
+            sum += value * (10 - i);
+        }
+        return sum % 11 == 0;
+    }
+
+    private static int checkDigit13(String isbn12) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (isbn12.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.book_social_netwok.edition;
+
+public record UnlinkedBookRow(
+        Integer bookId,
+        String isbn,
+        String title,
+        String authorName
+) {
+}
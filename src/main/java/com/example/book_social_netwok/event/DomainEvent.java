@@ -0,0 +1,49 @@
+package com.example.book_social_netwok.event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Facts published after the transaction that produced them has committed.
+ * Events only carry ids and the few fields consumers need, never managed entities.
+ */
+public sealed interface DomainEvent {
+
+    record BookCreated(Integer bookId, Integer ownerId, String title, String authorName,
+                       boolean visible) implements DomainEvent {
+    }
+
+    record BookUpdated(Integer bookId, Integer ownerId, boolean visible) implements DomainEvent {
+    }
+
+    // one event per chunk of a bulk change, only books whose flags actually changed
+    record BooksUpdated(Integer ownerId, List<Integer> shownBookIds, List<Integer> hiddenBookIds) implements DomainEvent {
+    }
+
+    record BookBorrowed(Integer bookId, String title, String authorName, Integer ownerId, Integer borrowerId,
+                        Integer transactionId, boolean visible) implements DomainEvent {
+    }
+
+    record BookReturned(Integer bookId, String title, Integer ownerId, Integer borrowerId,
+                        Integer transactionId) implements DomainEvent {
+    }
+
+    record ReturnApproved(Integer bookId, String title, Integer ownerId, Integer borrowerId,
+                          Integer transactionId) implements DomainEvent {
+    }
+
+    // the book's rating totals including this feedback, as stored in its rating summary
+    record FeedbackAdded(Integer bookId, String title, String authorName, Integer feedbackId, Integer userId,
+                         long feedbackCount, double noteSum, boolean visible) implements DomainEvent {
+    }
+
+    record HoldOffered(Integer bookId, String title, Integer userId, Integer reservationId,
+                       LocalDateTime expiresAt) implements DomainEvent {
+    }
+
+    record UserLocationChanged(Integer userId, Double latitude, Double longitude) implements DomainEvent {
+    }
+
+    record UserActivated(Integer userId, String email) implements DomainEvent {
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.book_social_netwok.event;
+
+import java.util.List;
+
+/**
+ * A consumer of the domain event pipeline. Each handler runs on its own thread and
+ * receives events in publication order, in batches of whatever was available.
+ */
+public interface DomainEventHandler {
+
+    String consumerName();
+
+    void onEvents(List<DomainEvent> events);
+}
@@ -0,0 +1,39 @@
+package com.example.book_social_netwok.event;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "application.events")
+public record DomainEventProperties(
+        Consumer defaults,
+        Map<String, Consumer> consumers
+) {
+
+    public Consumer forConsumer(String name) {
+        Consumer override = consumers == null ? null : consumers.get(name);
+        if (override == null) {
+            return defaults;
+        }
+        return new Consumer(
+                override.bufferSize() > 0 ? override.bufferSize() : defaults.bufferSize(),
+                override.batchSize() > 0 ? override.batchSize() : defaults.batchSize(),
+                override.waitStrategy() != null ? override.waitStrategy() : defaults.waitStrategy(),
+                override.overflow() != null ? override.overflow() : defaults.overflow(),
+                override.blockTimeout() != null ? override.blockTimeout() : defaults.blockTimeout()
+        );
+    }
+
+    /**
+     * The buffer size is rounded up to a power of two.
+     */
+    public record Consumer(
+            int bufferSize,
+            int batchSize,
+            WaitStrategy waitStrategy,
+            OverflowPolicy overflow,
+            Duration blockTimeout
+    ) {
+    }
+}
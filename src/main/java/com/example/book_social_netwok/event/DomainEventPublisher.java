@@ -0,0 +1,153 @@
+package com.example.book_social_netwok.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans domain events out to every {@link DomainEventHandler}, each behind its own ring so a
+ * slow consumer only ever backs up itself. Events raised inside a transaction are held
+ * until it commits and discarded on rollback.
+ */
+@Component
+@Slf4j
+@EnableConfigurationProperties(DomainEventProperties.class)
+public class DomainEventPublisher {
+
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final List<Consumer> consumers;
+    private volatile boolean running;
+
+    public DomainEventPublisher(List<DomainEventHandler> handlers, DomainEventProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.consumers = handlers.stream()
+                .map(handler -> new Consumer(handler, properties.forConsumer(handler.consumerName()), meterRegistry))
+                .toList();
+    }
+
+    public void publish(DomainEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (Consumer consumer : consumers) {
+            consumer.thread.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Consumer consumer : consumers) {
+            consumer.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void dispatch(DomainEvent event) {
+        for (Consumer consumer : consumers) {
+            consumer.offer(event);
+        }
+    }
+
+    private final class Consumer {
+
+        private final DomainEventHandler handler;
+        private final DomainEventProperties.Consumer config;
+        private final EventRing ring;
+        private final Thread thread;
+        private final Counter processed;
+        private final Counter dropped;
+        private final Counter failed;
+
+        private Consumer(DomainEventHandler handler, DomainEventProperties.Consumer config, MeterRegistry meterRegistry) {
+            this.handler = handler;
+            this.config = config;
+            this.ring = new EventRing(config.bufferSize(), config.waitStrategy());
+            this.thread = new Thread(this::run, "domain-events-" + handler.consumerName());
+            this.thread.setDaemon(true);
+            String name = handler.consumerName();
+            this.processed = Counter.builder("domain.events.processed")
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+            this.dropped = Counter.builder("domain.events.dropped")
+                    .description("Events not delivered because the consumer ring was full")
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+            this.failed = Counter.builder("domain.events.failed")
+                    .description("Events in batches the consumer threw on")
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+            Gauge.builder("domain.events.lag", ring, EventRing::lag)
+                    .description("Events published but not yet handled")
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+            Gauge.builder("domain.events.capacity", ring, EventRing::capacity)
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+        }
+
+        private void offer(DomainEvent event) {
+            boolean accepted;
+            if (config.overflow() == OverflowPolicy.BLOCK) {
+                try {
+                    accepted = ring.publish(event, config.blockTimeout().toNanos());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    accepted = false;
+                }
+            } else {
+                accepted = ring.tryPublish(event);
+            }
+            if (!accepted) {
+                dropped.increment();
+            }
+        }
+
+        private void run() {
+            List<DomainEvent> batch = new ArrayList<>(config.batchSize());
+            try {
+                while (running || ring.lag() > 0) {
+                    int count = ring.poll(batch, config.batchSize(), POLL_NANOS);
+                    if (count == 0) {
+                        continue;
+                    }
+                    try {
+                        handler.onEvents(batch);
+                        processed.increment(count);
+                    } catch (RuntimeException e) {
+                        failed.increment(count);
+                        log.error("Domain event consumer {} failed on a batch of {}", handler.consumerName(), count, e);
+                    } finally {
+                        batch.clear();
+                        ring.release(count);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
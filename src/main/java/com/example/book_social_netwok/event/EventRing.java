@@ -0,0 +1,178 @@
+package com.example.book_social_netwok.event;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Preallocated multi-producer, single-consumer ring. Producers claim a sequence with a CAS,
+ * write the slot and then mark it published by storing the sequence in a parallel array,
+ * so the consumer never reads a half-written slot and nothing is allocated per event.
+ */
+class EventRing {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final DomainEvent[] entries;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private volatile long consumed = -1;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    EventRing(int requestedSize, WaitStrategy waitStrategy) {
+        int size = Integer.highestOneBit(Math.max(requestedSize - 1, 1)) << 1;
+        this.entries = new DomainEvent[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Returns false without publishing when the ring is full.
+     */
+    boolean tryPublish(DomainEvent event) {
+        long sequence;
+        while (true) {
+            long current = claimed.get();
+            sequence = current + 1;
+            if (sequence - entries.length > consumed) {
+                return false;
+            }
+            if (claimed.compareAndSet(current, sequence)) {
+                break;
+            }
+        }
+        int index = (int) (sequence & mask);
+        entries[index] = event;
+        published.set(index, sequence);
+        if (waitStrategy == WaitStrategy.BLOCKING) {
+            signal(notEmpty);
+        }
+        return true;
+    }
+
+    boolean publish(DomainEvent event, long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (!tryPublish(event)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            lock.lock();
+            try {
+                if (isFull()) {
+                    notFull.awaitNanos(Math.min(remaining, SLEEP_NANOS * 10));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves every contiguously published event, up to maxBatch, into the batch and
+     * waits according to the strategy when nothing is available.
+     */
+    int poll(List<DomainEvent> batch, int maxBatch, long maxWaitNanos) throws InterruptedException {
+        long next = consumed + 1;
+        if (!awaitPublished(next, maxWaitNanos)) {
+            return 0;
+        }
+        long last = next;
+        while (last - next + 1 < maxBatch && published.get((int) ((last + 1) & mask)) == last + 1) {
+            last++;
+        }
+        for (long sequence = next; sequence <= last; sequence++) {
+            int index = (int) (sequence & mask);
+            batch.add(entries[index]);
+            entries[index] = null;
+        }
+        return (int) (last - next + 1);
+    }
+
+    void release(int count) {
+        consumed = consumed + count;
+        signal(notFull);
+    }
+
+    long lag() {
+        return claimed.get() - consumed;
+    }
+
+    int capacity() {
+        return entries.length;
+    }
+
+    private boolean isFull() {
+        return claimed.get() + 1 - entries.length > consumed;
+    }
+
+    private boolean awaitPublished(long sequence, long maxWaitNanos) throws InterruptedException {
+        int index = (int) (sequence & mask);
+        long deadline = System.nanoTime() + maxWaitNanos;
+        int tries = 0;
+        while (published.get(index) != sequence) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            tries++;
+            switch (waitStrategy) {
+                case BUSY_SPIN -> Thread.onSpinWait();
+                case YIELDING -> {
+                    if (tries < SPIN_TRIES) {
+                        Thread.onSpinWait();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+                case SLEEPING -> {
+                    if (tries < SPIN_TRIES) {
+                        Thread.onSpinWait();
+                    } else if (tries < YIELD_TRIES) {
+                        Thread.yield();
+                    } else {
+                        LockSupport.parkNanos(SLEEP_NANOS);
+                    }
+                }
+                case BLOCKING -> {
+                    lock.lock();
+                    try {
+                        if (published.get(index) != sequence) {
+                            notEmpty.awaitNanos(deadline - System.nanoTime());
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return true;
+    }
+
+    private void signal(Condition condition) {
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
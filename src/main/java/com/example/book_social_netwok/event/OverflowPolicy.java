@@ -0,0 +1,8 @@
+package com.example.book_social_netwok.event;
+
+public enum OverflowPolicy {
+    /** Drop the new event when the consumer is a full ring behind. */
+    DROP,
+    /** Make the publisher wait for the consumer, up to the configured block timeout. */
+    BLOCK
+}
@@ -0,0 +1,12 @@
+package com.example.book_social_netwok.event;
+
+public enum WaitStrategy {
+    /** Lowest latency, burns a core per consumer. */
+    BUSY_SPIN,
+    /** Spins briefly then yields the core to other threads. */
+    YIELDING,
+    /** Spins, yields, then parks for a short while. */
+    SLEEPING,
+    /** Parks until a publisher signals, cheapest when idle. */
+    BLOCKING
+}
@@ -0,0 +1,28 @@
+package com.example.book_social_netwok.exception;
+
+import com.example.book_social_netwok.handler.BusinessErrorCodes;
+import lombok.Getter;
+
+/**
+ * Expected rejection of a request, e.g. borrowing your own book. These are thrown often and
+ * never debugged from a stack trace, so none is captured; the error code says what happened.
+ * Without a detail message the handler answers with the code's preallocated response.
+ */
+@Getter
+public class BusinessException extends RuntimeException {
+
+    private final BusinessErrorCodes errorCode;
+    private final boolean detailed;
+
+    public BusinessException(BusinessErrorCodes errorCode) {
+        super(errorCode.getDescription(), null, false, false);
+        this.errorCode = errorCode;
+        this.detailed = false;
+    }
+
+    public BusinessException(BusinessErrorCodes errorCode, String msg) {
+        super(msg, null, false, false);
+        this.errorCode = errorCode;
+        this.detailed = true;
+    }
+}
@@ -1,8 +1,20 @@
 package com.example.book_social_netwok.exception;
 
-public class OperationNotPermittedException extends RuntimeException {
+import com.example.book_social_netwok.handler.BusinessErrorCodes;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.OPERATION_NOT_PERMITTED;
+
+public class OperationNotPermittedException extends BusinessException {
+
+    public OperationNotPermittedException(BusinessErrorCodes errorCode) {
+        super(errorCode);
+    }
+
+    public OperationNotPermittedException(BusinessErrorCodes errorCode, String msg) {
+        super(errorCode, msg);
+    }
 
     public OperationNotPermittedException(String msg) {
-        super(msg);
+        super(OPERATION_NOT_PERMITTED, msg);
     }
 }
@@ -0,0 +1,10 @@
+package com.example.book_social_netwok.exception;
+
+import com.example.book_social_netwok.handler.BusinessErrorCodes;
+
+public class ResourceNotFoundException extends BusinessException {
+
+    public ResourceNotFoundException(BusinessErrorCodes errorCode) {
+        super(errorCode);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.book_social_netwok.exception;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.SERVICE_OVERLOADED;
+
+public class ServiceOverloadedException extends BusinessException {
+
+    public ServiceOverloadedException(String msg) {
+        super(SERVICE_OVERLOADED, msg);
+    }
+}
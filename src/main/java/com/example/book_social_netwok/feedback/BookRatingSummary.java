@@ -0,0 +1,36 @@
+package com.example.book_social_netwok.feedback;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "book_rating_summary")
+public class BookRatingSummary {
+
+    @Id
+    private Integer bookId;
+    private long feedbackCount;
+    private double noteSum;
+    private long oneStar;
+    private long twoStars;
+    private long threeStars;
+    private long fourStars;
+    private long fiveStars;
+    private LocalDateTime lastModifiedDate;
+
+    public double average() {
+        if (feedbackCount == 0) {
+            return 0.0;
+        }
+        return Math.round(noteSum / feedbackCount * 10.0) / 10.0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.book_social_netwok.feedback;
+
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+public interface BookRatingSummaryRepository extends JpaRepository<BookRatingSummary, Integer> {
+
+    // without declared spaces a native write would invalidate every second-level cache region
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "book_rating_summary"))
+    @Query(value = """
+            INSERT IGNORE INTO book_rating_summary
+            (book_id, feedback_count, note_sum, one_star, two_stars, three_stars, four_stars, five_stars, last_modified_date)
+            VALUES (:bookId, 0, 0, 0, 0, 0, 0, 0, CURRENT_TIMESTAMP)
+            """, nativeQuery = true)
+    void createIfMissing(Integer bookId);
+
+    @Modifying
+    @Query("""
+            UPDATE BookRatingSummary summary
+            SET summary.feedbackCount = summary.feedbackCount + 1,
+                summary.noteSum = summary.noteSum + :note,
+                summary.oneStar = summary.oneStar + CASE WHEN :stars = 1 THEN 1 ELSE 0 END,
+                summary.twoStars = summary.twoStars + CASE WHEN :stars = 2 THEN 1 ELSE 0 END,
+                summary.threeStars = summary.threeStars + CASE WHEN :stars = 3 THEN 1 ELSE 0 END,
+                summary.fourStars = summary.fourStars + CASE WHEN :stars = 4 THEN 1 ELSE 0 END,
+                summary.fiveStars = summary.fiveStars + CASE WHEN :stars = 5 THEN 1 ELSE 0 END,
+                summary.lastModifiedDate = CURRENT_TIMESTAMP
+            WHERE summary.bookId = :bookId
+            """)
+    int addFeedback(Integer bookId, double note, int stars);
+
+    @Query("""
+            SELECT new com.example.book_social_netwok.feedback.RatingTotals(summary.feedbackCount, summary.noteSum)
+            FROM BookRatingSummary summary
+            WHERE summary.bookId = :bookId
+            """)
+    RatingTotals findTotalsByBookId(Integer bookId);
+
+    @Query("""
+            SELECT COALESCE(SUM(summary.feedbackCount), 0L)
+            FROM BookRatingSummary summary
+            """)
+    long sumFeedbackCounts();
+
+    // FLOOR(note + 0.5) rounds like Math.round, MySQL's ROUND goes to even on doubles
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "book_rating_summary"))
+    @Query(value = """
+            INSERT INTO book_rating_summary
+            (book_id, feedback_count, note_sum, one_star, two_stars, three_stars, four_stars, five_stars, last_modified_date)
+            SELECT feedback.book_id,
+                   COUNT(*),
+                   COALESCE(SUM(feedback.note), 0),
+                   SUM(CASE WHEN FLOOR(feedback.note + 0.5) <= 1 THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN FLOOR(feedback.note + 0.5) = 2 THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN FLOOR(feedback.note + 0.5) = 3 THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN FLOOR(feedback.note + 0.5) = 4 THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN FLOOR(feedback.note + 0.5) >= 5 THEN 1 ELSE 0 END),
+                   CURRENT_TIMESTAMP
+            FROM feedback feedback
+            WHERE feedback.book_id IS NOT NULL
+            GROUP BY feedback.book_id
+            ON DUPLICATE KEY UPDATE
+                feedback_count = VALUES(feedback_count),
+                note_sum = VALUES(note_sum),
+                one_star = VALUES(one_star),
+                two_stars = VALUES(two_stars),
+                three_stars = VALUES(three_stars),
+                four_stars = VALUES(four_stars),
+                five_stars = VALUES(five_stars),
+                last_modified_date = VALUES(last_modified_date)
+            """, nativeQuery = true)
+    int rebuildFromFeedback();
+}
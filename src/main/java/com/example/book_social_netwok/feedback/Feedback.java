@@ -23,10 +23,16 @@ import java.util.List;
 @NoArgsConstructor
 @SuperBuilder
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_feedback_book_created", columnList = "book_id, created_date, id"),
+        @Index(name = "idx_feedback_book_note", columnList = "book_id, note, id"),
+        @Index(name = "idx_feedback_book_helpful", columnList = "book_id, helpful_count, id")
+})
 public class Feedback extends BaseEntity {
 
     private Double note; // 1-5 stars
     private String comment;
+    private int helpfulCount;
 
     @ManyToOne
     @JoinColumn(name = "book_id")
@@ -1,12 +1,15 @@
 package com.example.book_social_netwok.feedback;
 
+import com.example.book_social_netwok.common.CursorPageResponse;
 import com.example.book_social_netwok.common.PageResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("feedbacks")
@@ -26,8 +29,46 @@ public class FeedbackController {
             @PathVariable("book-id") Integer bookId,
             @RequestParam(name = "pageNo", defaultValue = "0", required = false) int pageNo,
             @RequestParam(name = "pageSize", defaultValue = "10", required = false) int pageSize,
+            Authentication connectedUser,
+            WebRequest webRequest
+    ){
+        if (feedbackService.findFeedbackVersion(bookId, connectedUser, pageNo, pageSize).isNotModified(webRequest)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(feedbackService.findAllFeedbackByBook(bookId, pageNo, pageSize, connectedUser));
+    }
+
+    @GetMapping("/book/{book-id}/sorted")
+    public ResponseEntity<CursorPageResponse<FeedbackResponse>> getFeedbackByBookSorted(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "sort", defaultValue = "NEWEST", required = false) FeedbackSort sort,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = "10", required = false) int pageSize,
+            Authentication connectedUser,
+            WebRequest webRequest
+    ){
+        if (feedbackService.findFeedbackVersion(bookId, connectedUser, sort, cursor, pageSize).isNotModified(webRequest)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(feedbackService.findFeedbackByBook(bookId, sort, cursor, pageSize, connectedUser));
+    }
+
+    @GetMapping("/book/{book-id}/summary")
+    public ResponseEntity<RatingSummaryResponse> getRatingSummary(
+            @PathVariable("book-id") Integer bookId
+    ){
+        return ResponseEntity.ok(feedbackService.findRatingSummary(bookId));
+    }
+
+    @PatchMapping("/{feedback-id}/helpful")
+    public ResponseEntity<Integer> markFeedbackHelpful(
+            @PathVariable("feedback-id") Integer feedbackId,
             Authentication connectedUser
     ){
-        return ResponseEntity.ok(feedbackService.findAllFeedbackByBook(bookId, pageNo, pageSize, connectedUser));
+        return ResponseEntity.ok(feedbackService.markHelpful(feedbackId, connectedUser));
     }
 }
@@ -0,0 +1,72 @@
+package com.example.book_social_netwok.feedback;
+
+import com.example.book_social_netwok.exception.OperationNotPermittedException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.INVALID_CURSOR;
+
+/**
+ * Opaque keyset position: the sort key and id of the last feedback of the previous page.
+ */
+record FeedbackCursor(FeedbackSort sort, String key, Integer id) {
+
+    static FeedbackCursor first(FeedbackSort sort) {
+        return switch (sort) {
+            case NEWEST -> new FeedbackCursor(sort, LocalDateTime.of(9999, 12, 31, 0, 0).toString(), Integer.MAX_VALUE);
+            case HIGHEST -> new FeedbackCursor(sort, String.valueOf(Double.MAX_VALUE), Integer.MAX_VALUE);
+            case LOWEST -> new FeedbackCursor(sort, String.valueOf(-Double.MAX_VALUE), Integer.MIN_VALUE);
+            case MOST_HELPFUL -> new FeedbackCursor(sort, String.valueOf(Integer.MAX_VALUE), Integer.MAX_VALUE);
+        };
+    }
+
+    static FeedbackCursor after(FeedbackSort sort, Feedback feedback) {
+        String key = switch (sort) {
+            case NEWEST -> feedback.getCreatedDate().toString();
+            case HIGHEST, LOWEST -> String.valueOf(feedback.getNote());
+            case MOST_HELPFUL -> String.valueOf(feedback.getHelpfulCount());
+        };
+        return new FeedbackCursor(sort, key, feedback.getId());
+    }
+
+    static FeedbackCursor decode(FeedbackSort sort, String encoded) {
+        if (encoded == null || encoded.isBlank()) {
+            return first(sort);
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || !parts[0].equals(sort.name())) {
+                throw new OperationNotPermittedException(INVALID_CURSOR, "The cursor does not match the requested sort");
+            }
+            FeedbackCursor cursor = new FeedbackCursor(sort, parts[1], Integer.valueOf(parts[2]));
+            switch (sort) {
+                case NEWEST -> cursor.dateKey();
+                case HIGHEST, LOWEST -> cursor.noteKey();
+                case MOST_HELPFUL -> cursor.intKey();
+            }
+            return cursor;
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new OperationNotPermittedException(INVALID_CURSOR);
+        }
+    }
+
+    String encode() {
+        String raw = sort.name() + "|" + key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    LocalDateTime dateKey() {
+        return LocalDateTime.parse(key);
+    }
+
+    Double noteKey() {
+        return Double.valueOf(key);
+    }
+
+    int intKey() {
+        return Integer.parseInt(key);
+    }
+}
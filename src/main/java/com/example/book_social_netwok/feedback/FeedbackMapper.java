@@ -3,6 +3,7 @@ package com.example.book_social_netwok.feedback;
 import com.example.book_social_netwok.book.Book;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Objects;
 
 @Service
@@ -19,9 +20,25 @@ public class FeedbackMapper {
 
     public FeedbackResponse toFeedbackResponse(Feedback feedback, Integer userId) {
         return FeedbackResponse.builder()
+                .id(feedback.getId())
                 .note(feedback.getNote())
                 .comment(feedback.getComment())
+                .helpfulCount(feedback.getHelpfulCount())
                 .ownFeedback(Objects.equals(feedback.getCreatedBy(), userId))
                 .build();
     }
+
+    public RatingSummaryResponse toRatingSummaryResponse(BookRatingSummary summary) {
+        return RatingSummaryResponse.builder()
+                .bookId(summary.getBookId())
+                .average(summary.average())
+                .count(summary.getFeedbackCount())
+                .histogram(List.of(
+                        summary.getOneStar(),
+                        summary.getTwoStars(),
+                        summary.getThreeStars(),
+                        summary.getFourStars(),
+                        summary.getFiveStars()))
+                .build();
+    }
 }
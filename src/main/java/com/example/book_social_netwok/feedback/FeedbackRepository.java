@@ -1,10 +1,15 @@
 package com.example.book_social_netwok.feedback;
 
+import com.example.book_social_netwok.common.VersionStamp;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface FeedbackRepository extends JpaRepository<Feedback, Integer> {
     @Query("""
             SELECT feedback
@@ -12,4 +17,69 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Integer> {
             WHERE feedback.book.id = :bookId
           """)
     Page<Feedback> findAllByBookId(Integer bookId, Pageable pageable);
+
+    @Query("""
+            SELECT feedback
+            FROM Feedback feedback
+            WHERE feedback.book.id = :bookId
+            AND (feedback.createdDate < :createdDate
+                OR (feedback.createdDate = :createdDate AND feedback.id < :id))
+            ORDER BY feedback.createdDate DESC, feedback.id DESC
+          """)
+    List<Feedback> findNewestAfter(Integer bookId, LocalDateTime createdDate, Integer id, Pageable pageable);
+
+    @Query("""
+            SELECT feedback
+            FROM Feedback feedback
+            WHERE feedback.book.id = :bookId
+            AND (feedback.note < :note
+                OR (feedback.note = :note AND feedback.id < :id))
+            ORDER BY feedback.note DESC, feedback.id DESC
+          """)
+    List<Feedback> findHighestAfter(Integer bookId, Double note, Integer id, Pageable pageable);
+
+    @Query("""
+            SELECT feedback
+            FROM Feedback feedback
+            WHERE feedback.book.id = :bookId
+            AND (feedback.note > :note
+                OR (feedback.note = :note AND feedback.id > :id))
+            ORDER BY feedback.note ASC, feedback.id ASC
+          """)
+    List<Feedback> findLowestAfter(Integer bookId, Double note, Integer id, Pageable pageable);
+
+    @Query("""
+            SELECT feedback
+            FROM Feedback feedback
+            WHERE feedback.book.id = :bookId
+            AND (feedback.helpfulCount < :helpfulCount
+                OR (feedback.helpfulCount = :helpfulCount AND feedback.id < :id))
+            ORDER BY feedback.helpfulCount DESC, feedback.id DESC
+          """)
+    List<Feedback> findMostHelpfulAfter(Integer bookId, int helpfulCount, Integer id, Pageable pageable);
+
+    @Modifying
+    @Query("""
+            UPDATE Feedback feedback
+            SET feedback.helpfulCount = feedback.helpfulCount + 1
+            WHERE feedback.id = :feedbackId
+            AND (feedback.createdBy IS NULL OR feedback.createdBy <> :userId)
+          """)
+    int incrementHelpfulCount(Integer feedbackId, Integer userId);
+
+    // helpful votes do not touch the feedback rows, the latest vote moves Last-Modified instead
+    @Query("""
+            SELECT new com.example.book_social_netwok.common.VersionStamp(
+                GREATEST(MAX(COALESCE(feedback.lastModifiedDate, feedback.createdDate)),
+                         COALESCE((SELECT MAX(vote.createdDate)
+                                   FROM FeedbackVote vote
+                                   JOIN Feedback voted ON voted.id = vote.feedbackId
+                                   WHERE voted.book.id = :bookId),
+                                  MAX(COALESCE(feedback.lastModifiedDate, feedback.createdDate)))),
+                COUNT(feedback),
+                COALESCE(SUM(feedback.helpfulCount), 0L))
+            FROM Feedback feedback
+            WHERE feedback.book.id = :bookId
+          """)
+    VersionStamp findVersionByBookId(Integer bookId);
 }
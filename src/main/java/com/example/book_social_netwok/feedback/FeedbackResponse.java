@@ -8,7 +8,9 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 public class FeedbackResponse {
+    private Integer id;
     private Double note;
     private String comment;
+    private int helpfulCount;
     private boolean ownFeedback;
 }
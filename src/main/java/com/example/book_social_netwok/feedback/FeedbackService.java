@@ -1,45 +1,75 @@
 package com.example.book_social_netwok.feedback;
 
 import com.example.book_social_netwok.book.Book;
+import com.example.book_social_netwok.book.BookCache;
 import com.example.book_social_netwok.book.BookRepository;
+import com.example.book_social_netwok.common.CursorPageResponse;
 import com.example.book_social_netwok.common.PageResponse;
+import com.example.book_social_netwok.common.ResourceVersion;
+import com.example.book_social_netwok.edition.EditionRepository;
+import com.example.book_social_netwok.event.DomainEvent;
+import com.example.book_social_netwok.event.DomainEventPublisher;
 import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.exception.ResourceNotFoundException;
 import com.example.book_social_netwok.user.User;
-import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Objects;
 
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.*;
+
 @Service
 @RequiredArgsConstructor
 public class FeedbackService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final BookRepository bookRepository;
     private final FeedbackMapper feedbackMapper;
     private final FeedbackRepository feedbackRepository;
+    private final BookRatingSummaryRepository bookRatingSummaryRepository;
+    private final EditionRepository editionRepository;
+    private final FeedbackVoteRepository feedbackVoteRepository;
+    private final DomainEventPublisher domainEventPublisher;
+    private final BookCache bookCache;
 
+    @Transactional
     public Integer save(FeedbackRequest feedbackRequest, Authentication connectedUser) {
         Book book = bookRepository.findById(feedbackRequest.bookId())
-                .orElseThrow(() -> new EntityNotFoundException("No Book found with ID: " + feedbackRequest.bookId()));
+                .orElseThrow(() -> new ResourceNotFoundException(BOOK_NOT_FOUND));
         if(book.isArchived() || !book.isShareable()){
-            throw new OperationNotPermittedException("You cannot give feedback for an archived or not sharable book");
+            throw new OperationNotPermittedException(BOOK_NOT_SHAREABLE);
         }
 
         User user = (User) connectedUser.getPrincipal();
         if(Objects.equals(book.getOwner().getId(), user.getId()))
-            throw new OperationNotPermittedException("You cannot give feedback for your own book");
+            throw new OperationNotPermittedException(OWN_BOOK);
 
         Feedback feedback = feedbackMapper.toFeedback(feedbackRequest);
-        return feedbackRepository.save(feedback).getId();
+        Integer feedbackId = feedbackRepository.save(feedback).getId();
+        bookRatingSummaryRepository.createIfMissing(book.getId());
+        bookRatingSummaryRepository.addFeedback(book.getId(), feedbackRequest.note(), toStars(feedbackRequest.note()));
+        editionRepository.addFeedback(book.getId(), feedbackRequest.note());
+        // the row is locked by the update above, so the totals read back include every earlier feedback
+        RatingTotals totals = bookRatingSummaryRepository.findTotalsByBookId(book.getId());
+        domainEventPublisher.publish(new DomainEvent.FeedbackAdded(book.getId(), book.getTitle(), book.getAuthorName(),
+                feedbackId, user.getId(), totals.feedbackCount(), totals.noteSum(),
+                !book.isArchived() && book.isShareable()));
+        bookCache.evict(book.getId());
+        return feedbackId;
     }
 
     public PageResponse<FeedbackResponse> findAllFeedbackByBook(Integer bookId, int pageNo, int pageSize, Authentication connectedUser) {
-        Pageable pageable = PageRequest.of(pageNo, pageSize);
+        checkPage(pageNo, pageSize);
+        Pageable pageable = PageRequest.of(pageNo, pageSize, Sort.by("createdDate").descending().and(Sort.by("id").descending()));
         User user = (User) connectedUser.getPrincipal();
         Page<Feedback> feedbacks = feedbackRepository.findAllByBookId(bookId, pageable);
         List<FeedbackResponse> feedbackResponses = feedbacks.stream()
@@ -55,4 +85,74 @@ public class FeedbackService {
                 feedbacks.isLast()
         );
     }
+
+    public CursorPageResponse<FeedbackResponse> findFeedbackByBook(Integer bookId, FeedbackSort sort, String cursor, int pageSize, Authentication connectedUser) {
+        checkPage(0, pageSize);
+        User user = (User) connectedUser.getPrincipal();
+        FeedbackCursor position = FeedbackCursor.decode(sort, cursor);
+        // one extra row tells whether another page exists without issuing a COUNT
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<Feedback> feedbacks = switch (sort) {
+            case NEWEST -> feedbackRepository.findNewestAfter(bookId, position.dateKey(), position.id(), limit);
+            case HIGHEST -> feedbackRepository.findHighestAfter(bookId, position.noteKey(), position.id(), limit);
+            case LOWEST -> feedbackRepository.findLowestAfter(bookId, position.noteKey(), position.id(), limit);
+            case MOST_HELPFUL -> feedbackRepository.findMostHelpfulAfter(bookId, position.intKey(), position.id(), limit);
+        };
+        boolean hasNext = feedbacks.size() > pageSize;
+        List<Feedback> page = hasNext ? feedbacks.subList(0, pageSize) : feedbacks;
+        List<FeedbackResponse> feedbackResponses = page.stream()
+                .map(feedback -> feedbackMapper.toFeedbackResponse(feedback, user.getId()))
+                .toList();
+        return new CursorPageResponse<>(
+                feedbackResponses,
+                hasNext ? FeedbackCursor.after(sort, page.getLast()).encode() : null,
+                hasNext
+        );
+    }
+
+    public ResourceVersion findFeedbackVersion(Integer bookId, Authentication connectedUser, Object... view) {
+        User user = (User) connectedUser.getPrincipal();
+        Object[] discriminators = new Object[view.length + 1];
+        discriminators[0] = user.getId();
+        System.arraycopy(view, 0, discriminators, 1, view.length);
+        return ResourceVersion.of(feedbackRepository.findVersionByBookId(bookId), discriminators);
+    }
+
+    public RatingSummaryResponse findRatingSummary(Integer bookId) {
+        BookRatingSummary summary = bookRatingSummaryRepository.findById(bookId)
+                .orElseGet(() -> {
+                    // the row is only created with the first feedback
+                    if (!bookRepository.existsById(bookId)) {
+                        throw new ResourceNotFoundException(BOOK_NOT_FOUND);
+                    }
+                    return BookRatingSummary.builder().bookId(bookId).build();
+                });
+        return feedbackMapper.toRatingSummaryResponse(summary);
+    }
+
+    @Transactional
+    public Integer markHelpful(Integer feedbackId, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        if (feedbackVoteRepository.voteIfAbsent(feedbackId, user.getId()) == 0) {
+            if (!feedbackRepository.existsById(feedbackId)) {
+                throw new ResourceNotFoundException(FEEDBACK_NOT_FOUND);
+            }
+            if (feedbackVoteRepository.existsByFeedbackIdAndUserId(feedbackId, user.getId())) {
+                throw new OperationNotPermittedException(ALREADY_VOTED);
+            }
+            throw new OperationNotPermittedException(OWN_FEEDBACK);
+        }
+        feedbackRepository.incrementHelpfulCount(feedbackId, user.getId());
+        return feedbackId;
+    }
+
+    private static void checkPage(int pageNo, int pageSize) {
+        if (pageNo < 0 || pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new OperationNotPermittedException(INVALID_PAGE);
+        }
+    }
+
+    private static int toStars(double note) {
+        return (int) Math.max(1, Math.min(5, Math.round(note)));
+    }
 }
@@ -0,0 +1,13 @@
+package com.example.book_social_netwok.feedback;
+
+/**
+ * Keyset orders for a book's feedback. MOST_HELPFUL is keyed on the helpful count, which grows
+ * while a reader pages: a feedback voted past the cursor between two pages is not shown, the
+ * rest appear once. Counts never go down, so nothing already shown comes back.
+ */
+public enum FeedbackSort {
+    NEWEST,
+    HIGHEST,
+    LOWEST,
+    MOST_HELPFUL
+}
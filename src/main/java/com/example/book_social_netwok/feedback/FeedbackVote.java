@@ -0,0 +1,29 @@
+package com.example.book_social_netwok.feedback;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// one row per user and feedback they marked helpful, the unique key makes a second vote a no-op
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "feedback_vote", indexes = @Index(name = "uk_feedback_vote", columnList = "feedback_id, user_id", unique = true))
+public class FeedbackVote {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "feedback_id", nullable = false)
+    private Integer feedbackId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    private LocalDateTime createdDate;
+}
@@ -0,0 +1,26 @@
+package com.example.book_social_netwok.feedback;
+
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+public interface FeedbackVoteRepository extends JpaRepository<FeedbackVote, Long> {
+
+    // inserts nothing for a missing feedback, the voter's own feedback or a repeated vote
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "feedback_vote"))
+    @Query(value = """
+            INSERT IGNORE INTO feedback_vote (feedback_id, user_id, created_date)
+            SELECT feedback.id, :userId, CURRENT_TIMESTAMP
+            FROM feedback feedback
+            WHERE feedback.id = :feedbackId
+            AND (feedback.created_by IS NULL OR feedback.created_by <> :userId)
+            """, nativeQuery = true)
+    int voteIfAbsent(Integer feedbackId, Integer userId);
+
+    boolean existsByFeedbackIdAndUserId(Integer feedbackId, Integer userId);
+}
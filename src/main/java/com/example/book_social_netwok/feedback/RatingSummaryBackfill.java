@@ -0,0 +1,60 @@
+package com.example.book_social_netwok.feedback;
+
+import com.example.book_social_netwok.common.MaintenanceMarkerRepository;
+import com.example.book_social_netwok.edition.EditionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Feedback written before the rating summaries existed is missing from them. The first start
+ * against a database compares the summaries with the feedback table and, when the totals
+ * differ, recomputes them from it together with the edition totals built on top of them. A
+ * marker row then records the check, every later start only looks the marker up.
+ */
+@Component
+@Slf4j
+public class RatingSummaryBackfill {
+
+    private static final String MARKER = "rating-summary-backfill";
+
+    private final FeedbackRepository feedbackRepository;
+    private final BookRatingSummaryRepository bookRatingSummaryRepository;
+    private final EditionRepository editionRepository;
+    private final MaintenanceMarkerRepository maintenanceMarkerRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public RatingSummaryBackfill(
+            FeedbackRepository feedbackRepository,
+            BookRatingSummaryRepository bookRatingSummaryRepository,
+            EditionRepository editionRepository,
+            MaintenanceMarkerRepository maintenanceMarkerRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.feedbackRepository = feedbackRepository;
+        this.bookRatingSummaryRepository = bookRatingSummaryRepository;
+        this.editionRepository = editionRepository;
+        this.maintenanceMarkerRepository = maintenanceMarkerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void backfill() {
+        if (maintenanceMarkerRepository.existsById(MARKER)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            long feedbacks = feedbackRepository.count();
+            long summarized = bookRatingSummaryRepository.sumFeedbackCounts();
+            if (feedbacks != summarized) {
+                log.info("Rating summaries cover {} of {} feedbacks, rebuilding them", summarized, feedbacks);
+                int books = bookRatingSummaryRepository.rebuildFromFeedback();
+                editionRepository.recountAllRatings();
+                log.info("Rebuilt rating summaries of {} books", books);
+            }
+            maintenanceMarkerRepository.markCompleted(MARKER);
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.book_social_netwok.feedback;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatingSummaryResponse {
+    private Integer bookId;
+    private double average;
+    private long count;
+    // index 0 holds the one-star count, index 4 the five-star count
+    private List<Long> histogram;
+}
@@ -0,0 +1,7 @@
+package com.example.book_social_netwok.feedback;
+
+public record RatingTotals(
+        long feedbackCount,
+        double noteSum
+) {
+}
@@ -2,6 +2,7 @@ package com.example.book_social_netwok.file;
 
 import com.example.book_social_netwok.book.Book;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -18,20 +19,53 @@ import static java.lang.System.currentTimeMillis;
 
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class FileStorageService {
 
+    private final PackedBlobStore packedBlobStore;
 
     @Value("${application.file.upload.photos-output-path}")
     private String fileUploadPath;
 
+    @Value("${application.file.packed.enabled}")
+    private boolean packedEnabled;
+
     public String saveFile(
             @NonNull MultipartFile sourceFile,
             @NonNull Integer userId
     ) {
+        if (packedEnabled && packedBlobStore.accepts(sourceFile.getSize())) {
+            try {
+                return packedBlobStore.put(sourceFile.getBytes());
+            } catch (IOException e) {
+                log.error("File was not saved", e);
+                return null;
+            }
+        }
         final String fileUploadSubPath = "users" + separator + userId;
         return uploadFile(sourceFile, fileUploadSubPath);
     }
 
+    // locations written before the packed store keep being served from their own file
+    public byte[] readFile(String location) {
+        if (PackedBlobStore.isPackedLocation(location)) {
+            return packedBlobStore.get(location);
+        }
+        return FileUtils.readFileFromLocation(location);
+    }
+
+    public void deleteFile(String location) {
+        try {
+            if (PackedBlobStore.isPackedLocation(location)) {
+                packedBlobStore.delete(location);
+            } else if (location != null) {
+                Files.deleteIfExists(Paths.get(location));
+            }
+        } catch (IOException e) {
+            log.warn("File {} could not be deleted", location, e);
+        }
+    }
+
     private String uploadFile(
             @NonNull MultipartFile sourceFile,
             @NonNull String fileUploadSubPath
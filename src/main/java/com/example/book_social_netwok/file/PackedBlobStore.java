@@ -0,0 +1,381 @@
+package com.example.book_social_netwok.file;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only store for small blobs, packed into large memory-mapped segment files instead of
+ * one file per upload. Each record is a header (magic, blob id, length, CRC32 of id, length and
+ * body) followed by the bytes; the magic is written last and replay stops at the first record
+ * whose magic or checksum does not hold, so a torn append is dropped rather than indexed. A
+ * length of -1 marks a deletion whose body names the segment of the deleted record. The id to
+ * location index lives in memory and is written to a snapshot together with the append position
+ * it covers, so startup only replays the records written after it. Compaction copies the live
+ * records of mostly-dead sealed segments into the active one, keeps the tombstones whose record
+ * still sits in another segment, and then drops the old file; a rebuild from the segments alone
+ * therefore never brings a deleted blob back.
+ */
+@Component
+@Slf4j
+public class PackedBlobStore {
+
+    public static final String LOCATION_PREFIX = "blob:";
+
+    private static final int MAGIC = 0x424c4f42;
+    private static final int HEADER_BYTES = 20;
+    private static final int TOMBSTONE = -1;
+    private static final int TOMBSTONE_BYTES = 4;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Map<Long, BlobLocation> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Counter compactedBytes;
+
+    private volatile Segment active;
+
+    @Value("${application.file.packed.directory}")
+    private Path directory;
+
+    @Value("${application.file.packed.segment-size}")
+    private DataSize segmentSize;
+
+    @Value("${application.file.packed.max-blob-size}")
+    private DataSize maxBlobSize;
+
+    // a sealed segment is rewritten once this share of it is dead
+    @Value("${application.file.packed.compaction-garbage-ratio}")
+    private double compactionGarbageRatio;
+
+    public PackedBlobStore(MeterRegistry meterRegistry) {
+        this.compactedBytes = Counter.builder("blobstore.compacted")
+                .description("Bytes of dead records reclaimed by compaction")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("blobstore.segments", segments, Map::size)
+                .description("Segment files of the packed blob store")
+                .register(meterRegistry);
+        Gauge.builder("blobstore.live", this, PackedBlobStore::liveBytes)
+                .description("Bytes of live records in the packed blob store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean accepts(long size) {
+        return size <= maxBlobSize.toBytes();
+    }
+
+    public synchronized String put(byte[] bytes) throws IOException {
+        long id = nextId.getAndIncrement();
+        index.put(id, append(id, bytes.length, bytes));
+        return LOCATION_PREFIX + id;
+    }
+
+    public byte[] get(String location) {
+        long id = parseId(location);
+        // a compaction may move the record between the index lookup and the segment lookup
+        for (int attempt = 0; attempt < 2; attempt++) {
+            BlobLocation blob = index.get(id);
+            if (blob == null) {
+                return null;
+            }
+            Segment segment = segments.get(blob.segmentId());
+            if (segment != null) {
+                byte[] bytes = new byte[blob.length()];
+                segment.buffer.get(blob.offset() + HEADER_BYTES, bytes);
+                return bytes;
+            }
+        }
+        return null;
+    }
+
+    public synchronized void delete(String location) throws IOException {
+        long id = parseId(location);
+        BlobLocation removed = index.remove(id);
+        if (removed != null) {
+            segments.get(removed.segmentId()).live.addAndGet(-recordBytes(removed.length()));
+            appendTombstone(id, removed.segmentId());
+        }
+    }
+
+    public static boolean isPackedLocation(String location) {
+        return location != null && location.startsWith(LOCATION_PREFIX);
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        Checkpoint checkpoint = readSnapshot();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(file -> file.toString().endsWith(SEGMENT_SUFFIX)).sorted().toList()) {
+                Segment segment = map(path, segmentIdOf(path));
+                segments.put(segment.id, segment);
+                replay(segment, checkpoint);
+            }
+        }
+        index.values().removeIf(blob -> !segments.containsKey(blob.segmentId()));
+        for (BlobLocation blob : index.values()) {
+            segments.get(blob.segmentId()).live.addAndGet(recordBytes(blob.length()));
+        }
+        active = segments.isEmpty() ? roll(1) : segments.lastEntry().getValue();
+        log.info("Opened packed blob store with {} blobs in {} segments", index.size(), segments.size());
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${application.file.packed.snapshot-interval-millis}")
+    public synchronized void snapshot() {
+        if (active == null) {
+            return;
+        }
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            log.error("Blob store index snapshot failed", e);
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        Segment current = active;
+        current.buffer.force();
+        Path tmp = Files.createTempFile(directory, "index", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(nextId.get());
+            out.writeInt(current.id);
+            out.writeInt(current.end);
+            out.writeInt(index.size());
+            for (Map.Entry<Long, BlobLocation> entry : index.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue().segmentId());
+                out.writeInt(entry.getValue().offset());
+                out.writeInt(entry.getValue().length());
+            }
+        }
+        Files.move(tmp, snapshotPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Scheduled(fixedDelayString = "${application.file.packed.compaction-interval-millis}")
+    public void compact() {
+        for (Segment segment : List.copyOf(segments.values())) {
+            if (segment != active && segment.garbageRatio() >= compactionGarbageRatio) {
+                try {
+                    compact(segment);
+                } catch (IOException e) {
+                    log.error("Compaction of blob segment {} failed", segment.id, e);
+                    return;
+                }
+            }
+        }
+    }
+
+    private synchronized void compact(Segment segment) throws IOException {
+        long reclaimed = segment.end - segment.live.get();
+        int offset = 0;
+        while (offset < segment.end) {
+            long id = segment.buffer.getLong(offset + 4);
+            int length = segment.buffer.getInt(offset + 12);
+            if (length == TOMBSTONE) {
+                // the deleted record may outlive this segment, and a rebuild must not bring it back
+                int deletedFrom = segment.buffer.getInt(offset + HEADER_BYTES);
+                if (deletedFrom != segment.id && segments.containsKey(deletedFrom)) {
+                    appendTombstone(id, deletedFrom);
+                }
+            } else {
+                BlobLocation blob = index.get(id);
+                if (blob != null && blob.segmentId() == segment.id && blob.offset() == offset) {
+                    byte[] bytes = new byte[length];
+                    segment.buffer.get(offset + HEADER_BYTES, bytes);
+                    index.put(id, append(id, length, bytes));
+                }
+            }
+            offset += recordBytes(length);
+        }
+        // the snapshot must cover the copies before the old records and tombstones disappear
+        writeSnapshot();
+        segments.remove(segment.id);
+        Files.deleteIfExists(segment.path);
+        compactedBytes.increment(reclaimed);
+        log.info("Compacted blob segment {}, reclaimed {} bytes", segment.id, reclaimed);
+    }
+
+    private void appendTombstone(long id, int deletedFrom) throws IOException {
+        append(id, TOMBSTONE, ByteBuffer.allocate(TOMBSTONE_BYTES).putInt(deletedFrom).array());
+    }
+
+    private BlobLocation append(long id, int length, byte[] body) throws IOException {
+        int size = HEADER_BYTES + body.length;
+        Segment segment = active;
+        if (segment.end + size > segment.buffer.capacity()) {
+            segment.buffer.force();
+            segment = roll(segment.id + 1);
+        }
+        int offset = segment.end;
+        segment.buffer.putLong(offset + 4, id);
+        segment.buffer.putInt(offset + 12, length);
+        segment.buffer.putInt(offset + 16, checksum(id, length, ByteBuffer.wrap(body)));
+        segment.buffer.put(offset + HEADER_BYTES, body);
+        // the magic last, a reader of the file never sees a header without its record
+        segment.buffer.putInt(offset, MAGIC);
+        if (length != TOMBSTONE) {
+            segment.live.addAndGet(size);
+        }
+        segment.buffer.force(offset, size);
+        segment.end = offset + size;
+        return new BlobLocation(segment.id, offset, Math.max(length, 0));
+    }
+
+    private Segment roll(int segmentId) throws IOException {
+        Segment segment = map(directory.resolve("%08d%s".formatted(segmentId, SEGMENT_SUFFIX)), segmentId);
+        segments.put(segmentId, segment);
+        active = segment;
+        return segment;
+    }
+
+    private Segment map(Path path, int segmentId) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long capacity = Math.max(channel.size(), Math.min(segmentSize.toBytes(), Integer.MAX_VALUE));
+            return new Segment(segmentId, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        }
+    }
+
+    // finds the end of the segment and applies the records the snapshot does not cover yet
+    private void replay(Segment segment, Checkpoint checkpoint) {
+        int offset = 0;
+        while (isIntact(segment, offset)) {
+            long id = segment.buffer.getLong(offset + 4);
+            int length = segment.buffer.getInt(offset + 12);
+            if (checkpoint.precedes(segment.id, offset)) {
+                if (length == TOMBSTONE) {
+                    index.remove(id);
+                } else {
+                    index.put(id, new BlobLocation(segment.id, offset, length));
+                }
+            }
+            nextId.accumulateAndGet(id + 1, Math::max);
+            offset += recordBytes(length);
+        }
+        if (offset + HEADER_BYTES <= segment.buffer.capacity() && segment.buffer.getInt(offset) != 0) {
+            log.warn("Dropping a torn record at offset {} of blob segment {}", offset, segment.id);
+            segment.buffer.putInt(offset, 0);
+            segment.buffer.force(offset, 4);
+        }
+        segment.end = offset;
+    }
+
+    private static boolean isIntact(Segment segment, int offset) {
+        MappedByteBuffer buffer = segment.buffer;
+        if (offset + HEADER_BYTES > buffer.capacity() || buffer.getInt(offset) != MAGIC) {
+            return false;
+        }
+        int length = buffer.getInt(offset + 12);
+        if (length < TOMBSTONE || length > buffer.capacity() - offset - HEADER_BYTES
+                || recordBytes(length) > buffer.capacity() - offset) {
+            return false;
+        }
+        ByteBuffer body = buffer.slice(offset + HEADER_BYTES, recordBytes(length) - HEADER_BYTES);
+        return buffer.getInt(offset + 16) == checksum(buffer.getLong(offset + 4), length, body);
+    }
+
+    private static int checksum(long id, int length, ByteBuffer body) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(12).putLong(id).putInt(length).flip());
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private Checkpoint readSnapshot() {
+        Path path = snapshotPath();
+        if (!Files.exists(path)) {
+            return new Checkpoint(0, 0);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unknown blob index snapshot version");
+            }
+            nextId.set(in.readLong());
+            Checkpoint checkpoint = new Checkpoint(in.readInt(), in.readInt());
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                index.put(in.readLong(), new BlobLocation(in.readInt(), in.readInt(), in.readInt()));
+            }
+            return checkpoint;
+        } catch (IOException e) {
+            log.warn("Blob index snapshot could not be read, rebuilding from the segments", e);
+            index.clear();
+            return new Checkpoint(0, 0);
+        }
+    }
+
+    private Path snapshotPath() {
+        return directory.resolve("index.snapshot");
+    }
+
+    private long liveBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.live.get()).sum();
+    }
+
+    private static int recordBytes(int length) {
+        return HEADER_BYTES + (length == TOMBSTONE ? TOMBSTONE_BYTES : length);
+    }
+
+    private static int segmentIdOf(Path path) {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static long parseId(String location) {
+        return Long.parseLong(location.substring(LOCATION_PREFIX.length()));
+    }
+
+    private record BlobLocation(int segmentId, int offset, int length) {
+    }
+
+    private record Checkpoint(int segmentId, int offset) {
+
+        private boolean precedes(int segment, int position) {
+            return segment > segmentId || (segment == segmentId && position >= offset);
+        }
+    }
+
+    private static final class Segment {
+
+        private final int id;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private final AtomicLong live = new AtomicLong();
+        private volatile int end;
+
+        private Segment(int id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        private double garbageRatio() {
+            return end == 0 ? 0.0 : (end - live.get()) / (double) end;
+        }
+    }
+}
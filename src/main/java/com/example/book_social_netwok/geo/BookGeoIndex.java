@@ -0,0 +1,245 @@
+package com.example.book_social_netwok.geo;
+
+import com.example.book_social_netwok.event.DomainEvent;
+import com.example.book_social_netwok.event.DomainEventHandler;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Uniform latitude/longitude grid over the visible books, positioned at their owner's location.
+ * It is filled once at startup and then kept current from domain events by the single consumer
+ * thread; readers walk the cells around the origin ring by ring and stop as soon as the page
+ * is settled.
+ */
+@Component
+@Slf4j
+public class BookGeoIndex implements DomainEventHandler {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final GeoRepository geoRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Map<Integer, GeoPoint> ownerLocations = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> ownerBooks = new ConcurrentHashMap<>();
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Entry>> cells = new ConcurrentHashMap<>();
+
+    @Value("${application.geo.cell-degrees}")
+    private double cellDegrees;
+    private int latCells;
+    private int lonCells;
+
+    record Entry(Integer bookId, Integer ownerId, GeoPoint point) {
+    }
+
+    record Match(Integer bookId, double distanceKm) {
+    }
+
+    public BookGeoIndex(GeoRepository geoRepository, PlatformTransactionManager transactionManager) {
+        this.geoRepository = geoRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    public void load() {
+        latCells = (int) Math.ceil(180 / cellDegrees);
+        lonCells = (int) Math.ceil(360 / cellDegrees);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<GeoUserRow> users = geoRepository.streamLocatedUsers()) {
+                users.forEach(user -> ownerLocations.put(user.userId(), new GeoPoint(user.latitude(), user.longitude())));
+            }
+            try (Stream<GeoBookRow> books = geoRepository.streamVisibleBooks()) {
+                books.forEach(book -> addBook(book.bookId(), book.ownerId()));
+            }
+        });
+        log.info("Indexed {} located books of {} located owners", entries.size(), ownerLocations.size());
+    }
+
+    @Override
+    public String consumerName() {
+        return "geo-index";
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            switch (event) {
+                case DomainEvent.BookCreated created when created.visible() -> addBook(created.bookId(), created.ownerId());
+                case DomainEvent.BookUpdated updated -> {
+                    if (updated.visible()) {
+                        addBook(updated.bookId(), updated.ownerId());
+                    } else {
+                        removeBook(updated.bookId(), updated.ownerId());
+                    }
+                }
+                case DomainEvent.BooksUpdated updated -> {
+                    updated.shownBookIds().forEach(bookId -> addBook(bookId, updated.ownerId()));
+                    updated.hiddenBookIds().forEach(bookId -> removeBook(bookId, updated.ownerId()));
+                }
+                case DomainEvent.UserLocationChanged moved -> moveOwner(moved.userId(),
+                        moved.latitude() == null || moved.longitude() == null
+                                ? null
+                                : new GeoPoint(moved.latitude(), moved.longitude()));
+                default -> {
+                }
+            }
+        }
+    }
+
+    public Optional<GeoPoint> findOwnerLocation(Integer userId) {
+        return Optional.ofNullable(ownerLocations.get(userId));
+    }
+
+    /**
+     * Up to limit books within radiusKm of origin that sort after the cursor, nearest first.
+     * Cells are visited in rings around the origin's cell; once the page is full and every
+     * unvisited cell is farther away than its last match, the walk stops.
+     */
+    List<Match> findNearby(GeoPoint origin, double radiusKm, Integer excludedOwnerId, GeoCursor after, int limit) {
+        Comparator<Match> order = Comparator.comparingDouble(Match::distanceKm).thenComparing(Match::bookId);
+        PriorityQueue<Match> nearest = new PriorityQueue<>(limit + 1, order.reversed());
+
+        double latSpan = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        double minLat = Math.max(-90, origin.latitude() - latSpan);
+        double maxLat = Math.min(90, origin.latitude() + latSpan);
+        double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        double lonSpan = cosLat < 1e-6 ? 180 : Math.min(180, latSpan / cosLat);
+
+        int fromLat = latIndex(minLat);
+        int toLat = latIndex(maxLat);
+        int fromLon = (int) Math.floor((origin.longitude() - lonSpan + 180) / cellDegrees);
+        int toLon = (int) Math.floor((origin.longitude() + lonSpan + 180) / cellDegrees);
+        if (toLon - fromLon >= lonCells) {
+            toLon = fromLon + lonCells - 1;
+        }
+        int originLat = latIndex(origin.latitude());
+        int originLon = Math.min(toLon, Math.max(fromLon, (int) Math.floor((origin.longitude() + 180) / cellDegrees)));
+        int maxOffset = Math.max(originLon - fromLon, toLon - originLon);
+        int lastRing = Math.max(Math.max(originLat - fromLat, toLat - originLat), maxOffset);
+
+        for (int ring = 0; ring <= lastRing; ring++) {
+            for (int lat = Math.max(fromLat, originLat - ring); lat <= Math.min(toLat, originLat + ring); lat++) {
+                boolean edgeRow = Math.abs(lat - originLat) == ring;
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int lon = originLon - ring; lon <= originLon + ring; lon += step) {
+                    if (lon >= fromLon && lon <= toLon) {
+                        collect(lat, lon, origin, radiusKm, excludedOwnerId, after, limit, order, nearest);
+                    }
+                }
+            }
+            double unvisitedKm = minDistanceBeyond(ring, cosLat, maxOffset);
+            if (unvisitedKm > radiusKm || (nearest.size() == limit && nearest.peek().distanceKm() < unvisitedKm)) {
+                break;
+            }
+        }
+        List<Match> result = new ArrayList<>(nearest);
+        result.sort(order);
+        return result;
+    }
+
+    private void collect(int latIndex, int lon, GeoPoint origin, double radiusKm, Integer excludedOwnerId,
+                         GeoCursor after, int limit, Comparator<Match> order, PriorityQueue<Match> nearest) {
+        Set<Entry> cell = cells.get(cellKey(latIndex, Math.floorMod(lon, lonCells)));
+        if (cell == null) {
+            return;
+        }
+        for (Entry entry : cell) {
+            if (Objects.equals(entry.ownerId(), excludedOwnerId)) {
+                continue;
+            }
+            double distance = origin.distanceKm(entry.point());
+            if (distance > radiusKm || !after.isBefore(distance, entry.bookId())) {
+                continue;
+            }
+            Match match = new Match(entry.bookId(), distance);
+            if (nearest.size() < limit) {
+                nearest.offer(match);
+            } else if (order.compare(match, nearest.peek()) < 0) {
+                nearest.poll();
+                nearest.offer(match);
+            }
+        }
+    }
+
+    /*
+     * Lower bound on the distance from the origin to any point in a cell outside the given ring:
+     * such a cell is more than ring cells away in latitude, or in longitude within the searched
+     * band, whose widest latitude has cosine cosLat.
+     */
+    private double minDistanceBeyond(int ring, double cosLat, int maxOffset) {
+        double latKm = Math.toRadians(ring * cellDegrees) * EARTH_RADIUS_KM;
+        double lonDegrees = Math.max(0, Math.min(ring * cellDegrees, 360 - (maxOffset + 1) * cellDegrees));
+        double lonKm = 2 * EARTH_RADIUS_KM
+                * Math.asin(Math.min(1.0, Math.max(0, cosLat) * Math.sin(Math.toRadians(Math.min(180, lonDegrees) / 2))));
+        return Math.min(latKm, lonKm);
+    }
+
+    private synchronized void addBook(Integer bookId, Integer ownerId) {
+        ownerBooks.computeIfAbsent(ownerId, id -> ConcurrentHashMap.newKeySet()).add(bookId);
+        GeoPoint location = ownerLocations.get(ownerId);
+        if (location != null) {
+            place(new Entry(bookId, ownerId, location));
+        }
+    }
+
+    private synchronized void removeBook(Integer bookId, Integer ownerId) {
+        Set<Integer> books = ownerBooks.get(ownerId);
+        if (books != null) {
+            books.remove(bookId);
+        }
+        unplace(bookId);
+    }
+
+    private synchronized void moveOwner(Integer ownerId, GeoPoint location) {
+        if (location == null) {
+            ownerLocations.remove(ownerId);
+        } else {
+            ownerLocations.put(ownerId, location);
+        }
+        for (Integer bookId : ownerBooks.getOrDefault(ownerId, Set.of())) {
+            unplace(bookId);
+            if (location != null) {
+                place(new Entry(bookId, ownerId, location));
+            }
+        }
+    }
+
+    private void place(Entry entry) {
+        unplace(entry.bookId());
+        cells.computeIfAbsent(cellKey(entry.point()), key -> ConcurrentHashMap.newKeySet()).add(entry);
+        entries.put(entry.bookId(), entry);
+    }
+
+    private void unplace(Integer bookId) {
+        Entry previous = entries.remove(bookId);
+        if (previous != null) {
+            Set<Entry> cell = cells.get(cellKey(previous.point()));
+            if (cell != null) {
+                cell.remove(previous);
+            }
+        }
+    }
+
+    private long cellKey(GeoPoint point) {
+        int lon = Math.floorMod((int) Math.floor((point.longitude() + 180) / cellDegrees), lonCells);
+        return cellKey(latIndex(point.latitude()), lon);
+    }
+
+    private long cellKey(int latIndex, int lonIndex) {
+        return (long) latIndex * lonCells + lonIndex;
+    }
+
+    private int latIndex(double latitude) {
+        return Math.min(latCells - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+    }
+}
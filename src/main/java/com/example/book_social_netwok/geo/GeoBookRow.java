@@ -0,0 +1,7 @@
+package com.example.book_social_netwok.geo;
+
+public record GeoBookRow(
+        Integer bookId,
+        Integer ownerId
+) {
+}
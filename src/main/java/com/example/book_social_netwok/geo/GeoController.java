@@ -0,0 +1,46 @@
+package com.example.book_social_netwok.geo;
+
+import com.example.book_social_netwok.common.CursorPageResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Geo")
+public class GeoController {
+
+    private final GeoService geoService;
+
+    @GetMapping("/books/nearby")
+    public ResponseEntity<CursorPageResponse<NearbyBookResponse>> findNearbyBooks(
+            @RequestParam(name = "lat", required = false) Double latitude,
+            @RequestParam(name = "lon", required = false) Double longitude,
+            @RequestParam(name = "radiusKm", defaultValue = "10", required = false) double radiusKm,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser
+    ){
+        return ResponseEntity.ok(geoService.findNearbyBooks(latitude, longitude, radiusKm, cursor, size, connectedUser));
+    }
+
+    @PutMapping("/users/me/location")
+    public ResponseEntity<Void> updateLocation(
+            @Valid @RequestBody LocationRequest locationRequest,
+            Authentication connectedUser
+    ){
+        geoService.updateLocation(locationRequest, connectedUser);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/users/me/location")
+    public ResponseEntity<Void> clearLocation(
+            Authentication connectedUser
+    ){
+        geoService.clearLocation(connectedUser);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.book_social_netwok.geo;
+
+import com.example.book_social_netwok.exception.OperationNotPermittedException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.INVALID_CURSOR;
+
+/**
+ * Opaque position in a distance-ordered listing: the distance and id of the last book returned.
+ */
+record GeoCursor(double distanceKm, int bookId) {
+
+    static final GeoCursor FIRST = new GeoCursor(-1, Integer.MIN_VALUE);
+
+    static GeoCursor decode(String encoded) {
+        if (encoded == null || encoded.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 2) {
+                throw new OperationNotPermittedException(INVALID_CURSOR);
+            }
+            double distanceKm = Double.parseDouble(parts[0]);
+            if (!Double.isFinite(distanceKm)) {
+                throw new OperationNotPermittedException(INVALID_CURSOR);
+            }
+            return new GeoCursor(distanceKm, Integer.parseInt(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new OperationNotPermittedException(INVALID_CURSOR);
+        }
+    }
+
+    String encode() {
+        String raw = distanceKm + "|" + bookId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    boolean isBefore(double otherDistanceKm, int otherBookId) {
+        return distanceKm < otherDistanceKm || (distanceKm == otherDistanceKm && bookId < otherBookId);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.book_social_netwok.geo;
+
+import com.example.book_social_netwok.book.Book;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface GeoRepository extends Repository<Book, Integer> {
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.example.book_social_netwok.geo.GeoBookRow(book.id, book.owner.id)
+            FROM Book book
+            WHERE book.archived = false
+            AND book.shareable = true
+            """)
+    Stream<GeoBookRow> streamVisibleBooks();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.example.book_social_netwok.geo.GeoUserRow(u.id, u.latitude, u.longitude)
+            FROM User u
+            WHERE u.latitude IS NOT NULL
+            AND u.longitude IS NOT NULL
+            """)
+    Stream<GeoUserRow> streamLocatedUsers();
+}
@@ -0,0 +1,121 @@
+package com.example.book_social_netwok.geo;
+
+import com.example.book_social_netwok.book.BookResponse;
+import com.example.book_social_netwok.book.BookService;
+import com.example.book_social_netwok.common.CursorPageResponse;
+import com.example.book_social_netwok.event.DomainEvent;
+import com.example.book_social_netwok.event.DomainEventPublisher;
+import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.exception.ResourceNotFoundException;
+import com.example.book_social_netwok.user.User;
+import com.example.book_social_netwok.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.USER_NOT_FOUND;
+
+@Service
+@RequiredArgsConstructor
+public class GeoService {
+
+    // two decimals is roughly a kilometre, enough to find neighbours without pinpointing a home
+    private static final double COARSE_FACTOR = 100.0;
+
+    private final BookGeoIndex bookGeoIndex;
+    private final BookService bookService;
+    private final UserRepository userRepository;
+    private final DomainEventPublisher domainEventPublisher;
+
+    @Value("${application.geo.max-radius-km}")
+    private double maxRadiusKm;
+
+    @Value("${application.geo.max-page-size}")
+    private int maxPageSize;
+
+    @Transactional
+    public void updateLocation(LocationRequest locationRequest, Authentication connectedUser) {
+        User user = findUser(connectedUser);
+        Double latitude = coarsen(locationRequest.latitude());
+        Double longitude = coarsen(locationRequest.longitude());
+        user.setLatitude(latitude);
+        user.setLongitude(longitude);
+        domainEventPublisher.publish(new DomainEvent.UserLocationChanged(user.getId(), latitude, longitude));
+    }
+
+    @Transactional
+    public void clearLocation(Authentication connectedUser) {
+        User user = findUser(connectedUser);
+        user.setLatitude(null);
+        user.setLongitude(null);
+        domainEventPublisher.publish(new DomainEvent.UserLocationChanged(user.getId(), null, null));
+    }
+
+    public CursorPageResponse<NearbyBookResponse> findNearbyBooks(
+            Double latitude, Double longitude, double radiusKm, String cursor, int size, Authentication connectedUser
+    ) {
+        User user = (User) connectedUser.getPrincipal();
+        GeoPoint origin = resolveOrigin(latitude, longitude, user);
+        // negated so that NaN is rejected too
+        if (!(radiusKm > 0 && radiusKm <= maxRadiusKm)) {
+            throw new OperationNotPermittedException("The radius must be between 0 and " + maxRadiusKm + " km");
+        }
+        int limit = Math.max(1, Math.min(size, maxPageSize));
+        List<BookGeoIndex.Match> matches = bookGeoIndex.findNearby(origin, radiusKm, user.getId(),
+                GeoCursor.decode(cursor), limit + 1);
+        boolean hasNext = matches.size() > limit;
+        List<BookGeoIndex.Match> page = hasNext ? matches.subList(0, limit) : matches;
+
+        Map<Integer, BookResponse> books = bookService.findAllByIds(page.stream().map(BookGeoIndex.Match::bookId).toList())
+                .stream()
+                .collect(Collectors.toMap(BookResponse::getId, Function.identity()));
+        List<NearbyBookResponse> content = page.stream()
+                .filter(match -> books.containsKey(match.bookId()))
+                .map(match -> NearbyBookResponse.builder()
+                        .book(books.get(match.bookId()))
+                        .distanceKm(Math.round(match.distanceKm() * 10.0) / 10.0)
+                        .build())
+                .toList();
+        String nextCursor = null;
+        if (hasNext) {
+            BookGeoIndex.Match last = page.get(page.size() - 1);
+            nextCursor = new GeoCursor(last.distanceKm(), last.bookId()).encode();
+        }
+        return CursorPageResponse.<NearbyBookResponse>builder()
+                .content(content)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    // loaded and changed as an entity so only this user's second-level cache entry is replaced
+    private User findUser(Authentication connectedUser) {
+        return userRepository.findById(((User) connectedUser.getPrincipal()).getId())
+                .orElseThrow(() -> new ResourceNotFoundException(USER_NOT_FOUND));
+    }
+
+    private GeoPoint resolveOrigin(Double latitude, Double longitude, User user) {
+        if ((latitude == null) != (longitude == null)) {
+            throw new OperationNotPermittedException("Pass both lat and lon, or neither to search around your shared location");
+        }
+        if (latitude != null) {
+            if (!(Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180)) {
+                throw new OperationNotPermittedException("Latitude must be between -90 and 90 and longitude between -180 and 180");
+            }
+            return new GeoPoint(latitude, longitude);
+        }
+        return bookGeoIndex.findOwnerLocation(user.getId())
+                .orElseThrow(() -> new OperationNotPermittedException("Share your location or pass lat and lon to search nearby books"));
+    }
+
+    private static Double coarsen(Double value) {
+        return Math.round(value * COARSE_FACTOR) / COARSE_FACTOR;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.book_social_netwok.geo;
+
+public record GeoUserRow(
+        Integer userId,
+        Double latitude,
+        Double longitude
+) {
+}
@@ -0,0 +1,15 @@
+package com.example.book_social_netwok.geo;
+
+import com.example.book_social_netwok.book.BookResponse;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NearbyBookResponse {
+
+    private BookResponse book;
+    private double distanceKm;
+}
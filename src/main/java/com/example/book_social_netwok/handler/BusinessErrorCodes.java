@@ -12,7 +12,35 @@ public enum BusinessErrorCodes {
     NEW_PASSWORD_DOES_NOT_MATCH(301, BAD_REQUEST, "New Password does not match"),
     ACCOUNT_LOCKED(302, FORBIDDEN, "Account locked"),
     ACCOUNT_DISABLED(303, FORBIDDEN, "Account disabled"),
-    BAD_CREDENTIALS(304, FORBIDDEN, "Login and / or password is incorrect")
+    BAD_CREDENTIALS(304, FORBIDDEN, "Login and / or password is incorrect"),
+    SERVICE_OVERLOADED(305, SERVICE_UNAVAILABLE, "Service is busy, please retry later"),
+    TOO_MANY_REQUESTS(306, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, please retry later"),
+    BOOK_NOT_FOUND(310, NOT_FOUND, "No book found with the requested ID"),
+    FEEDBACK_NOT_FOUND(311, NOT_FOUND, "No feedback found with the requested ID"),
+    RESERVATION_NOT_FOUND(312, NOT_FOUND, "No reservation found"),
+    WAITLIST_NOT_FOUND(313, NOT_FOUND, "No waitlist found for the requested book"),
+    EDITION_NOT_FOUND(314, NOT_FOUND, "No edition found with the requested ISBN"),
+    USER_NOT_FOUND(315, NOT_FOUND, "No user found with the requested ID"),
+    OPERATION_NOT_PERMITTED(320, BAD_REQUEST, "Operation not permitted"),
+    BOOK_NOT_SHAREABLE(321, BAD_REQUEST, "The book is archived or not sharable"),
+    OWN_BOOK(322, BAD_REQUEST, "You cannot borrow, return or give feedback for your own book"),
+    NOT_BOOK_OWNER(323, BAD_REQUEST, "Only the owner of the book can do this"),
+    BOOK_ALREADY_BORROWED(324, BAD_REQUEST, "The requested book is already borrowed"),
+    BOOK_ON_LOAN(325, BAD_REQUEST, "The requested book is currently borrowed, you can join its waitlist"),
+    BOOK_NOT_BORROWED(326, BAD_REQUEST, "You did not borrow this book"),
+    BOOK_NOT_RETURNED(327, BAD_REQUEST, "The book is not returned yet. You cannot approve its return"),
+    BOOK_HELD(328, BAD_REQUEST, "This book is held for another reader"),
+    BOOK_AVAILABLE(329, BAD_REQUEST, "The book is available, you can borrow it directly"),
+    WAITLIST_AHEAD(330, BAD_REQUEST, "Other readers are waiting for this book, you can join its waitlist"),
+    RESERVATION_EXISTS(331, BAD_REQUEST, "You already have a reservation for this book"),
+    RESERVATION_NOT_OWNED(332, BAD_REQUEST, "You cannot cancel others reservations"),
+    RESERVATION_INACTIVE(333, BAD_REQUEST, "This reservation is no longer active"),
+    OWN_FEEDBACK(334, BAD_REQUEST, "You cannot mark your own feedback as helpful"),
+    INVALID_CURSOR(335, BAD_REQUEST, "Invalid cursor"),
+    INVALID_ISBN(336, BAD_REQUEST, "The ISBN is not a valid ISBN-10 or ISBN-13"),
+    INVALID_PAGE(337, BAD_REQUEST, "The page number must not be negative and the page size must be between 1 and 100"),
+    ALREADY_VOTED(338, BAD_REQUEST, "You already marked this feedback as helpful"),
+    FILE_NOT_SAVED(339, INTERNAL_SERVER_ERROR, "The file could not be saved, please retry")
     ;
 
     private final int code;
@@ -0,0 +1,49 @@
+package com.example.book_social_netwok.handler;
+
+import com.example.book_social_netwok.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One prebuilt response and one rejection counter per error code, so answering a business
+ * rejection allocates nothing unless the exception carries its own detail message.
+ */
+@Component
+public class BusinessErrorResponses {
+
+    private final Map<BusinessErrorCodes, ResponseEntity<ExceptionResponse>> templates = new EnumMap<>(BusinessErrorCodes.class);
+    private final Map<BusinessErrorCodes, Counter> rejections = new EnumMap<>(BusinessErrorCodes.class);
+
+    public BusinessErrorResponses(MeterRegistry meterRegistry) {
+        for (BusinessErrorCodes code : BusinessErrorCodes.values()) {
+            templates.put(code, build(code, code.getDescription()));
+            rejections.put(code, Counter.builder("business.rejections")
+                    .description("Requests rejected by a business rule")
+                    .tag("code", code.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    public ResponseEntity<ExceptionResponse> reject(BusinessException ex) {
+        BusinessErrorCodes code = ex.getErrorCode();
+        rejections.get(code).increment();
+        return ex.isDetailed() ? build(code, ex.getMessage()) : templates.get(code);
+    }
+
+    private static ResponseEntity<ExceptionResponse> build(BusinessErrorCodes code, String error) {
+        return ResponseEntity
+                .status(code.getHttpStatus())
+                .body(
+                        ExceptionResponse.builder()
+                                .businessErrorCode(code.getCode())
+                                .businessErrorDescription(code.getDescription())
+                                .error(error)
+                                .build()
+                );
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.book_social_netwok.handler;
 
-import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.exception.BusinessException;
+import com.example.book_social_netwok.exception.ServiceOverloadedException;
 import jakarta.mail.MessagingException;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -18,8 +22,11 @@ import static com.example.book_social_netwok.handler.BusinessErrorCodes.*;
 import static org.springframework.http.HttpStatus.*;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final BusinessErrorResponses businessErrorResponses;
+
     @ExceptionHandler(LockedException.class)
     public ResponseEntity<ExceptionResponse> handle(LockedException ex){
         return ResponseEntity
@@ -70,12 +77,31 @@ public class GlobalExceptionHandler {
                 );
     }
 
-    @ExceptionHandler(OperationNotPermittedException.class)
-    public ResponseEntity<ExceptionResponse> handle(OperationNotPermittedException ex){
+    @ExceptionHandler(BusinessException.class)
+    public ResponseEntity<ExceptionResponse> handle(BusinessException ex){
+        return businessErrorResponses.reject(ex);
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<ExceptionResponse> handle(EntityNotFoundException ex){
         return ResponseEntity
-                .status(BAD_REQUEST)
+                .status(NOT_FOUND)
+                .body(
+                        ExceptionResponse.builder()
+                                .error(ex.getMessage())
+                                .build()
+                );
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ExceptionResponse> handle(ServiceOverloadedException ex){
+        return ResponseEntity
+                .status(SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
                 .body(
                         ExceptionResponse.builder()
+                                .businessErrorCode(SERVICE_OVERLOADED.getCode())
+                                .businessErrorDescription(SERVICE_OVERLOADED.getDescription())
                                 .error(ex.getMessage())
                                 .build()
                 );
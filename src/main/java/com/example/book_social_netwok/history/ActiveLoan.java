@@ -0,0 +1,11 @@
+package com.example.book_social_netwok.history;
+
+public record ActiveLoan(
+        Integer transactionId,
+        String title,
+        Integer ownerId,
+        Integer borrowerId,
+        boolean archived,
+        boolean shareable
+) {
+}
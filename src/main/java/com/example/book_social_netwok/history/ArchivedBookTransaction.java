@@ -0,0 +1,50 @@
+package com.example.book_social_netwok.history;
+
+import com.example.book_social_netwok.book.Book;
+import com.example.book_social_netwok.user.User;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Completed loans moved out of book_transaction_history by {@link HistoryArchiveJob}.
+ * Rows keep the id and audit columns of the original transaction.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "book_transaction_history_archive", indexes = {
+        @Index(name = "idx_history_archive_user", columnList = "user_id, created_date"),
+        @Index(name = "idx_history_archive_book", columnList = "book_id")
+})
+public class ArchivedBookTransaction {
+
+    @Id
+    private Integer id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    private boolean returned;
+    private boolean returnedApproved;
+
+    @Column(nullable = false)
+    private LocalDateTime createdDate;
+    private LocalDateTime lastModifiedDate;
+    @Column(nullable = false)
+    private Integer createdBy;
+    private Integer lastModifiedBy;
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,68 @@
+package com.example.book_social_netwok.history;
+
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface ArchivedBookTransactionRepository extends JpaRepository<ArchivedBookTransaction, Integer> {
+
+    // INSERT IGNORE makes a batch safe to replay if the delete of the hot rows did not commit
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "book_transaction_history_archive"))
+    @Query(value = """
+        INSERT IGNORE INTO book_transaction_history_archive
+            (id, user_id, book_id, returned, returned_approved, created_date, last_modified_date,
+             created_by, last_modified_by, archived_at)
+        SELECT history.id, history.user_id, history.book_id, history.returned, history.returned_approved,
+               history.created_date, history.last_modified_date, history.created_by, history.last_modified_by,
+               CURRENT_TIMESTAMP
+        FROM book_transaction_history history
+        WHERE history.id IN :ids
+        AND history.returned_approved = true
+        """, nativeQuery = true)
+    int copyFromHistory(Collection<Integer> ids);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+               SELECT new com.example.book_social_netwok.history.BookTransactionExportRow(
+                   archived.id, book.id, book.title, book.authorName, book.isbn,
+                   archived.user.id, book.owner.id, archived.returned, archived.returnedApproved,
+                   archived.createdDate, archived.lastModifiedDate)
+               FROM ArchivedBookTransaction archived
+               JOIN archived.book book
+               WHERE archived.user.id = :userId
+               ORDER BY archived.id
+            """)
+    Stream<BookTransactionExportRow> streamBorrowedBooks(Integer userId);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+               SELECT new com.example.book_social_netwok.history.BookTransactionExportRow(
+                   archived.id, book.id, book.title, book.authorName, book.isbn,
+                   archived.user.id, book.owner.id, archived.returned, archived.returnedApproved,
+                   archived.createdDate, archived.lastModifiedDate)
+               FROM ArchivedBookTransaction archived
+               JOIN archived.book book
+               WHERE book.owner.id = :userId
+               ORDER BY archived.id
+            """)
+    Stream<BookTransactionExportRow> streamLentBooks(Integer userId);
+}
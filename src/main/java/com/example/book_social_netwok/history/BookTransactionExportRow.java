@@ -0,0 +1,18 @@
+package com.example.book_social_netwok.history;
+
+import java.time.LocalDateTime;
+
+public record BookTransactionExportRow(
+        Integer transactionId,
+        Integer bookId,
+        String title,
+        String authorName,
+        String isbn,
+        Integer borrowerId,
+        Integer ownerId,
+        boolean returned,
+        boolean returnedApproved,
+        LocalDateTime borrowedAt,
+        LocalDateTime lastModifiedAt
+) {
+}
@@ -3,9 +3,7 @@ package com.example.book_social_netwok.history;
 import com.example.book_social_netwok.book.Book;
 import com.example.book_social_netwok.common.BaseEntity;
 import com.example.book_social_netwok.user.User;
-import jakarta.persistence.Entity;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToOne;
+import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -18,6 +16,11 @@ import lombok.experimental.SuperBuilder;
 @NoArgsConstructor
 @SuperBuilder
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_history_open_loans", columnList = "book_id, user_id, returned_approved"),
+        @Index(name = "idx_history_user_created", columnList = "user_id, created_date"),
+        @Index(name = "idx_history_archivable", columnList = "returned_approved, last_modified_date")
+})
 public class BookTransactionHistory extends BaseEntity {
 
     @ManyToOne
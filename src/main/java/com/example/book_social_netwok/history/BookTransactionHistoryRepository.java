@@ -1,26 +1,77 @@
 package com.example.book_social_netwok.history;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface BookTransactionHistoryRepository extends JpaRepository<BookTransactionHistory, Integer> {
-    @Query("""
-              SELECT history
-              FROM BookTransactionHistory history
-              WHERE history.user.id = :userId
-            """)
-    Page<BookTransactionHistory> findAllBorrowedBooks(Pageable pageable, Integer userId);
+    // rated from the summary row like every other book view, rounded half up as BookRatingSummary.average() does
+    @Query(value = """
+              SELECT loans.id AS transactionId, book.id AS bookId, book.title AS title,
+                     book.author_name AS authorName, book.isbn AS isbn,
+                     FLOOR(summary.note_sum / summary.feedback_count * 10 + 0.5) / 10 AS rate,
+                     loans.returned AS returned, loans.returned_approved AS returnedApproved
+              FROM (
+                  SELECT history.id, history.book_id, history.returned, history.returned_approved, history.created_date
+                  FROM book_transaction_history history
+                  WHERE history.user_id = :userId
+                  UNION ALL
+                  SELECT archived.id, archived.book_id, archived.returned, archived.returned_approved, archived.created_date
+                  FROM book_transaction_history_archive archived
+                  WHERE archived.user_id = :userId
+              ) loans
+              JOIN book book ON book.id = loans.book_id
+              LEFT JOIN book_rating_summary summary ON summary.book_id = book.id AND summary.feedback_count > 0
+              ORDER BY loans.created_date DESC, loans.id DESC
+            """,
+            countQuery = """
+              SELECT (SELECT COUNT(*) FROM book_transaction_history WHERE user_id = :userId)
+                   + (SELECT COUNT(*) FROM book_transaction_history_archive WHERE user_id = :userId)
+            """,
+            nativeQuery = true)
+    Page<BorrowedBookView> findAllBorrowedBooks(Pageable pageable, Integer userId);
 
-    @Query("""
-              SELECT history
-              FROM BookTransactionHistory history
-              WHERE history.book.owner.id = :userId
-            """)
-    Page<BookTransactionHistory> findAllReturnedBooks(Pageable pageable, Integer userId);
+    @Query(value = """
+              SELECT loans.id AS transactionId, book.id AS bookId, book.title AS title,
+                     book.author_name AS authorName, book.isbn AS isbn,
+                     FLOOR(summary.note_sum / summary.feedback_count * 10 + 0.5) / 10 AS rate,
+                     loans.returned AS returned, loans.returned_approved AS returnedApproved
+              FROM (
+                  SELECT history.id, history.book_id, history.returned, history.returned_approved, history.created_date
+                  FROM book_transaction_history history
+                  JOIN book owned ON owned.id = history.book_id
+                  WHERE owned.owner_id = :userId
+                  UNION ALL
+                  SELECT archived.id, archived.book_id, archived.returned, archived.returned_approved, archived.created_date
+                  FROM book_transaction_history_archive archived
+                  JOIN book owned ON owned.id = archived.book_id
+                  WHERE owned.owner_id = :userId
+              ) loans
+              JOIN book book ON book.id = loans.book_id
+              LEFT JOIN book_rating_summary summary ON summary.book_id = book.id AND summary.feedback_count > 0
+              ORDER BY loans.created_date DESC, loans.id DESC
+            """,
+            countQuery = """
+              SELECT (SELECT COUNT(*) FROM book_transaction_history history
+                      JOIN book owned ON owned.id = history.book_id WHERE owned.owner_id = :userId)
+                   + (SELECT COUNT(*) FROM book_transaction_history_archive archived
+                      JOIN book owned ON owned.id = archived.book_id WHERE owned.owner_id = :userId)
+            """,
+            nativeQuery = true)
+    Page<BorrowedBookView> findAllReturnedBooks(Pageable pageable, Integer userId);
 
     @Query("""
               SELECT 
@@ -33,22 +84,102 @@ public interface BookTransactionHistoryRepository extends JpaRepository<BookTran
     boolean isAlreadyBorrowedByUser(Integer bookId, Integer userId);
 
     @Query("""
-               SELECT transaction
+              SELECT
+              (COUNT(*) > 0) isBorrowed
+              FROM BookTransactionHistory bookTransactionHistory
+              WHERE bookTransactionHistory.book.id = :bookId
+              AND bookTransactionHistory.returnedApproved = false
+            """)
+    boolean existsOpenLoan(Integer bookId);
+
+    @Query("""
+               SELECT new com.example.book_social_netwok.history.ActiveLoan(
+                   transaction.id, book.title, book.owner.id, transaction.user.id, book.archived, book.shareable)
                FROM BookTransactionHistory transaction
-               WHERE transaction.book.id = :bookId
+               JOIN transaction.book book
+               WHERE book.id = :bookId
                AND transaction.user.id = :userId
                AND transaction.returned = false
                AND transaction.returnedApproved = false
             """)
-    Optional<BookTransactionHistory> findByBookIdAndUserId(Integer bookId, Integer userId);
+    Optional<ActiveLoan> findByBookIdAndUserId(Integer bookId, Integer userId);
 
     @Query("""
-               SELECT transaction
+               SELECT new com.example.book_social_netwok.history.ActiveLoan(
+                   transaction.id, book.title, book.owner.id, transaction.user.id, book.archived, book.shareable)
                FROM BookTransactionHistory transaction
-               WHERE transaction.book.id = :bookId
-               AND transaction.book.owner.id = :userId
+               JOIN transaction.book book
+               WHERE book.id = :bookId
+               AND book.owner.id = :userId
+               AND transaction.returned = true
+               AND transaction.returnedApproved = false
+            """)
+    Optional<ActiveLoan> findByBookIdAndOwnerId(Integer bookId, Integer userId);
+
+    @Modifying
+    @Query("""
+               UPDATE BookTransactionHistory transaction
+               SET transaction.returned = true,
+                   transaction.lastModifiedDate = :now,
+                   transaction.lastModifiedBy = :userId
+               WHERE transaction.id = :transactionId
+               AND transaction.returned = false
+               AND transaction.returnedApproved = false
+            """)
+    int markReturned(Integer transactionId, Integer userId, LocalDateTime now);
+
+    @Modifying
+    @Query("""
+               UPDATE BookTransactionHistory transaction
+               SET transaction.returnedApproved = true,
+                   transaction.lastModifiedDate = :now,
+                   transaction.lastModifiedBy = :userId
+               WHERE transaction.id = :transactionId
                AND transaction.returned = true
                AND transaction.returnedApproved = false
             """)
-    Optional<BookTransactionHistory> findByBookIdAndOwnerId(Integer bookId, Integer userId);
+    int markReturnApproved(Integer transactionId, Integer userId, LocalDateTime now);
+
+    @Query("""
+               SELECT history.id
+               FROM BookTransactionHistory history
+               WHERE history.returnedApproved = true
+               AND history.lastModifiedDate < :approvedBefore
+               ORDER BY history.id
+            """)
+    List<Integer> findArchivableIds(LocalDateTime approvedBefore, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+               SELECT new com.example.book_social_netwok.history.BookTransactionExportRow(
+                   history.id, book.id, book.title, book.authorName, book.isbn,
+                   history.user.id, book.owner.id, history.returned, history.returnedApproved,
+                   history.createdDate, history.lastModifiedDate)
+               FROM BookTransactionHistory history
+               JOIN history.book book
+               WHERE history.user.id = :userId
+               ORDER BY history.id
+            """)
+    Stream<BookTransactionExportRow> streamBorrowedBooks(Integer userId);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+               SELECT new com.example.book_social_netwok.history.BookTransactionExportRow(
+                   history.id, book.id, book.title, book.authorName, book.isbn,
+                   history.user.id, book.owner.id, history.returned, history.returnedApproved,
+                   history.createdDate, history.lastModifiedDate)
+               FROM BookTransactionHistory history
+               JOIN history.book book
+               WHERE book.owner.id = :userId
+               ORDER BY history.id
+            """)
+    Stream<BookTransactionExportRow> streamLentBooks(Integer userId);
 }
@@ -0,0 +1,20 @@
+package com.example.book_social_netwok.history;
+
+public interface BorrowedBookView {
+
+    Integer getTransactionId();
+
+    Integer getBookId();
+
+    String getTitle();
+
+    String getAuthorName();
+
+    String getIsbn();
+
+    Number getRate();
+
+    Boolean getReturned();
+
+    Boolean getReturnedApproved();
+}
@@ -0,0 +1,85 @@
+package com.example.book_social_netwok.history;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves approved returns from the hot history table into the archive so the active-loan
+ * lookups only ever scan open loans. Each batch is copied and deleted in one transaction.
+ */
+@Component
+@Slf4j
+public class HistoryArchiveJob {
+
+    private final BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    private final ArchivedBookTransactionRepository archivedBookTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter archivedRows;
+    private final AtomicLong hotSize = new AtomicLong();
+
+    // approved loans stay hot for a while, nothing reads them there but it keeps batches away from fresh writes
+    @Value("${application.history.archive.approved-retention}")
+    private Duration approvedRetention;
+
+    @Value("${application.history.archive.batch-size}")
+    private int batchSize;
+
+    @Value("${application.history.archive.max-batches}")
+    private int maxBatches;
+
+    public HistoryArchiveJob(
+            BookTransactionHistoryRepository bookTransactionHistoryRepository,
+            ArchivedBookTransactionRepository archivedBookTransactionRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.bookTransactionHistoryRepository = bookTransactionHistoryRepository;
+        this.archivedBookTransactionRepository = archivedBookTransactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archivedRows = Counter.builder("history.archived")
+                .description("Completed loans moved to the archive table")
+                .register(meterRegistry);
+        Gauge.builder("history.hot.size", hotSize, AtomicLong::get)
+                .description("Rows in the hot history table after the last archive run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.history.archive.interval-millis}")
+    public void archive() {
+        LocalDateTime approvedBefore = LocalDateTime.now().minus(approvedRetention);
+        long moved = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            Integer count = transactionTemplate.execute(status -> {
+                List<Integer> ids = bookTransactionHistoryRepository.findArchivableIds(approvedBefore, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                archivedBookTransactionRepository.copyFromHistory(ids);
+                bookTransactionHistoryRepository.deleteAllByIdInBatch(ids);
+                return ids.size();
+            });
+            moved += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+        archivedRows.increment(moved);
+        hotSize.set(bookTransactionHistoryRepository.count());
+        if (moved > 0) {
+            log.info("Archived {} completed loans", moved);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.book_social_netwok.history;
+
+import com.example.book_social_netwok.user.User;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("books")
+@RequiredArgsConstructor
+@Tag(name = "History export")
+public class HistoryExportController {
+
+    private final HistoryExportService historyExportService;
+
+    @GetMapping("/borrowed/export")
+    public ResponseEntity<StreamingResponseBody> exportBorrowedBooks(
+            @RequestParam(name = "format", defaultValue = "NDJSON", required = false) HistoryExportFormat format,
+            Authentication connectedUser
+    ){
+        User user = (User) connectedUser.getPrincipal();
+        return attachment("borrowed-books", format, historyExportService.exportBorrowedBooks(user.getId(), format));
+    }
+
+    @GetMapping("/returned/export")
+    public ResponseEntity<StreamingResponseBody> exportLentBooks(
+            @RequestParam(name = "format", defaultValue = "NDJSON", required = false) HistoryExportFormat format,
+            Authentication connectedUser
+    ){
+        User user = (User) connectedUser.getPrincipal();
+        return attachment("lent-books", format, historyExportService.exportLentBooks(user.getId(), format));
+    }
+
+    private ResponseEntity<StreamingResponseBody> attachment(String name, HistoryExportFormat format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.book_social_netwok.history;
+
+import lombok.Getter;
+
+@Getter
+public enum HistoryExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv")
+
+    ;
+
+    private final String mediaType;
+    private final String extension;
+
+    HistoryExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+}
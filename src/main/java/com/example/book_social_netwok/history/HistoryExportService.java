@@ -0,0 +1,114 @@
+package com.example.book_social_netwok.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Service
+@Slf4j
+public class HistoryExportService {
+
+    private static final int FLUSH_EVERY_ROWS = 1000;
+    private static final String CSV_HEADER =
+            "transactionId,bookId,title,authorName,isbn,borrowerId,ownerId,returned,returnedApproved,borrowedAt,lastModifiedAt";
+
+    private final BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    private final ArchivedBookTransactionRepository archivedBookTransactionRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public HistoryExportService(
+            BookTransactionHistoryRepository bookTransactionHistoryRepository,
+            ArchivedBookTransactionRepository archivedBookTransactionRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.bookTransactionHistoryRepository = bookTransactionHistoryRepository;
+        this.archivedBookTransactionRepository = archivedBookTransactionRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public StreamingResponseBody exportBorrowedBooks(Integer userId, HistoryExportFormat format) {
+        return export(format, () -> Stream.<Supplier<Stream<BookTransactionExportRow>>>of(
+                () -> archivedBookTransactionRepository.streamBorrowedBooks(userId),
+                () -> bookTransactionHistoryRepository.streamBorrowedBooks(userId)
+        ).flatMap(Supplier::get));
+    }
+
+    public StreamingResponseBody exportLentBooks(Integer userId, HistoryExportFormat format) {
+        return export(format, () -> Stream.<Supplier<Stream<BookTransactionExportRow>>>of(
+                () -> archivedBookTransactionRepository.streamLentBooks(userId),
+                () -> bookTransactionHistoryRepository.streamLentBooks(userId)
+        ).flatMap(Supplier::get));
+    }
+
+    // the transaction, and with it the connection, is only opened once the response body starts being written.
+    // archived loans come first, they are the older ones; flatMap opens and closes one cursor at a time
+    private StreamingResponseBody export(
+            HistoryExportFormat format,
+            Supplier<Stream<BookTransactionExportRow>> query
+    ) {
+        return outputStream -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<BookTransactionExportRow> rows = query.get()) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8));
+                if (format == HistoryExportFormat.CSV) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                long written = 0;
+                for (BookTransactionExportRow row : (Iterable<BookTransactionExportRow>) rows::iterator) {
+                    writer.write(format == HistoryExportFormat.CSV ? toCsv(row) : objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                    if (++written % FLUSH_EVERY_ROWS == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                log.warn("History export aborted: {}", e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private String toCsv(BookTransactionExportRow row) {
+        return String.join(",",
+                String.valueOf(row.transactionId()),
+                String.valueOf(row.bookId()),
+                csvField(row.title()),
+                csvField(row.authorName()),
+                csvField(row.isbn()),
+                String.valueOf(row.borrowerId()),
+                String.valueOf(row.ownerId()),
+                String.valueOf(row.returned()),
+                String.valueOf(row.returnedApproved()),
+                csvField(row.borrowedAt()),
+                csvField(row.lastModifiedAt()));
+    }
+
+    private String csvField(LocalDateTime value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.book_social_netwok.leaderboard;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Getter
+@Setter
+class BookActivity {
+
+    private final Integer bookId;
+    private volatile String title;
+    private volatile String authorName;
+    private volatile boolean visible;
+
+    private final SlidingWindowCounter borrows;
+    private final SlidingWindowCounter feedbacks;
+    // notes are stored in tenths of a star to keep the sum in a single atomic long
+    private final AtomicLong ratingSumTenths = new AtomicLong();
+    private final AtomicLong ratingCount = new AtomicLong();
+
+    BookActivity(Integer bookId, int buckets, long bucketMillis) {
+        this.bookId = bookId;
+        this.borrows = new SlidingWindowCounter(buckets, bucketMillis);
+        this.feedbacks = new SlidingWindowCounter(buckets, bucketMillis);
+    }
+
+    // totals only grow, so a snapshot with fewer ratings than the current one arrived late and is dropped
+    synchronized void updateRating(long count, double noteSum) {
+        if (count >= ratingCount.get()) {
+            ratingSumTenths.set(Math.round(noteSum * 10));
+            ratingCount.set(count);
+        }
+    }
+
+    double averageRating() {
+        long count = ratingCount.get();
+        if (count == 0) {
+            return 0.0;
+        }
+        return Math.round(ratingSumTenths.get() / (double) count) / 10.0;
+    }
+}
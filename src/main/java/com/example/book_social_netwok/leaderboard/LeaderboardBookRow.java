@@ -0,0 +1,16 @@
+package com.example.book_social_netwok.leaderboard;
+
+public record LeaderboardBookRow(
+        Integer bookId,
+        String title,
+        String authorName,
+        boolean archived,
+        boolean shareable,
+        Long feedbackCount,
+        Double noteSum
+) {
+
+    public boolean isVisible() {
+        return !archived && shareable;
+    }
+}
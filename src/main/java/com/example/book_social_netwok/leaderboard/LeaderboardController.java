@@ -0,0 +1,34 @@
+package com.example.book_social_netwok.leaderboard;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("books")
+@RequiredArgsConstructor
+@Tag(name = "Leaderboard")
+public class LeaderboardController {
+
+    private final LeaderboardService leaderboardService;
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<LeaderboardEntryResponse>> findTrendingBooks(
+            @RequestParam(name = "limit", defaultValue = "10", required = false) int limit
+    ){
+        return ResponseEntity.ok(leaderboardService.findTrending(limit));
+    }
+
+    @GetMapping("/top-rated")
+    public ResponseEntity<List<LeaderboardEntryResponse>> findTopRatedBooks(
+            @RequestParam(name = "limit", defaultValue = "10", required = false) int limit
+    ){
+        return ResponseEntity.ok(leaderboardService.findTopRated(limit));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.book_social_netwok.leaderboard;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LeaderboardEntryResponse {
+
+    private Integer bookId;
+    private String title;
+    private String authorName;
+    private double score;
+    private double rate;
+    private long borrows;
+    private long feedbacks;
+}
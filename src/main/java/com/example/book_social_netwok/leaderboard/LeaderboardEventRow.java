@@ -0,0 +1,17 @@
+package com.example.book_social_netwok.leaderboard;
+
+import java.time.LocalDateTime;
+
+public record LeaderboardEventRow(
+        Integer bookId,
+        String title,
+        String authorName,
+        boolean archived,
+        boolean shareable,
+        LocalDateTime occurredAt
+) {
+
+    public boolean isVisible() {
+        return !archived && shareable;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.book_social_netwok.leaderboard;
+
+import com.example.book_social_netwok.book.Book;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface LeaderboardRepository extends Repository<Book, Integer> {
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.example.book_social_netwok.leaderboard.LeaderboardBookRow(
+                book.id, book.title, book.authorName, book.archived, book.shareable,
+                summary.feedbackCount, summary.noteSum)
+            FROM Book book
+            JOIN BookRatingSummary summary ON summary.bookId = book.id
+            WHERE summary.feedbackCount > 0
+            """)
+    Stream<LeaderboardBookRow> streamRatedBooks();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.example.book_social_netwok.leaderboard.LeaderboardEventRow(
+                book.id, book.title, book.authorName, book.archived, book.shareable, history.createdDate)
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE history.createdDate >= :since
+            """)
+    Stream<LeaderboardEventRow> streamBorrowsSince(LocalDateTime since);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.example.book_social_netwok.leaderboard.LeaderboardEventRow(
+                book.id, book.title, book.authorName, book.archived, book.shareable, archived.createdDate)
+            FROM ArchivedBookTransaction archived
+            JOIN archived.book book
+            WHERE archived.createdDate >= :since
+            """)
+    Stream<LeaderboardEventRow> streamArchivedBorrowsSince(LocalDateTime since);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.example.book_social_netwok.leaderboard.LeaderboardEventRow(
+                book.id, book.title, book.authorName, book.archived, book.shareable, feedback.createdDate)
+            FROM Feedback feedback
+            JOIN feedback.book book
+            WHERE feedback.createdDate >= :since
+            """)
+    Stream<LeaderboardEventRow> streamFeedbacksSince(LocalDateTime since);
+}
@@ -0,0 +1,308 @@
+package com.example.book_social_netwok.leaderboard;
+
+import com.example.book_social_netwok.event.DomainEvent;
+import com.example.book_social_netwok.event.DomainEventHandler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class LeaderboardService implements DomainEventHandler {
+
+    private static final int CHECKPOINT_VERSION = 1;
+
+    private final ConcurrentHashMap<Integer, BookActivity> activities = new ConcurrentHashMap<>();
+    private final LeaderboardRepository leaderboardRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private volatile List<LeaderboardEntryResponse> trending = List.of();
+    private volatile List<LeaderboardEntryResponse> topRated = List.of();
+
+    @Value("${application.leaderboard.window-buckets}")
+    private int windowBuckets;
+
+    @Value("${application.leaderboard.bucket-duration-millis}")
+    private long bucketMillis;
+
+    @Value("${application.leaderboard.top-k}")
+    private int topK;
+
+    @Value("${application.leaderboard.min-ratings}")
+    private int minRatings;
+
+    @Value("${application.leaderboard.checkpoint-path}")
+    private String checkpointPath;
+
+    public LeaderboardService(LeaderboardRepository leaderboardRepository, PlatformTransactionManager transactionManager) {
+        this.leaderboardRepository = leaderboardRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public String consumerName() {
+        return "leaderboard";
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        long now = System.currentTimeMillis();
+        for (DomainEvent event : events) {
+            switch (event) {
+                case DomainEvent.BookBorrowed borrowed -> activityFor(borrowed.bookId(), borrowed.title(),
+                        borrowed.authorName(), borrowed.visible()).getBorrows().increment(now);
+                case DomainEvent.FeedbackAdded feedback -> {
+                    BookActivity activity = activityFor(feedback.bookId(), feedback.title(), feedback.authorName(),
+                            feedback.visible());
+                    activity.getFeedbacks().increment(now);
+                    activity.updateRating(feedback.feedbackCount(), feedback.noteSum());
+                }
+                case DomainEvent.BookUpdated updated -> updateVisibility(updated.bookId(), updated.visible());
+                case DomainEvent.BooksUpdated updated -> {
+                    updated.shownBookIds().forEach(bookId -> updateVisibility(bookId, true));
+                    updated.hiddenBookIds().forEach(bookId -> updateVisibility(bookId, false));
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    public void updateVisibility(Integer bookId, boolean visible) {
+        activities.computeIfPresent(bookId, (id, activity) -> {
+            activity.setVisible(visible);
+            return activity;
+        });
+    }
+
+    public List<LeaderboardEntryResponse> findTrending(int limit) {
+        List<LeaderboardEntryResponse> snapshot = trending;
+        return snapshot.subList(0, Math.min(Math.max(limit, 0), snapshot.size()));
+    }
+
+    public List<LeaderboardEntryResponse> findTopRated(int limit) {
+        List<LeaderboardEntryResponse> snapshot = topRated;
+        return snapshot.subList(0, Math.min(Math.max(limit, 0), snapshot.size()));
+    }
+
+    @Scheduled(fixedDelayString = "${application.leaderboard.refresh-interval-millis}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        trending = selectTop(activity -> trendingScore(activity, now), now);
+        topRated = selectTop(this::weightedRating, now);
+    }
+
+    // without a usable checkpoint the boards are rebuilt from the ratings and the loans and feedback of the window
+    @PostConstruct
+    public void restore() {
+        if (!restoreCheckpoint()) {
+            seed();
+        }
+    }
+
+    private boolean restoreCheckpoint() {
+        Path path = Paths.get(checkpointPath);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != CHECKPOINT_VERSION) {
+                log.warn("Ignoring leaderboard checkpoint with unknown version {}", path);
+                return false;
+            }
+            int buckets = in.readInt();
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                BookActivity activity = new BookActivity(in.readInt(), windowBuckets, bucketMillis);
+                activity.setTitle(in.readUTF());
+                activity.setAuthorName(in.readUTF());
+                activity.setVisible(in.readBoolean());
+                activity.getRatingSumTenths().set(in.readLong());
+                activity.getRatingCount().set(in.readLong());
+                readCounter(in, activity.getBorrows(), buckets);
+                readCounter(in, activity.getFeedbacks(), buckets);
+                activities.put(activity.getBookId(), activity);
+            }
+            refresh();
+            log.info("Restored leaderboard activity for {} books", entries);
+            return true;
+        } catch (IOException e) {
+            log.warn("Leaderboard checkpoint could not be read, seeding from the database", e);
+            activities.clear();
+            return false;
+        }
+    }
+
+    private void seed() {
+        LocalDateTime since = LocalDateTime.now().minus(Duration.ofMillis(windowBuckets * bucketMillis));
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<LeaderboardBookRow> books = leaderboardRepository.streamRatedBooks()) {
+                books.forEach(book -> {
+                    BookActivity activity = seededActivity(book.bookId(), book.title(), book.authorName(), book.isVisible());
+                    activity.getRatingSumTenths().set(Math.round(book.noteSum() * 10));
+                    activity.getRatingCount().set(book.feedbackCount());
+                });
+            }
+            try (Stream<LeaderboardEventRow> borrows = leaderboardRepository.streamBorrowsSince(since);
+                 Stream<LeaderboardEventRow> archivedBorrows = leaderboardRepository.streamArchivedBorrowsSince(since)) {
+                Stream.concat(borrows, archivedBorrows).forEach(row -> seededActivity(row).getBorrows().increment(toMillis(row)));
+            }
+            try (Stream<LeaderboardEventRow> feedbacks = leaderboardRepository.streamFeedbacksSince(since)) {
+                feedbacks.forEach(row -> seededActivity(row).getFeedbacks().increment(toMillis(row)));
+            }
+        });
+        refresh();
+        log.info("Seeded leaderboard activity for {} books from the database", activities.size());
+    }
+
+    private BookActivity seededActivity(LeaderboardEventRow row) {
+        return seededActivity(row.bookId(), row.title(), row.authorName(), row.isVisible());
+    }
+
+    private BookActivity seededActivity(Integer bookId, String title, String authorName, boolean visible) {
+        return activities.computeIfAbsent(bookId, id -> {
+            BookActivity activity = new BookActivity(id, windowBuckets, bucketMillis);
+            activity.setTitle(title);
+            activity.setAuthorName(authorName);
+            activity.setVisible(visible);
+            return activity;
+        });
+    }
+
+    private static long toMillis(LeaderboardEventRow row) {
+        return row.occurredAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${application.leaderboard.checkpoint-interval-millis}")
+    public void checkpoint() {
+        Path path = Paths.get(checkpointPath);
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "leaderboard", ".tmp");
+            List<BookActivity> snapshot = new ArrayList<>(activities.values());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeInt(windowBuckets);
+                out.writeInt(snapshot.size());
+                for (BookActivity activity : snapshot) {
+                    out.writeInt(activity.getBookId());
+                    out.writeUTF(nullToEmpty(activity.getTitle()));
+                    out.writeUTF(nullToEmpty(activity.getAuthorName()));
+                    out.writeBoolean(activity.isVisible());
+                    out.writeLong(activity.getRatingSumTenths().get());
+                    out.writeLong(activity.getRatingCount().get());
+                    writeCounter(out, activity.getBorrows());
+                    writeCounter(out, activity.getFeedbacks());
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Leaderboard checkpoint failed", e);
+        }
+    }
+
+    // a new entry starts from the flags the book had when the event was produced, an existing one keeps what updateVisibility set
+    private BookActivity activityFor(Integer bookId, String title, String authorName, boolean visible) {
+        BookActivity activity = activities.computeIfAbsent(bookId, id -> {
+            BookActivity created = new BookActivity(id, windowBuckets, bucketMillis);
+            created.setVisible(visible);
+            return created;
+        });
+        activity.setTitle(title);
+        activity.setAuthorName(authorName);
+        return activity;
+    }
+
+    private List<LeaderboardEntryResponse> selectTop(ToDoubleFunction<BookActivity> scorer, long now) {
+        record Scored(BookActivity activity, double score) {}
+        PriorityQueue<Scored> heap = new PriorityQueue<>(topK + 1, Comparator.comparingDouble(Scored::score));
+        for (BookActivity activity : activities.values()) {
+            if (!activity.isVisible()) {
+                continue;
+            }
+            double score = scorer.applyAsDouble(activity);
+            if (score <= 0) {
+                continue;
+            }
+            heap.offer(new Scored(activity, score));
+            if (heap.size() > topK) {
+                heap.poll();
+            }
+        }
+        List<LeaderboardEntryResponse> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Scored scored = heap.poll();
+            result.add(toEntry(scored.activity(), scored.score(), now));
+        }
+        return List.copyOf(result.reversed());
+    }
+
+    private double trendingScore(BookActivity activity, long now) {
+        return activity.getBorrows().sum(now) + activity.getFeedbacks().sum(now) / 2.0;
+    }
+
+    // bayesian average pulls books with only a handful of ratings towards the neutral note
+    private double weightedRating(BookActivity activity) {
+        long count = activity.getRatingCount().get();
+        if (count < minRatings) {
+            return 0.0;
+        }
+        double sum = activity.getRatingSumTenths().get() / 10.0;
+        return (sum + minRatings * 3.0) / (count + minRatings);
+    }
+
+    private LeaderboardEntryResponse toEntry(BookActivity activity, double score, long now) {
+        return LeaderboardEntryResponse.builder()
+                .bookId(activity.getBookId())
+                .title(activity.getTitle())
+                .authorName(activity.getAuthorName())
+                .score(Math.round(score * 100.0) / 100.0)
+                .rate(activity.averageRating())
+                .borrows(activity.getBorrows().sum(now))
+                .feedbacks(activity.getFeedbacks().sum(now))
+                .build();
+    }
+
+    private void writeCounter(DataOutputStream out, SlidingWindowCounter counter) throws IOException {
+        for (int i = 0; i < counter.size(); i++) {
+            out.writeLong(counter.rawSlot(i));
+        }
+    }
+
+    private void readCounter(DataInputStream in, SlidingWindowCounter counter, int buckets) throws IOException {
+        for (int i = 0; i < buckets; i++) {
+            long slot = in.readLong();
+            if (buckets == counter.size()) {
+                counter.restoreSlot(i, slot);
+            }
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.book_social_netwok.leaderboard;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free time-bucketed counter. Each slot packs the bucket epoch in the high bits
+ * and the count in the low 24 bits so a bucket can be rolled over and incremented
+ * with a single CAS.
+ */
+public class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long bucketMillis;
+    private final AtomicLongArray slots;
+
+    public SlidingWindowCounter(int buckets, long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+        this.slots = new AtomicLongArray(buckets);
+    }
+
+    public void increment(long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        int index = (int) (epoch % slots.length());
+        while (true) {
+            long current = slots.get(index);
+            long slotEpoch = current >>> COUNT_BITS;
+            long next;
+            if (slotEpoch == epoch) {
+                if ((current & COUNT_MASK) == COUNT_MASK) {
+                    return;
+                }
+                next = current + 1;
+            } else if (slotEpoch < epoch) {
+                next = (epoch << COUNT_BITS) | 1;
+            } else {
+                return;
+            }
+            if (slots.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    public long sum(long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        long total = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            long slot = slots.get(i);
+            if (epoch - (slot >>> COUNT_BITS) < slots.length()) {
+                total += slot & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    int size() {
+        return slots.length();
+    }
+
+    long rawSlot(int index) {
+        return slots.get(index);
+    }
+
+    void restoreSlot(int index, long value) {
+        slots.set(index, value);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.book_social_netwok.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JDBC work done by the current thread since {@link #begin()}: statements executed, rows
+ * read or changed, and time spent waiting on the driver. Identical SQL strings are counted
+ * separately so a request repeating the same query per row of an earlier result stands out.
+ * Work handed to another thread is not counted; the only such work, password hashing, runs
+ * no SQL.
+ */
+public final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+    private long statements;
+    private long rows;
+    private long nanos;
+
+    private QueryStats() {
+    }
+
+    public static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    void recordExecution(String sql, long elapsedNanos, long affectedRows) {
+        statements++;
+        nanos += elapsedNanos;
+        rows += Math.max(affectedRows, 0);
+        if (sql != null) {
+            executionsBySql.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    void recordRow() {
+        rows++;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getMillis() {
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * The most repeated statement, when it ran at least {@code threshold} times.
+     */
+    public Map.Entry<String, Integer> mostRepeated(int threshold) {
+        Map.Entry<String, Integer> worst = null;
+        for (Map.Entry<String, Integer> entry : executionsBySql.entrySet()) {
+            if (entry.getValue() >= threshold && (worst == null || entry.getValue() > worst.getValue())) {
+                worst = entry;
+            }
+        }
+        return worst;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.book_social_netwok.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Counts the SQL work of each request. The totals are exposed as request attributes for the
+ * access log (sql.statements, sql.rows, sql.millis), recorded per endpoint, and optionally sent
+ * back as an X-SQL-Stats header, which the query budget tests read. A statement repeated
+ * n-plus-one-threshold times in one request is reported.
+ */
+@Component
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    public static final String STATS_HEADER = "X-SQL-Stats";
+
+    private final MeterRegistry meterRegistry;
+    private final Counter repeatedQueries;
+
+    @Value("${application.query-budget.response-header}")
+    private boolean responseHeader;
+
+    @Value("${application.query-budget.n-plus-one-threshold}")
+    private int nPlusOneThreshold;
+
+    public QueryStatsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.repeatedQueries = Counter.builder("http.sql.repeated")
+                .description("Requests that ran the same statement n-plus-one-threshold times or more")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        QueryStats stats = QueryStats.begin();
+        try {
+            filterChain.doFilter(request, responseHeader ? new StatsHeaderResponse(response, stats) : response);
+        } finally {
+            QueryStats.end();
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats) {
+        request.setAttribute("sql.statements", stats.getStatements());
+        request.setAttribute("sql.rows", stats.getRows());
+        request.setAttribute("sql.millis", stats.getMillis());
+        String endpoint = endpoint(request);
+        DistributionSummary.builder("http.sql.statements")
+                .description("SQL statements run per request")
+                .tag("uri", endpoint)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        Map.Entry<String, Integer> repeated = stats.mostRepeated(nPlusOneThreshold);
+        if (repeated != null) {
+            repeatedQueries.increment();
+            log.warn("Possible N+1 on {} {}: statement ran {} times: {}",
+                    request.getMethod(), endpoint, repeated.getValue(), repeated.getKey());
+        }
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "UNKNOWN" : pattern.toString();
+    }
+
+    // headers must go out before the body, so they are added when the response commits
+    private static final class StatsHeaderResponse extends OnCommittedResponseWrapper {
+
+        private final QueryStats stats;
+
+        private StatsHeaderResponse(HttpServletResponse response, QueryStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            setHeader(STATS_HEADER, "statements=%d;rows=%d;db-ms=%d".formatted(
+                    stats.getStatements(), stats.getRows(), stats.getMillis()));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.book_social_netwok.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how many statements each public method of a {@code @Service} runs, nested calls
+ * included, as service.sql.statements tagged with the method. Outside of a request the
+ * outermost service call opens its own {@link QueryStats}.
+ */
+@Configuration
+public class ServiceQueryStats {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceQueryStatsAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(Service.class, true),
+                new Interceptor(meterRegistry));
+    }
+
+    private static final class Interceptor implements MethodInterceptor {
+
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private final Map<Method, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+        private Interceptor(ObjectProvider<MeterRegistry> meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            QueryStats stats = QueryStats.current();
+            boolean outermost = stats == null;
+            if (outermost) {
+                stats = QueryStats.begin();
+            }
+            long before = stats.getStatements();
+            try {
+                return invocation.proceed();
+            } finally {
+                summaryFor(invocation.getMethod()).record(stats.getStatements() - before);
+                if (outermost) {
+                    QueryStats.end();
+                }
+            }
+        }
+
+        private DistributionSummary summaryFor(Method method) {
+            return summaries.computeIfAbsent(method, key -> DistributionSummary.builder("service.sql.statements")
+                    .description("SQL statements run per service method call")
+                    .tag("method", key.getDeclaringClass().getSimpleName() + "." + key.getName())
+                    .register(meterRegistry.getObject()));
+        }
+    }
+}
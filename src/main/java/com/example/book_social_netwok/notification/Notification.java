@@ -0,0 +1,13 @@
+package com.example.book_social_netwok.notification;
+
+import java.time.Instant;
+
+public record Notification(
+        long id,
+        NotificationType type,
+        Integer bookId,
+        String bookTitle,
+        Integer transactionId,
+        Instant createdAt
+) {
+}
@@ -0,0 +1,30 @@
+package com.example.book_social_netwok.notification;
+
+import com.example.book_social_netwok.user.User;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("notifications")
+@RequiredArgsConstructor
+@Tag(name = "Notification")
+public class NotificationController {
+
+    private final NotificationService notificationService;
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+            Authentication connectedUser
+    ){
+        User user = (User) connectedUser.getPrincipal();
+        return notificationService.subscribe(user.getId(), lastEventId);
+    }
+}
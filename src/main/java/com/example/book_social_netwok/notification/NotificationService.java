@@ -0,0 +1,262 @@
+package com.example.book_social_netwok.notification;
+
+import com.example.book_social_netwok.cache.CacheCoherence;
+import com.example.book_social_netwok.cache.CacheInvalidation;
+import com.example.book_social_netwok.cache.InvalidationBus;
+import com.example.book_social_netwok.event.DomainEvent;
+import com.example.book_social_netwok.event.DomainEventHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes notifications to the open streams of their recipient. Domain events are handled on
+ * the node whose transaction produced them, while the recipient may be connected to any node,
+ * so every notification is also forwarded over the {@link InvalidationBus} and appended, with
+ * the id the producing node gave it, to the recipient's channel on every node. A stream resumed
+ * on another node therefore replays from the same Last-Event-ID. A notification reaches the
+ * other nodes one bus poll later; one that arrives after a newer one was already seen can be
+ * missed by a reconnect in between.
+ */
+@Service
+@Slf4j
+public class NotificationService implements DomainEventHandler {
+
+    private static final String REGION = "notifications";
+
+    private final ConcurrentHashMap<Integer, UserChannel> channels = new ConcurrentHashMap<>();
+    // drain tasks block on socket writes, virtual threads keep that cheap for many slow clients
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final Counter droppedEvents;
+    private final InvalidationBus bus;
+    private final String nodeId;
+
+    @Value("${application.notification.buffer-size}")
+    private int bufferSize;
+
+    @Value("${application.notification.replay-size}")
+    private int replaySize;
+
+    @Value("${application.notification.emitter-timeout-millis}")
+    private long emitterTimeoutMillis;
+
+    public NotificationService(MeterRegistry meterRegistry, InvalidationBus bus, CacheCoherence cacheCoherence) {
+        this.droppedEvents = Counter.builder("notifications.dropped")
+                .description("Events dropped from full per-connection buffers")
+                .register(meterRegistry);
+        Gauge.builder("notifications.connections", openConnections, AtomicInteger::get)
+                .description("Open notification streams")
+                .register(meterRegistry);
+        this.bus = bus;
+        this.nodeId = cacheCoherence.getNodeId();
+        bus.subscribe(this::receive);
+    }
+
+    public SseEmitter subscribe(Integer userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        SseConnection connection = new SseConnection(userId, emitter, bufferSize, senders, droppedEvents::increment);
+        UserChannel channel = channels.compute(userId, (id, existing) -> {
+            UserChannel current = existing != null ? existing : new UserChannel(replaySize);
+            current.connections.add(connection);
+            return current;
+        });
+        openConnections.incrementAndGet();
+        emitter.onCompletion(() -> unregister(channel, connection));
+        emitter.onTimeout(() -> unregister(channel, connection));
+        emitter.onError(e -> unregister(channel, connection));
+        // replay after registering so nothing published in between is lost, duplicates are harmless for the client
+        missedSince(channel, lastEventId).forEach(notification -> connection.enqueue(toEvent(notification)));
+        return emitter;
+    }
+
+    List<Notification> missedSince(Integer userId, String lastEventId) {
+        UserChannel channel = channels.get(userId);
+        return channel == null ? List.of() : missedSince(channel, lastEventId);
+    }
+
+    @Override
+    public String consumerName() {
+        return "notifications";
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            switch (event) {
+                case DomainEvent.BookBorrowed borrowed -> publish(borrowed.ownerId(), NotificationType.BOOK_BORROWED,
+                        borrowed.bookId(), borrowed.title(), borrowed.transactionId());
+                case DomainEvent.BookReturned returned -> publish(returned.ownerId(), NotificationType.BOOK_RETURNED,
+                        returned.bookId(), returned.title(), returned.transactionId());
+                case DomainEvent.ReturnApproved approved -> publish(approved.borrowerId(), NotificationType.RETURN_APPROVED,
+                        approved.bookId(), approved.title(), approved.transactionId());
+                case DomainEvent.HoldOffered offered -> publish(offered.userId(), NotificationType.HOLD_OFFERED,
+                        offered.bookId(), offered.title(), null);
+                default -> {
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.notification.heartbeat-interval-millis}")
+    public void heartbeat() {
+        channels.forEach((userId, channel) -> {
+            for (SseConnection connection : channel.connections) {
+                connection.enqueue(SseEmitter.event().comment("heartbeat"));
+            }
+        });
+        // idle channels only keep their replay ring for a while after the last event
+        channels.keySet().forEach(userId -> channels.computeIfPresent(userId, (id, channel) ->
+                channel.connections.isEmpty() && channel.isStale(replayRetentionMillis()) ? null : channel));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(channel -> channel.connections.forEach(connection -> {
+            connection.close();
+            connection.getEmitter().complete();
+        }));
+        senders.shutdown();
+    }
+
+    private void publish(Integer recipientId, NotificationType type, Integer bookId, String title, Integer transactionId) {
+        UserChannel channel = channels.computeIfAbsent(recipientId, id -> new UserChannel(replaySize));
+        Notification notification = new Notification(channel.nextId(), type, bookId, title, transactionId, Instant.now());
+        deliver(channel, notification);
+        try {
+            bus.publish(new CacheInvalidation(nodeId, notification.id(), REGION, encode(recipientId, notification)));
+        } catch (RuntimeException e) {
+            // the recipient still gets it when connected here
+            log.warn("Could not forward notification {} to the other nodes", notification.id(), e);
+        }
+    }
+
+    private void receive(CacheInvalidation message) {
+        if (REGION.equals(message.region()) && !nodeId.equals(message.origin())) {
+            String[] fields = ((String) message.key()).split("\\|", 7);
+            Integer recipientId = Integer.valueOf(fields[0]);
+            Notification notification = new Notification(
+                    Long.parseLong(fields[1]),
+                    NotificationType.valueOf(fields[2]),
+                    fields[3].isEmpty() ? null : Integer.valueOf(fields[3]),
+                    fields[6],
+                    fields[4].isEmpty() ? null : Integer.valueOf(fields[4]),
+                    Instant.ofEpochMilli(Long.parseLong(fields[5])));
+            deliver(channels.computeIfAbsent(recipientId, id -> new UserChannel(replaySize)), notification);
+        }
+    }
+
+    private void deliver(UserChannel channel, Notification notification) {
+        channel.append(notification);
+        SseEmitter.SseEventBuilder event = toEvent(notification);
+        for (SseConnection connection : channel.connections) {
+            connection.enqueue(event);
+        }
+    }
+
+    // the title goes last, it is the only field that may contain the separator
+    private static String encode(Integer recipientId, Notification notification) {
+        return recipientId + "|" + notification.id() + "|" + notification.type() + "|"
+                + (notification.bookId() == null ? "" : notification.bookId()) + "|"
+                + (notification.transactionId() == null ? "" : notification.transactionId()) + "|"
+                + notification.createdAt().toEpochMilli() + "|"
+                + (notification.bookTitle() == null ? "" : notification.bookTitle());
+    }
+
+    private static List<Notification> missedSince(UserChannel channel, String lastEventId) {
+        long lastSeen = parseEventId(lastEventId);
+        return lastSeen >= 0 ? channel.replayAfter(lastSeen) : List.of();
+    }
+
+    private void unregister(UserChannel channel, SseConnection connection) {
+        if (channel.connections.remove(connection)) {
+            connection.close();
+            openConnections.decrementAndGet();
+        }
+    }
+
+    private long replayRetentionMillis() {
+        return emitterTimeoutMillis * 2;
+    }
+
+    private static SseEmitter.SseEventBuilder toEvent(Notification notification) {
+        return SseEmitter.event()
+                .id(Long.toString(notification.id()))
+                .name(notification.type().name())
+                .data(notification, MediaType.APPLICATION_JSON);
+    }
+
+    private static long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Per-user registry of open streams plus a ring of the latest notifications, numbered by
+     * a per-user sequence that doubles as the SSE event id. The sequence is seeded from the
+     * clock, so ids keep growing when an idle channel is dropped and created again or the
+     * node restarts, and a stale Last-Event-ID never hides newer events. Ids forwarded from
+     * other nodes are kept as they are and only push the sequence further.
+     */
+    private static final class UserChannel {
+
+        private final Set<SseConnection> connections = ConcurrentHashMap.newKeySet();
+        private final Notification[] replay;
+        private long sequence;
+        private long appended;
+        private volatile long lastActivityMillis = System.currentTimeMillis();
+
+        private UserChannel(int replaySize) {
+            this.replay = new Notification[replaySize];
+        }
+
+        // wall clock in microseconds, bumped on ties
+        private synchronized long nextId() {
+            sequence = Math.max(sequence + 1, System.currentTimeMillis() * 1000);
+            return sequence;
+        }
+
+        private synchronized void append(Notification notification) {
+            sequence = Math.max(sequence, notification.id());
+            replay[(int) (appended++ % replay.length)] = notification;
+            lastActivityMillis = System.currentTimeMillis();
+        }
+
+        private synchronized List<Notification> replayAfter(long lastSeen) {
+            List<Notification> missed = new ArrayList<>();
+            for (long index = Math.max(0, appended - replay.length); index < appended; index++) {
+                Notification notification = replay[(int) (index % replay.length)];
+                if (notification.id() > lastSeen) {
+                    missed.add(notification);
+                }
+            }
+            return missed;
+        }
+
+        private boolean isStale(long retentionMillis) {
+            return System.currentTimeMillis() - lastActivityMillis > retentionMillis;
+        }
+    }
+}
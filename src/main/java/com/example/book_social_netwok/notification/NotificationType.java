@@ -0,0 +1,8 @@
+package com.example.book_social_netwok.notification;
+
+public enum NotificationType {
+    BOOK_BORROWED,
+    BOOK_RETURNED,
+    RETURN_APPROVED,
+    HOLD_OFFERED
+}
@@ -0,0 +1,96 @@
+package com.example.book_social_netwok.notification;
+
+import lombok.Getter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open event stream. Events are queued in a bounded buffer and written by a single
+ * drain task at a time, so a slow client only ever costs its own buffer: once full, the
+ * oldest pending event is dropped and the client can catch up through Last-Event-ID.
+ */
+class SseConnection {
+
+    @Getter
+    private final Integer userId;
+    @Getter
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final Executor executor;
+    private final Runnable onDrop;
+    private final ArrayDeque<SseEmitter.SseEventBuilder> pending;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+
+    SseConnection(Integer userId, SseEmitter emitter, int capacity, Executor executor, Runnable onDrop) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.executor = executor;
+        this.onDrop = onDrop;
+        this.pending = new ArrayDeque<>(capacity);
+    }
+
+    void enqueue(SseEmitter.SseEventBuilder event) {
+        if (closed) {
+            return;
+        }
+        synchronized (pending) {
+            if (pending.size() == capacity) {
+                pending.pollFirst();
+                onDrop.run();
+            }
+            pending.addLast(event);
+        }
+        scheduleDrain();
+    }
+
+    void close() {
+        closed = true;
+        synchronized (pending) {
+            pending.clear();
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!closed) {
+                SseEmitter.SseEventBuilder event;
+                synchronized (pending) {
+                    event = pending.pollFirst();
+                }
+                if (event == null) {
+                    break;
+                }
+                emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            close();
+            emitter.completeWithError(e);
+        } finally {
+            draining.set(false);
+        }
+        // an event may have been queued between the last poll and releasing the flag
+        boolean hasPending;
+        synchronized (pending) {
+            hasPending = !pending.isEmpty();
+        }
+        if (hasPending && !closed) {
+            scheduleDrain();
+        }
+    }
+}
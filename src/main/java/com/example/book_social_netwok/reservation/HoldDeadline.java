@@ -0,0 +1,9 @@
+package com.example.book_social_netwok.reservation;
+
+import java.time.LocalDateTime;
+
+public record HoldDeadline(
+        Integer reservationId,
+        LocalDateTime expiresAt
+) {
+}
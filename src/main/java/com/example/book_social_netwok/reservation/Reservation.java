@@ -0,0 +1,43 @@
+package com.example.book_social_netwok.reservation;
+
+import com.example.book_social_netwok.book.Book;
+import com.example.book_social_netwok.common.BaseEntity;
+import com.example.book_social_netwok.user.User;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_reservation_book_ordinal", columnList = "book_id, status, ordinal"),
+        @Index(name = "idx_reservation_user", columnList = "user_id, status"),
+        @Index(name = "idx_reservation_hold_expiry", columnList = "status, hold_expires_at")
+})
+public class Reservation extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    // enqueue order within the book, gaps are left by cancelled and served reservations
+    private long ordinal;
+
+    @Enumerated(EnumType.STRING)
+    private ReservationStatus status;
+
+    private LocalDateTime holdExpiresAt;
+}
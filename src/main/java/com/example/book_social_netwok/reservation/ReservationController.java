@@ -0,0 +1,41 @@
+package com.example.book_social_netwok.reservation;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("reservations")
+@RequiredArgsConstructor
+@Tag(name = "Reservation")
+public class ReservationController {
+
+    private final ReservationService reservationService;
+
+    @PostMapping("/book/{book-id}")
+    public ResponseEntity<ReservationResponse> reserveBook(
+            @PathVariable("book-id") Integer bookId,
+            Authentication connectedUser
+    ){
+        return ResponseEntity.ok(reservationService.reserve(bookId, connectedUser));
+    }
+
+    @GetMapping("/book/{book-id}")
+    public ResponseEntity<ReservationResponse> findReservation(
+            @PathVariable("book-id") Integer bookId,
+            Authentication connectedUser
+    ){
+        return ResponseEntity.ok(reservationService.findReservation(bookId, connectedUser));
+    }
+
+    @DeleteMapping("/{reservation-id}")
+    public ResponseEntity<Void> cancelReservation(
+            @PathVariable("reservation-id") Integer reservationId,
+            Authentication connectedUser
+    ){
+        reservationService.cancel(reservationId, connectedUser);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.book_social_netwok.reservation;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Per-book enqueue sequence. The row is locked for every enqueue, cancel and hand-off,
+ * which serialises state changes for one book without touching the others.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "reservation_queue")
+public class ReservationQueue {
+
+    @Id
+    private Integer bookId;
+    // the ordinal given to the next reservation, only ever grows
+    private long tail;
+}
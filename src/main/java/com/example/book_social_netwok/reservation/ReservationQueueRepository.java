@@ -0,0 +1,32 @@
+package com.example.book_social_netwok.reservation;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Optional;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+public interface ReservationQueueRepository extends JpaRepository<ReservationQueue, Integer> {
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "reservation_queue"))
+    @Query(value = """
+            INSERT IGNORE INTO reservation_queue (book_id, tail)
+            VALUES (:bookId, 0)
+            """, nativeQuery = true)
+    void createIfMissing(Integer bookId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT queue
+            FROM ReservationQueue queue
+            WHERE queue.bookId = :bookId
+            """)
+    Optional<ReservationQueue> findForUpdate(Integer bookId);
+}
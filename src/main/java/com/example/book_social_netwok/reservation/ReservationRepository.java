@@ -0,0 +1,83 @@
+package com.example.book_social_netwok.reservation;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReservationRepository extends JpaRepository<Reservation, Integer> {
+
+    @Query("""
+            SELECT reservation
+            FROM Reservation reservation
+            WHERE reservation.book.id = :bookId
+            AND reservation.user.id = :userId
+            AND reservation.status IN (com.example.book_social_netwok.reservation.ReservationStatus.WAITING,
+                                       com.example.book_social_netwok.reservation.ReservationStatus.HELD)
+            """)
+    Optional<Reservation> findActiveByBookIdAndUserId(Integer bookId, Integer userId);
+
+    @Query("""
+            SELECT reservation.book.id
+            FROM Reservation reservation
+            WHERE reservation.id = :reservationId
+            """)
+    Optional<Integer> findBookIdById(Integer reservationId);
+
+    Optional<Reservation> findFirstByBookIdAndStatusOrderByOrdinal(Integer bookId, ReservationStatus status);
+
+    // positions are counted when read, so a cancellation never rewrites the reservations behind it;
+    // the count walks the book's WAITING entries of idx_reservation_book_ordinal up to the ordinal
+    @Query("""
+            SELECT COUNT(reservation)
+            FROM Reservation reservation
+            WHERE reservation.book.id = :bookId
+            AND reservation.status = com.example.book_social_netwok.reservation.ReservationStatus.WAITING
+            AND reservation.ordinal < :ordinal
+            """)
+    long countWaitingBefore(Integer bookId, long ordinal);
+
+    @Query("""
+            SELECT COUNT(reservation)
+            FROM Reservation reservation
+            WHERE reservation.book.id = :bookId
+            AND reservation.status = com.example.book_social_netwok.reservation.ReservationStatus.WAITING
+            """)
+    long countWaiting(Integer bookId);
+
+    @Query("""
+            SELECT DISTINCT reservation.book.id
+            FROM Reservation reservation
+            WHERE reservation.book.id IN :bookIds
+            AND reservation.status = com.example.book_social_netwok.reservation.ReservationStatus.WAITING
+            """)
+    List<Integer> findBookIdsWithWaiting(Collection<Integer> bookIds);
+
+    @Query("""
+            SELECT reservation
+            FROM Reservation reservation
+            WHERE reservation.book.id = :bookId
+            AND reservation.status = com.example.book_social_netwok.reservation.ReservationStatus.HELD
+            """)
+    Optional<Reservation> findHeldByBookId(Integer bookId);
+
+    @Query("""
+            SELECT new com.example.book_social_netwok.reservation.HoldDeadline(reservation.id, reservation.holdExpiresAt)
+            FROM Reservation reservation
+            WHERE reservation.status = com.example.book_social_netwok.reservation.ReservationStatus.HELD
+            """)
+    List<HoldDeadline> findAllHoldDeadlines();
+
+    @Query("""
+            SELECT reservation.id
+            FROM Reservation reservation
+            WHERE reservation.status = com.example.book_social_netwok.reservation.ReservationStatus.HELD
+            AND reservation.holdExpiresAt <= :now
+            ORDER BY reservation.holdExpiresAt
+            """)
+    List<Integer> findExpiredHoldIds(LocalDateTime now, Pageable pageable);
+}
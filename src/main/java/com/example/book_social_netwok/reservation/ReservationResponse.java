@@ -0,0 +1,20 @@
+package com.example.book_social_netwok.reservation;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReservationResponse {
+
+    private Integer id;
+    private Integer bookId;
+    private ReservationStatus status;
+    private Long position;
+    private long waiting;
+    private LocalDateTime holdExpiresAt;
+}
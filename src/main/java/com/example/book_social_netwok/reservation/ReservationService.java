@@ -0,0 +1,319 @@
+package com.example.book_social_netwok.reservation;
+
+import com.example.book_social_netwok.book.BookFlags;
+import com.example.book_social_netwok.book.BookRepository;
+import com.example.book_social_netwok.event.DomainEvent;
+import com.example.book_social_netwok.event.DomainEventPublisher;
+import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.exception.ResourceNotFoundException;
+import com.example.book_social_netwok.history.BookTransactionHistoryRepository;
+import com.example.book_social_netwok.user.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.*;
+
+/**
+ * FIFO waitlist per book. Reservations take a growing ordinal from the book's queue row and
+ * positions are counted over the index when read, so cancelling touches one row. Every state
+ * change for a book happens under a lock on its queue row. Holds expire through an in-memory
+ * timer wheel that is re-armed from the table once at startup. The wheel only knows the holds
+ * offered on its own node, so a periodic sweep over the expiry index also ends holds whose node
+ * went down. A book that is hidden while a hold ends is offered again when it becomes visible.
+ */
+@Service
+@Slf4j
+public class ReservationService {
+
+    private final ReservationRepository reservationRepository;
+    private final ReservationQueueRepository reservationQueueRepository;
+    private final BookRepository bookRepository;
+    private final BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    private final DomainEventPublisher domainEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+    private final ExecutorService expiryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private TimerWheel timerWheel;
+
+    @Value("${application.reservation.hold-duration}")
+    private Duration holdDuration;
+
+    @Value("${application.reservation.timer.tick}")
+    private Duration timerTick;
+
+    @Value("${application.reservation.timer.wheel-size}")
+    private int wheelSize;
+
+    @Value("${application.reservation.sweep.batch-size}")
+    private int sweepBatchSize;
+
+    public ReservationService(
+            ReservationRepository reservationRepository,
+            ReservationQueueRepository reservationQueueRepository,
+            BookRepository bookRepository,
+            BookTransactionHistoryRepository bookTransactionHistoryRepository,
+            DomainEventPublisher domainEventPublisher,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.reservationRepository = reservationRepository;
+        this.reservationQueueRepository = reservationQueueRepository;
+        this.bookRepository = bookRepository;
+        this.bookTransactionHistoryRepository = bookTransactionHistoryRepository;
+        this.domainEventPublisher = domainEventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void start() {
+        timerWheel = new TimerWheel(timerTick, wheelSize, expiryExecutor, "reservation-holds");
+        reservationRepository.findAllHoldDeadlines()
+                .forEach(deadline -> scheduleExpiry(deadline.reservationId(), deadline.expiresAt()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        timerWheel.close();
+        expiryExecutor.shutdown();
+    }
+
+    @Transactional
+    public ReservationResponse reserve(Integer bookId, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        BookFlags flags = bookRepository.findFlagsById(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException(BOOK_NOT_FOUND));
+        if (!flags.isVisible()) {
+            throw new OperationNotPermittedException(BOOK_NOT_SHAREABLE);
+        }
+        if (Objects.equals(flags.ownerId(), user.getId())) {
+            throw new OperationNotPermittedException(OWN_BOOK);
+        }
+        if (bookTransactionHistoryRepository.isAlreadyBorrowedByUser(bookId, user.getId())) {
+            throw new OperationNotPermittedException(BOOK_ALREADY_BORROWED);
+        }
+
+        reservationQueueRepository.createIfMissing(bookId);
+        ReservationQueue queue = lockQueue(bookId);
+        if (reservationRepository.findActiveByBookIdAndUserId(bookId, user.getId()).isPresent()) {
+            throw new OperationNotPermittedException(RESERVATION_EXISTS);
+        }
+        if (reservationRepository.countWaiting(bookId) == 0
+                && reservationRepository.findHeldByBookId(bookId).isEmpty()
+                && !bookTransactionHistoryRepository.existsOpenLoan(bookId)) {
+            throw new OperationNotPermittedException(BOOK_AVAILABLE);
+        }
+
+        Reservation reservation = Reservation.builder()
+                .book(bookRepository.getReferenceById(bookId))
+                .user(user)
+                .ordinal(queue.getTail())
+                .status(ReservationStatus.WAITING)
+                .build();
+        queue.setTail(queue.getTail() + 1);
+        reservationRepository.save(reservation);
+        return toResponse(reservation, bookId);
+    }
+
+    @Transactional(readOnly = true)
+    public ReservationResponse findReservation(Integer bookId, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        Reservation reservation = reservationRepository.findActiveByBookIdAndUserId(bookId, user.getId())
+                .orElseThrow(() -> new ResourceNotFoundException(RESERVATION_NOT_FOUND));
+        return toResponse(reservation, bookId);
+    }
+
+    @Transactional
+    public void cancel(Integer reservationId, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        Integer bookId = reservationRepository.findBookIdById(reservationId)
+                .orElseThrow(() -> new ResourceNotFoundException(RESERVATION_NOT_FOUND));
+        lockQueue(bookId);
+        Reservation reservation = reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new ResourceNotFoundException(RESERVATION_NOT_FOUND));
+        if (!Objects.equals(reservation.getUser().getId(), user.getId())) {
+            throw new OperationNotPermittedException(RESERVATION_NOT_OWNED);
+        }
+        switch (reservation.getStatus()) {
+            case WAITING -> reservation.setStatus(ReservationStatus.CANCELLED);
+            case HELD -> {
+                reservation.setStatus(ReservationStatus.CANCELLED);
+                offerNext(bookId);
+            }
+            default -> throw new OperationNotPermittedException(RESERVATION_INACTIVE);
+        }
+    }
+
+    /**
+     * Called when a loan is closed or the book becomes visible again, hands the book to the
+     * first waiter if nobody holds it yet.
+     */
+    @Transactional
+    public void handOff(Integer bookId) {
+        if (reservationQueueRepository.findForUpdate(bookId).isPresent()
+                && reservationRepository.findHeldByBookId(bookId).isEmpty()) {
+            offerNext(bookId);
+        }
+    }
+
+    @Transactional
+    public void handOffAll(Collection<Integer> bookIds) {
+        if (!bookIds.isEmpty()) {
+            reservationRepository.findBookIdsWithWaiting(bookIds).forEach(this::handOff);
+        }
+    }
+
+    /**
+     * For callers whose transaction makes books visible: hands them off in a transaction of
+     * their own once the caller's has committed, so a rolled back change offers nothing.
+     */
+    public void handOffAfterCommit(Collection<Integer> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = List.copyOf(bookIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            handOffInNewTransaction(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                handOffInNewTransaction(ids);
+            }
+        });
+    }
+
+    /**
+     * Lets a borrow through only for the holder of the current hold, for the first waiter when
+     * no hold is out, or when nobody is waiting.
+     */
+    @Transactional
+    public void claimHold(Integer bookId, Integer userId) {
+        if (!reservationQueueRepository.existsById(bookId)) {
+            return;
+        }
+        lockQueue(bookId);
+        Reservation held = reservationRepository.findHeldByBookId(bookId).orElse(null);
+        if (held != null) {
+            if (!Objects.equals(held.getUser().getId(), userId)) {
+                throw new OperationNotPermittedException(BOOK_HELD, "This book is held for another reader until " + held.getHoldExpiresAt());
+            }
+            held.setStatus(ReservationStatus.FULFILLED);
+            return;
+        }
+        // nobody was offered the book yet, e.g. it was hidden when the last hold ended: the head waiter may take it
+        Reservation first = reservationRepository.findFirstByBookIdAndStatusOrderByOrdinal(bookId, ReservationStatus.WAITING)
+                .orElse(null);
+        if (first != null) {
+            if (!Objects.equals(first.getUser().getId(), userId)) {
+                throw new OperationNotPermittedException(WAITLIST_AHEAD);
+            }
+            first.setStatus(ReservationStatus.FULFILLED);
+        }
+    }
+
+    // the caller holds the queue lock; a hidden or lent book is offered again by handOff later
+    private void offerNext(Integer bookId) {
+        BookFlags flags = bookRepository.findFlagsById(bookId).orElse(null);
+        if (flags == null || !flags.isVisible() || bookTransactionHistoryRepository.existsOpenLoan(bookId)) {
+            return;
+        }
+        reservationRepository.findFirstByBookIdAndStatusOrderByOrdinal(bookId, ReservationStatus.WAITING).ifPresent(next -> {
+            LocalDateTime expiresAt = LocalDateTime.now().plus(holdDuration);
+            next.setStatus(ReservationStatus.HELD);
+            next.setHoldExpiresAt(expiresAt);
+            domainEventPublisher.publish(new DomainEvent.HoldOffered(bookId, next.getBook().getTitle(),
+                    next.getUser().getId(), next.getId(), expiresAt));
+            Integer reservationId = next.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    scheduleExpiry(reservationId, expiresAt);
+                }
+            });
+        });
+    }
+
+    // one batch per run, a hold that keeps failing must not keep the sweep busy
+    @Scheduled(fixedDelayString = "${application.reservation.sweep.interval-millis}")
+    public void sweepExpiredHolds() {
+        reservationRepository.findExpiredHoldIds(LocalDateTime.now(), PageRequest.of(0, sweepBatchSize))
+                .forEach(this::expireHold);
+    }
+
+    void expireHold(Integer reservationId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Integer bookId = reservationRepository.findBookIdById(reservationId).orElse(null);
+                if (bookId == null) {
+                    return;
+                }
+                lockQueue(bookId);
+                Reservation reservation = reservationRepository.findById(reservationId).orElse(null);
+                if (reservation == null || reservation.getStatus() != ReservationStatus.HELD) {
+                    return;
+                }
+                if (reservation.getHoldExpiresAt().isAfter(LocalDateTime.now())) {
+                    scheduleExpiry(reservationId, reservation.getHoldExpiresAt());
+                    return;
+                }
+                reservation.setStatus(ReservationStatus.EXPIRED);
+                offerNext(bookId);
+            });
+        } catch (RuntimeException e) {
+            log.error("Hold {} could not be expired", reservationId, e);
+        }
+    }
+
+    // the caller's transaction has completed, its resources are still bound to the thread
+    private void handOffInNewTransaction(List<Integer> bookIds) {
+        try {
+            newTransaction.executeWithoutResult(status -> handOffAll(bookIds));
+        } catch (RuntimeException e) {
+            log.error("Books {} could not be handed off to their waitlists", bookIds, e);
+        }
+    }
+
+    private void scheduleExpiry(Integer reservationId, LocalDateTime expiresAt) {
+        timerWheel.schedule(() -> expireHold(reservationId), Duration.between(LocalDateTime.now(), expiresAt));
+    }
+
+    private ReservationQueue lockQueue(Integer bookId) {
+        return reservationQueueRepository.findForUpdate(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException(WAITLIST_NOT_FOUND));
+    }
+
+    private ReservationResponse toResponse(Reservation reservation, Integer bookId) {
+        return ReservationResponse.builder()
+                .id(reservation.getId())
+                .bookId(bookId)
+                .status(reservation.getStatus())
+                .position(reservation.getStatus() == ReservationStatus.WAITING
+                        ? reservationRepository.countWaitingBefore(bookId, reservation.getOrdinal()) + 1
+                        : null)
+                .waiting(reservationRepository.countWaiting(bookId))
+                .holdExpiresAt(reservation.getHoldExpiresAt())
+                .build();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.book_social_netwok.reservation;
+
+public enum ReservationStatus {
+    WAITING,
+    HELD,
+    FULFILLED,
+    EXPIRED,
+    CANCELLED
+}
@@ -1,30 +1,46 @@
 package com.example.book_social_netwok.security;
 
+import com.example.book_social_netwok.role.Role;
+import com.example.book_social_netwok.user.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String AUTHORITIES_CLAIM = "authorities";
+    private static final String TOKEN_VERSION_CLAIM = "ver";
+
     @Value("${application.security.jwt.expiration}")
     private long jwtExpiration;
 
     @Value(value = "${application.security.jwt.secret-key}")
     private String secretKey;
 
+    private Key signInKey;
+
+    @PostConstruct
+    void initSignInKey() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        signInKey = Keys.hmacShaKeyFor(keyBytes);
+    }
+
+    public long getJwtExpiration() {
+        return jwtExpiration;
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -34,10 +50,14 @@ public class JwtService {
         return claimResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
+    /**
+     * Verifies the signature and expiry of an access token in a single parse.
+     * Throws a {@link io.jsonwebtoken.JwtException} when the token cannot be trusted.
+     */
+    public Claims extractAllClaims(String token) {
         return Jwts
                 .parserBuilder()
-                .setSigningKey(getSignInKey())
+                .setSigningKey(signInKey)
                 .build()
                 .parseClaimsJws(token)
                 .getBody();
@@ -52,6 +72,35 @@ public class JwtService {
         return buildToken(claims, userDetails, jwtExpiration);
     }
 
+    // tokens issued before versioning carry no claim and count as version 0
+    public int extractTokenVersion(Claims claims) {
+        Integer version = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Rebuilds the authenticated principal from the token claims alone, so that
+     * authenticating a request does not need the database.
+     */
+    public Optional<User> toPrincipal(Claims claims) {
+        Integer userId = claims.get(USER_ID_CLAIM, Integer.class);
+        if (userId == null || claims.getSubject() == null) {
+            return Optional.empty();
+        }
+        List<?> authorities = claims.get(AUTHORITIES_CLAIM, List.class);
+        List<Role> roles = authorities == null ? List.of() : authorities.stream()
+                .map(authority -> Role.builder().name(String.valueOf(authority)).build())
+                .toList();
+        return Optional.of(User.builder()
+                .id(userId)
+                .email(claims.getSubject())
+                .roles(roles)
+                .enabled(true)
+                .accountLocked(false)
+                .tokenVersion(extractTokenVersion(claims))
+                .build());
+    }
+
     private String buildToken(
             Map<String, Object> extraClaims,
             UserDetails userDetails,
@@ -62,14 +111,21 @@ public class JwtService {
                 .map(GrantedAuthority::getAuthority)
                 .toList();
 
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        if (userDetails instanceof User user) {
+            claims.put(USER_ID_CLAIM, user.getId());
+            claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+        }
+
         return Jwts
                 .builder()
-                .setClaims(extraClaims)
+                .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .claim("authorities", authorities)
-                .signWith(getSignInKey())
+                .claim(AUTHORITIES_CLAIM, authorities)
+                .signWith(signInKey)
                 .compact();
     }
 
@@ -86,10 +142,4 @@ public class JwtService {
         return extractClaim(token, Claims::getExpiration);
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
-
 }
@@ -0,0 +1,39 @@
+package com.example.book_social_netwok.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Versioned hash formats. Stored hashes are prefixed with the id that produced them
+ * (e.g. {bcrypt-12}), so the cost or algorithm can change without invalidating existing
+ * passwords; hashes written before versioning have no prefix and are matched as bcrypt.
+ */
+public final class PasswordEncoders {
+
+    private PasswordEncoders() {
+    }
+
+    public static Map<String, PasswordEncoder> supported() {
+        Map<String, PasswordEncoder> encoders = new LinkedHashMap<>();
+        for (int cost = 10; cost <= 14; cost++) {
+            encoders.put("bcrypt-" + cost, new BCryptPasswordEncoder(cost));
+        }
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        return encoders;
+    }
+
+    public static PasswordEncoder create(String idForEncode) {
+        Map<String, PasswordEncoder> encoders = supported();
+        if (!encoders.containsKey(idForEncode)) {
+            throw new IllegalStateException("Unknown password encoding id: " + idForEncode);
+        }
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(idForEncode, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
+    }
+}
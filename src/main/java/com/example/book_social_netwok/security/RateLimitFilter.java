@@ -0,0 +1,162 @@
+package com.example.book_social_netwok.security;
+
+import com.example.book_social_netwok.handler.ExceptionResponse;
+import com.example.book_social_netwok.user.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.TOO_MANY_REQUESTS;
+
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final long EVICTION_INTERVAL_MILLIS = 10_000;
+
+    private final boolean enabled;
+    private final int maxKeys;
+    private final List<CompiledRoute> routes;
+    private final ConcurrentHashMap<BucketKey, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Counter overflowRequests;
+    private final byte[] rejectionBody;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper) throws IOException {
+        this.enabled = properties.enabled();
+        this.maxKeys = properties.maxKeys();
+        List<RateLimitProperties.Route> configured = properties.routes() == null ? List.of() : properties.routes();
+        this.routes = IntStream.range(0, configured.size())
+                .mapToObj(index -> new CompiledRoute(index, configured.get(index), meterRegistry))
+                .toList();
+        this.overflowRequests = Counter.builder("rate.limit.overflow")
+                .description("Requests rejected because the bucket map was full")
+                .register(meterRegistry);
+        this.rejectionBody = objectMapper.writeValueAsBytes(ExceptionResponse.builder()
+                .businessErrorCode(TOO_MANY_REQUESTS.getCode())
+                .businessErrorDescription(TOO_MANY_REQUESTS.getDescription())
+                .build());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        CompiledRoute route = enabled ? match(request) : null;
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long now = System.nanoTime();
+        TokenBucket bucket = bucketFor(new BucketKey(route.index, subject(request)), route, now);
+        if (bucket == null) {
+            // the map is full of active buckets until the next eviction, an untracked caller is not let through
+            overflowRequests.increment();
+            reject(response, TimeUnit.MILLISECONDS.toNanos(EVICTION_INTERVAL_MILLIS));
+            return;
+        }
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            route.rejected.increment();
+            reject(response, waitNanos);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(rejectionBody);
+    }
+
+    @Scheduled(fixedDelay = EVICTION_INTERVAL_MILLIS)
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private TokenBucket bucketFor(BucketKey key, CompiledRoute route, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            return null;
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(route.emissionIntervalNanos, route.burstNanos, now));
+    }
+
+    private CompiledRoute match(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getServletPath());
+        String method = request.getMethod();
+        for (CompiledRoute route : routes) {
+            if ((route.method == null || route.method.equalsIgnoreCase(method)) && route.pattern.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // authentication endpoints are always keyed by address, everything else by the authenticated user when known
+    private Object subject(HttpServletRequest request) {
+        if (!request.getServletPath().startsWith("/auth")) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof User user) {
+                return user.getId();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private record BucketKey(int route, Object subject) {
+    }
+
+    private static final class CompiledRoute {
+
+        private final int index;
+        private final PathPattern pattern;
+        private final String method;
+        private final long emissionIntervalNanos;
+        private final long burstNanos;
+        private final Counter rejected;
+
+        private CompiledRoute(int index, RateLimitProperties.Route route, MeterRegistry meterRegistry) {
+            this.index = index;
+            this.pattern = PathPatternParser.defaultInstance.parse(route.pattern());
+            this.method = route.method();
+            this.emissionIntervalNanos = route.refillPeriod().toNanos() / route.capacity();
+            this.burstNanos = emissionIntervalNanos * route.capacity();
+            this.rejected = Counter.builder("rate.limit.rejected")
+                    .description("Requests rejected by the rate limiter")
+                    .tag("route", route.name())
+                    .register(meterRegistry);
+        }
+    }
+}
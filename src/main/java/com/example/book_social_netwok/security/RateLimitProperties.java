@@ -0,0 +1,27 @@
+package com.example.book_social_netwok.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "application.rate-limit")
+public record RateLimitProperties(
+        boolean enabled,
+        int maxKeys,
+        List<Route> routes
+) {
+
+    /**
+     * The first route whose pattern and method match a request applies to it.
+     * A null method matches every method.
+     */
+    public record Route(
+            String name,
+            String pattern,
+            String method,
+            int capacity,
+            Duration refillPeriod
+    ) {
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.book_social_netwok.security;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -18,9 +20,11 @@ import static org.springframework.security.config.http.SessionCreationPolicy.STA
 @EnableWebSecurity
 @RequiredArgsConstructor
 @EnableMethodSecurity(securedEnabled = true)
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfig {
 
     private final JwtFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final AuthenticationProvider authenticationProvider;
 
     @Bean
@@ -57,8 +61,18 @@ public class SecurityConfig {
                 // This ensures that JWT token authentication is processed before any username/password authentication.
                 // The jwtAuthFilter checks the validity of the JWT token in the request header and, if valid, sets
                 // the authentication in the SecurityContext, allowing access to protected resources.
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // Rate limiting runs right after the jwtAuthFilter so buckets can be keyed by the authenticated user.
+                .addFilterAfter(rateLimitFilter, JwtFilter.class);
 
         return httpSecurity.build();
     }
+
+    // The rate limiter must only run inside the security chain, not as a standalone servlet filter.
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
 }
@@ -0,0 +1,182 @@
+package com.example.book_social_netwok.security;
+
+import com.example.book_social_netwok.cache.CacheCoherence;
+import com.example.book_social_netwok.user.UserRepository;
+import com.example.book_social_netwok.user.UserTokenVersion;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory revocation of access tokens, checked on every request without touching the database.
+ * Revoked token ids go into a Bloom filter; filters rotate every access-token lifetime and the
+ * previous one is kept for one more lifetime, which covers every token that can still be
+ * presented. A false positive only forces the client through a refresh. Ending every session
+ * of a user is recorded as the lowest token version still accepted for them. Revocations are
+ * replayed on the other nodes through {@link CacheCoherence}. A starting node rebuilds the list
+ * from the token versions stored with the users and from the revocations published within the
+ * last access-token lifetime, older ones only concern tokens that have expired.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final int HASHES = 7;
+    private static final String REVOKED_TOKENS = "revoked-tokens";
+    private static final String REVOKED_USERS = "revoked-users";
+
+    private final long generationMillis;
+    private final int bitsPerGeneration;
+    private final ConcurrentHashMap<String, UserRevocation> usersRevoked = new ConcurrentHashMap<>();
+    private final CacheCoherence cacheCoherence;
+    private final UserRepository userRepository;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+
+    public TokenRevocationList(
+            @Value("${application.security.jwt.expiration}") long accessTokenLifetimeMillis,
+            @Value("${application.security.jwt.revocation.bits-per-generation}") int bitsPerGeneration,
+            CacheCoherence cacheCoherence,
+            UserRepository userRepository
+    ) {
+        this.generationMillis = accessTokenLifetimeMillis;
+        this.bitsPerGeneration = bitsPerGeneration;
+        long now = System.currentTimeMillis();
+        this.current = new BloomFilter(bitsPerGeneration, now);
+        this.previous = new BloomFilter(bitsPerGeneration, now - generationMillis);
+        this.cacheCoherence = cacheCoherence;
+        this.userRepository = userRepository;
+        cacheCoherence.register(REVOKED_TOKENS, this::revokeLocally);
+        cacheCoherence.register(REVOKED_USERS, key -> {
+            if (key != null) {
+                // "<version>:<username>", the version has no colon
+                String revocation = (String) key;
+                int separator = revocation.indexOf(':');
+                revokeAllLocally(revocation.substring(separator + 1),
+                        Integer.parseInt(revocation.substring(0, separator)));
+            }
+        });
+    }
+
+    @PostConstruct
+    public void restore() {
+        Duration lifetime = Duration.ofMillis(generationMillis);
+        for (UserTokenVersion user : userRepository.findTokenVersionsModifiedSince(LocalDateTime.now().minus(lifetime))) {
+            revokeAllLocally(user.email(), user.tokenVersion());
+        }
+        cacheCoherence.replay(REVOKED_TOKENS, lifetime);
+        cacheCoherence.replay(REVOKED_USERS, lifetime);
+    }
+
+    public void revoke(String tokenId) {
+        if (tokenId != null) {
+            revokeLocally(tokenId);
+            cacheCoherence.publish(REVOKED_TOKENS, tokenId);
+        }
+    }
+
+    /**
+     * Revokes every access token issued to the user for a version below {@code validFromVersion},
+     * e.g. on lockout, password change or refresh token reuse.
+     */
+    public void revokeAllFor(String username, int validFromVersion) {
+        revokeAllLocally(username, validFromVersion);
+        cacheCoherence.publish(REVOKED_USERS, validFromVersion + ":" + username);
+    }
+
+    public boolean isRevoked(String tokenId, String username, int tokenVersion) {
+        UserRevocation revocation = usersRevoked.get(username);
+        if (revocation != null && tokenVersion < revocation.validFromVersion()) {
+            return true;
+        }
+        if (tokenId == null) {
+            return false;
+        }
+        BloomFilter active = rotateIfNeeded(System.currentTimeMillis());
+        return active.mightContain(tokenId) || previous.mightContain(tokenId);
+    }
+
+    private void revokeAllLocally(String username, int validFromVersion) {
+        usersRevoked.merge(username, new UserRevocation(validFromVersion, System.currentTimeMillis()),
+                (old, revocation) -> old.validFromVersion() >= validFromVersion ? old : revocation);
+    }
+
+    private void revokeLocally(Object tokenId) {
+        if (tokenId != null) {
+            rotateIfNeeded(System.currentTimeMillis()).add((String) tokenId);
+        }
+    }
+
+    private BloomFilter rotateIfNeeded(long now) {
+        BloomFilter active = current;
+        if (now - active.createdAt < generationMillis) {
+            return active;
+        }
+        synchronized (this) {
+            if (now - current.createdAt >= generationMillis) {
+                previous = current;
+                current = new BloomFilter(bitsPerGeneration, now);
+                // every token below the version has expired one lifetime after the revocation
+                usersRevoked.values().removeIf(revocation -> now - revocation.recordedAt() > generationMillis);
+            }
+            return current;
+        }
+    }
+
+    private record UserRevocation(int validFromVersion, long recordedAt) {
+    }
+
+    private static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final int bits;
+        private final long createdAt;
+
+        private BloomFilter(int bits, long createdAt) {
+            this.words = new AtomicLongArray((bits + 63) >>> 6);
+            this.bits = words.length() << 6;
+            this.createdAt = createdAt;
+        }
+
+        private void add(String value) {
+            long hash = mix(value.hashCode());
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                int word = bit >>> 6;
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = words.get(word);
+                } while ((old & mask) == 0 && !words.compareAndSet(word, old, old | mask));
+            }
+        }
+
+        private boolean mightContain(String value) {
+            long hash = mix(value.hashCode());
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // splitmix64 finalizer, spreads the 32-bit String hash over two independent halves
+        private static long mix(long value) {
+            long z = value + 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.book_social_netwok.security;
 
+import com.example.book_social_netwok.user.User;
 import com.example.book_social_netwok.user.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -10,7 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -20,4 +22,16 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         return userRepository.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        // an entity update replaces this user's cache entry, a bulk UPDATE would drop the whole region
+        userRepository.findByEmail(userDetails.getUsername())
+                .ifPresent(user -> user.setPassword(newPassword));
+        if (userDetails instanceof User user) {
+            user.setPassword(newPassword);
+        }
+        return userDetails;
+    }
 }
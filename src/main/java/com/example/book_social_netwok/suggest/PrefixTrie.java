@@ -0,0 +1,164 @@
+package com.example.book_social_netwok.suggest;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable compressed trie over suggestion keys. Chains of single-child nodes are merged into
+ * one edge label, children are kept in a char array searched by binary search, and every node
+ * stores the indexes of the best {@code topK} suggestions below it, so a lookup costs the length
+ * of the prefix and never visits the subtree.
+ */
+final class PrefixTrie {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Comparator<Suggestion> RANKING = Comparator.comparingLong(Suggestion::score).reversed()
+            .thenComparing(Suggestion::text);
+
+    // declared after the patterns and the ranking it is built with
+    static final PrefixTrie EMPTY = build(List.of(), List.of(), 0);
+
+    record Suggestion(String id, SuggestionType type, String text, Integer bookId, long score) {
+    }
+
+    record Key(String key, int suggestion) {
+    }
+
+    private final List<Suggestion> suggestions;
+    private final Node root;
+
+    private PrefixTrie(List<Suggestion> suggestions, Node root) {
+        this.suggestions = suggestions;
+        this.root = root;
+    }
+
+    static PrefixTrie build(List<Suggestion> suggestions, List<Key> keys, int topK) {
+        List<Key> sorted = new ArrayList<>(keys);
+        sorted.sort(Comparator.comparing(Key::key));
+        return new PrefixTrie(List.copyOf(suggestions), new Builder(suggestions, sorted, topK).node(0, sorted.size(), 0, ""));
+    }
+
+    int size() {
+        return suggestions.size();
+    }
+
+    /**
+     * Best suggestions under an already normalized prefix, best first.
+     */
+    List<Suggestion> lookup(String prefix) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            int child = Arrays.binarySearch(node.firstChars, prefix.charAt(position));
+            if (child < 0) {
+                return List.of();
+            }
+            node = node.children[child];
+            int compared = Math.min(node.label.length(), prefix.length() - position);
+            if (!prefix.regionMatches(position, node.label, 0, compared)) {
+                return List.of();
+            }
+            position += node.label.length();
+        }
+        List<Suggestion> result = new ArrayList<>(node.top.length);
+        for (int index : node.top) {
+            result.add(suggestions.get(index));
+        }
+        return result;
+    }
+
+    /**
+     * Lower case without accents and with single spaces, applied to keys and typed prefixes alike.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+    }
+
+    /**
+     * The whole normalized text plus every word-start suffix, so "rings" finds "the lord of the rings".
+     */
+    static List<String> keysOf(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        List<String> keys = new ArrayList<>();
+        keys.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            if (normalized.length() - i > 2) {
+                keys.add(normalized.substring(i + 1));
+            }
+        }
+        return keys;
+    }
+
+    static Comparator<Suggestion> ranking() {
+        return RANKING;
+    }
+
+    private static final class Node {
+
+        private final String label;
+        private final char[] firstChars;
+        private final Node[] children;
+        private final int[] top;
+
+        private Node(String label, char[] firstChars, Node[] children, int[] top) {
+            this.label = label;
+            this.firstChars = firstChars;
+            this.children = children;
+            this.top = top;
+        }
+    }
+
+    private record Builder(List<Suggestion> suggestions, List<Key> keys, int topK) {
+
+        // keys[from, to) share their first depth chars; the shorter ones sort first
+        private Node node(int from, int to, int depth, String label) {
+            List<Integer> candidates = new ArrayList<>();
+            int i = from;
+            while (i < to && keys.get(i).key().length() == depth) {
+                candidates.add(keys.get(i).suggestion());
+                i++;
+            }
+            List<Node> children = new ArrayList<>();
+            StringBuilder firstChars = new StringBuilder();
+            while (i < to) {
+                char c = keys.get(i).key().charAt(depth);
+                int end = i;
+                while (end < to && keys.get(end).key().charAt(depth) == c) {
+                    end++;
+                }
+                String first = keys.get(i).key();
+                String last = keys.get(end - 1).key();
+                int shared = depth + 1;
+                while (shared < first.length() && shared < last.length() && first.charAt(shared) == last.charAt(shared)) {
+                    shared++;
+                }
+                Node child = node(i, end, shared, first.substring(depth, shared));
+                children.add(child);
+                firstChars.append(c);
+                for (int index : child.top) {
+                    candidates.add(index);
+                }
+                i = end;
+            }
+            return new Node(label, firstChars.toString().toCharArray(), children.toArray(Node[]::new), best(candidates));
+        }
+
+        private int[] best(List<Integer> candidates) {
+            return candidates.stream()
+                    .distinct()
+                    .sorted(Comparator.comparing(suggestions::get, RANKING))
+                    .limit(topK)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.book_social_netwok.suggest;
+
+public record SuggestRow(
+        Integer bookId,
+        String title,
+        String authorName,
+        Long borrows,
+        Long feedbackCount,
+        Double noteSum
+) {
+}
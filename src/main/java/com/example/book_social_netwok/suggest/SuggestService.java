@@ -0,0 +1,232 @@
+package com.example.book_social_netwok.suggest;
+
+import com.example.book_social_netwok.book.BookRepository;
+import com.example.book_social_netwok.event.DomainEvent;
+import com.example.book_social_netwok.event.DomainEventHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Type-ahead over visible book titles and author names, ranked by borrows and then rating.
+ * Lookups read an immutable {@link PrefixTrie} rebuilt in the background from the database;
+ * between rebuilds domain events collect small deltas (new books, hidden books, extra borrows)
+ * that are merged into each answer. A delta arriving while a rebuild reads the database may be
+ * counted twice until the next rebuild.
+ */
+@Service
+@Slf4j
+public class SuggestService implements DomainEventHandler {
+
+    private static final long BORROW_WEIGHT = 100;
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private volatile Snapshot snapshot = new Snapshot(PrefixTrie.EMPTY, new Deltas(), 0);
+    private volatile Deltas collecting;
+
+    @Value("${application.suggest.top-k}")
+    private int topK;
+
+    @Value("${application.suggest.rebuild-interval}")
+    private Duration rebuildInterval;
+
+    @Value("${application.suggest.max-pending-deltas}")
+    private int maxPendingDeltas;
+
+    public SuggestService(BookRepository bookRepository, PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        String normalized = PrefixTrie.normalize(prefix);
+        int size = Math.min(Math.max(limit, 0), topK);
+        if (normalized.isEmpty() || size == 0) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        Deltas deltas = current.deltas();
+        Map<String, PrefixTrie.Suggestion> merged = new LinkedHashMap<>();
+        for (PrefixTrie.Suggestion suggestion : current.trie().lookup(normalized)) {
+            merged.put(suggestion.id(), suggestion);
+        }
+        for (Added added : deltas.added.values()) {
+            if (added.keys().stream().anyMatch(key -> key.startsWith(normalized))) {
+                merged.putIfAbsent(added.suggestion().id(), added.suggestion());
+            }
+        }
+        return merged.values().stream()
+                .filter(suggestion -> suggestion.bookId() == null || !deltas.hidden.contains(suggestion.bookId()))
+                .map(suggestion -> withDelta(suggestion, deltas.scores.getOrDefault(suggestion.id(), 0L)))
+                .sorted(PrefixTrie.ranking())
+                .limit(size)
+                .map(suggestion -> SuggestionResponse.builder()
+                        .type(suggestion.type())
+                        .text(suggestion.text())
+                        .bookId(suggestion.bookId())
+                        .score(suggestion.score())
+                        .build())
+                .toList();
+    }
+
+    @Override
+    public String consumerName() {
+        return "suggest";
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            apply(snapshot.deltas(), event);
+            Deltas next = collecting;
+            if (next != null) {
+                apply(next, event);
+            }
+        }
+    }
+
+    // the first run happens right after startup and builds the initial trie
+    @Scheduled(fixedDelayString = "${application.suggest.check-interval-millis}")
+    public void rebuildIfStale() {
+        Snapshot current = snapshot;
+        boolean expired = System.currentTimeMillis() - current.builtAt() >= rebuildInterval.toMillis();
+        if (expired || current.deltas().size() >= maxPendingDeltas) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        Deltas next = new Deltas();
+        collecting = next;
+        try {
+            PrefixTrie trie = readOnlyTransaction.execute(status -> {
+                try (Stream<SuggestRow> rows = bookRepository.streamSuggestRows()) {
+                    return build(rows);
+                }
+            });
+            snapshot = new Snapshot(trie, next, start);
+            log.info("Rebuilt suggestions with {} entries in {} ms", trie.size(), System.currentTimeMillis() - start);
+        } finally {
+            collecting = null;
+        }
+    }
+
+    private PrefixTrie build(Stream<SuggestRow> rows) {
+        List<PrefixTrie.Suggestion> suggestions = new ArrayList<>();
+        List<PrefixTrie.Key> keys = new ArrayList<>();
+        Map<String, Long> authorScores = new HashMap<>();
+        Map<String, String> authorNames = new HashMap<>();
+        rows.forEach(row -> {
+            long score = score(row);
+            int index = suggestions.size();
+            suggestions.add(new PrefixTrie.Suggestion(titleId(row.bookId()), SuggestionType.TITLE, row.title(),
+                    row.bookId(), score));
+            PrefixTrie.keysOf(row.title()).forEach(key -> keys.add(new PrefixTrie.Key(key, index)));
+            String author = PrefixTrie.normalize(row.authorName());
+            if (!author.isEmpty()) {
+                authorScores.merge(author, score, Long::sum);
+                authorNames.putIfAbsent(author, row.authorName());
+            }
+        });
+        authorScores.forEach((author, score) -> {
+            int index = suggestions.size();
+            suggestions.add(new PrefixTrie.Suggestion(authorId(author), SuggestionType.AUTHOR, authorNames.get(author),
+                    null, score));
+            PrefixTrie.keysOf(author).forEach(key -> keys.add(new PrefixTrie.Key(key, index)));
+        });
+        return PrefixTrie.build(suggestions, keys, topK);
+    }
+
+    private static void apply(Deltas deltas, DomainEvent event) {
+        switch (event) {
+            case DomainEvent.BookCreated created when created.visible() -> {
+                deltas.add(new PrefixTrie.Suggestion(titleId(created.bookId()), SuggestionType.TITLE,
+                        created.title(), created.bookId(), 0));
+                String author = PrefixTrie.normalize(created.authorName());
+                if (!author.isEmpty()) {
+                    deltas.add(new PrefixTrie.Suggestion(authorId(author), SuggestionType.AUTHOR,
+                            created.authorName(), null, 0));
+                }
+            }
+            case DomainEvent.BookUpdated updated -> {
+                if (updated.visible()) {
+                    deltas.hidden.remove(updated.bookId());
+                } else {
+                    deltas.hidden.add(updated.bookId());
+                }
+            }
+            case DomainEvent.BooksUpdated updated -> {
+                updated.shownBookIds().forEach(deltas.hidden::remove);
+                deltas.hidden.addAll(updated.hiddenBookIds());
+            }
+            case DomainEvent.BookBorrowed borrowed -> {
+                deltas.scores.merge(titleId(borrowed.bookId()), BORROW_WEIGHT, Long::sum);
+                String author = PrefixTrie.normalize(borrowed.authorName());
+                if (!author.isEmpty()) {
+                    deltas.scores.merge(authorId(author), BORROW_WEIGHT, Long::sum);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    // borrows first, the average rating in tenths only separates books borrowed equally often
+    private static long score(SuggestRow row) {
+        long borrows = row.borrows() == null ? 0 : row.borrows();
+        long ratingTenths = 0;
+        if (row.feedbackCount() != null && row.feedbackCount() > 0 && row.noteSum() != null) {
+            ratingTenths = Math.round(row.noteSum() / row.feedbackCount() * 10.0);
+        }
+        return borrows * BORROW_WEIGHT + ratingTenths;
+    }
+
+    private static PrefixTrie.Suggestion withDelta(PrefixTrie.Suggestion suggestion, long delta) {
+        if (delta == 0) {
+            return suggestion;
+        }
+        return new PrefixTrie.Suggestion(suggestion.id(), suggestion.type(), suggestion.text(), suggestion.bookId(),
+                suggestion.score() + delta);
+    }
+
+    private static String titleId(Integer bookId) {
+        return "t:" + bookId;
+    }
+
+    private static String authorId(String normalizedAuthor) {
+        return "a:" + normalizedAuthor;
+    }
+
+    private record Snapshot(PrefixTrie trie, Deltas deltas, long builtAt) {
+    }
+
+    private record Added(PrefixTrie.Suggestion suggestion, List<String> keys) {
+    }
+
+    private static final class Deltas {
+
+        private final Map<String, Added> added = new ConcurrentHashMap<>();
+        private final Set<Integer> hidden = ConcurrentHashMap.newKeySet();
+        private final Map<String, Long> scores = new ConcurrentHashMap<>();
+
+        private void add(PrefixTrie.Suggestion suggestion) {
+            added.putIfAbsent(suggestion.id(), new Added(suggestion, PrefixTrie.keysOf(suggestion.text())));
+        }
+
+        private int size() {
+            return added.size() + hidden.size() + scores.size();
+        }
+    }
+}
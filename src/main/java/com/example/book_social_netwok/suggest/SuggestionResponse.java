@@ -0,0 +1,16 @@
+package com.example.book_social_netwok.suggest;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SuggestionResponse {
+
+    private SuggestionType type;
+    private String text;
+    private Integer bookId;
+    private long score;
+}
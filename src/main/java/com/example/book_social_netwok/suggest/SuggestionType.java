@@ -0,0 +1,6 @@
+package com.example.book_social_netwok.suggest;
+
+public enum SuggestionType {
+    TITLE,
+    AUTHOR
+}
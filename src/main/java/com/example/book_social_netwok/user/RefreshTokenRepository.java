@@ -0,0 +1,41 @@
+package com.example.book_social_netwok.user;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Integer> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // only one of two concurrent refreshes with the same token sees 1
+    @Modifying
+    @Query("""
+            UPDATE RefreshToken token
+            SET token.revokedAt = :revokedAt
+            WHERE token.id = :id
+            AND token.revokedAt IS NULL
+            """)
+    int revokeIfActive(Integer id, LocalDateTime revokedAt);
+
+    @Modifying
+    @Query("""
+            UPDATE RefreshToken token
+            SET token.revokedAt = :revokedAt
+            WHERE token.familyId = :familyId
+            AND token.revokedAt IS NULL
+            """)
+    int revokeFamily(String familyId, LocalDateTime revokedAt);
+
+    @Modifying
+    @Query("""
+            UPDATE RefreshToken token
+            SET token.revokedAt = :revokedAt
+            WHERE token.user.id = :userId
+            AND token.revokedAt IS NULL
+            """)
+    int revokeAllForUser(Integer userId, LocalDateTime revokedAt);
+}
@@ -11,6 +11,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
+// codes are only unique per user, activation looks them up together with the user's email
+@Table(indexes = {
+        @Index(name = "uk_token_user_token", columnList = "user_id, token", unique = true),
+        @Index(name = "idx_token_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_token_validated_at", columnList = "validated_at")
+})
 public class Token {
 
     @Id
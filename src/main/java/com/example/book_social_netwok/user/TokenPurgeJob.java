@@ -0,0 +1,82 @@
+package com.example.book_social_netwok.user;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class TokenPurgeJob {
+
+    private final TokenRepository tokenRepository;
+    private final Counter purgedTokens;
+    private final AtomicLong tableSize = new AtomicLong();
+    private final AtomicLong purgeLagSeconds = new AtomicLong();
+
+    // expired codes are kept for a while so activateAccount can still resend a fresh one
+    @Value("${application.token.purge.expired-retention}")
+    private Duration expiredRetention;
+
+    @Value("${application.token.purge.batch-size}")
+    private int batchSize;
+
+    @Value("${application.token.purge.max-batches}")
+    private int maxBatches;
+
+    public TokenPurgeJob(TokenRepository tokenRepository, MeterRegistry meterRegistry) {
+        this.tokenRepository = tokenRepository;
+        this.purgedTokens = Counter.builder("activation.tokens.purged")
+                .description("Activation tokens deleted by the purge job")
+                .register(meterRegistry);
+        Gauge.builder("activation.tokens.size", tableSize, AtomicLong::get)
+                .description("Rows in the activation token table at the last purge")
+                .register(meterRegistry);
+        Gauge.builder("activation.tokens.purge.lag", purgeLagSeconds, AtomicLong::get)
+                .description("Age in seconds of the oldest purgeable token left after the last purge")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.token.purge.interval-millis}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiredBefore = now.minus(expiredRetention);
+        long deleted = deleteInBatches(() -> tokenRepository.findValidatedIds(PageRequest.of(0, batchSize)))
+                + deleteInBatches(() -> tokenRepository.findExpiredIds(expiredBefore, PageRequest.of(0, batchSize)));
+        purgedTokens.increment(deleted);
+        tableSize.set(tokenRepository.count());
+        purgeLagSeconds.set(tokenRepository.findOldestExpiryBefore(expiredBefore)
+                .map(oldest -> Duration.between(oldest.plus(expiredRetention), now).toSeconds())
+                .orElse(0L));
+        if (deleted > 0) {
+            log.info("Purged {} activation tokens", deleted);
+        }
+    }
+
+    private long deleteInBatches(Supplier<List<Integer>> nextBatch) {
+        long deleted = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<Integer> ids = nextBatch.get();
+            if (ids.isEmpty()) {
+                break;
+            }
+            tokenRepository.deleteAllByIdInBatch(ids);
+            deleted += ids.size();
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return deleted;
+    }
+}
@@ -1,10 +1,47 @@
 package com.example.book_social_netwok.user;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface TokenRepository extends JpaRepository<Token, Integer> {
 
-    Optional<Token> findByToken(String token);
+    Optional<Token> findByUserEmailAndToken(String email, String token);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM Token token
+            WHERE token.user.id = :userId
+            AND token.validatedAt IS NULL
+            """)
+    int deleteUnvalidatedByUserId(Integer userId);
+
+    // validated and expired codes are looked up separately so each side can use its own index
+    @Query("""
+            SELECT token.id
+            FROM Token token
+            WHERE token.validatedAt IS NOT NULL
+            """)
+    List<Integer> findValidatedIds(Pageable pageable);
+
+    @Query("""
+            SELECT token.id
+            FROM Token token
+            WHERE token.expiresAt < :expiredBefore
+            """)
+    List<Integer> findExpiredIds(LocalDateTime expiredBefore, Pageable pageable);
+
+    @Query("""
+            SELECT MIN(token.expiresAt)
+            FROM Token token
+            WHERE token.expiresAt < :expiredBefore
+            """)
+    Optional<LocalDateTime> findOldestExpiryBefore(LocalDateTime expiredBefore);
 }
@@ -5,6 +5,8 @@ import com.example.book_social_netwok.history.BookTransactionHistory;
 import com.example.book_social_netwok.role.Role;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -27,6 +29,7 @@ import java.util.stream.Collectors;
 @Builder
 @Entity
 @Table(name = "_user")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @EntityListeners(AuditingEntityListener.class)
 public class User implements UserDetails, Principal {
 
@@ -41,8 +44,14 @@ public class User implements UserDetails, Principal {
     private String password;
     private boolean accountLocked;
     private boolean enabled;
+    // access tokens carry the version they were issued for, bumping it ends every session
+    private int tokenVersion;
+    // coarse, rounded to about a kilometre; null when the user has not shared a location
+    private Double latitude;
+    private Double longitude;
 
     @ManyToMany(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Role> roles;
 
     @OneToMany(mappedBy = "owner")
@@ -1,10 +1,23 @@
 package com.example.book_social_netwok.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository <User, Integer> {
 
     Optional<User> findByEmail(String email);
+
+    // bumping the version saves the user, so a bump since the cut-off also moved the modification date past it
+    @Query("""
+            SELECT new com.example.book_social_netwok.user.UserTokenVersion(user.email, user.tokenVersion)
+            FROM User user
+            WHERE user.tokenVersion > 0
+            AND user.lastModifiedDate >= :since
+            """)
+    List<UserTokenVersion> findTokenVersionsModifiedSince(@Param("since") LocalDateTime since);
 }
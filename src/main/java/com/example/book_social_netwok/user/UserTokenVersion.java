@@ -0,0 +1,7 @@
+package com.example.book_social_netwok.user;
+
+public record UserTokenVersion(
+        String email,
+        int tokenVersion
+) {
+}
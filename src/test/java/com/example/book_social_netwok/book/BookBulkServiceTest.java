@@ -0,0 +1,245 @@
+package com.example.book_social_netwok.book;
+
+import com.example.book_social_netwok.cache.EntityCacheCoherence;
+import com.example.book_social_netwok.event.DomainEvent;
+import com.example.book_social_netwok.event.DomainEventPublisher;
+import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.reservation.ReservationService;
+import com.example.book_social_netwok.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class BookBulkServiceTest {
+
+    private static final int OWNER = 1;
+    private static final int OTHER = 2;
+
+    // the committed rows; the service's own read sees them as they were before its update
+    private final Map<Integer, BookStateRow> rows = new HashMap<>();
+    // rows a concurrent transaction changes between the service's read and its update
+    private final Set<Integer> changedConcurrently = new HashSet<>();
+    private final List<Collection<Integer>> updatedChunks = new ArrayList<>();
+    private final Authentication owner = new UsernamePasswordAuthenticationToken(
+            User.builder().id(OWNER).roles(List.of()).build(), null, List.of());
+
+    private BookRepository bookRepository;
+    private BookCache bookCache;
+    private EntityCacheCoherence entityCacheCoherence;
+    private ReservationService reservationService;
+    private DomainEventPublisher domainEventPublisher;
+    private BookBulkService bookBulkService;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        when(bookRepository.findStatesByIdIn(any())).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            return ids.stream().map(rows::get).filter(Objects::nonNull).toList();
+        });
+        when(bookRepository.updateArchived(any(), anyInt(), anyBoolean(), any())).thenAnswer(invocation ->
+                update(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), true));
+        when(bookRepository.updateShareable(any(), anyInt(), anyBoolean(), any())).thenAnswer(invocation ->
+                update(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), false));
+        bookCache = mock(BookCache.class);
+        entityCacheCoherence = mock(EntityCacheCoherence.class);
+        reservationService = mock(ReservationService.class);
+        domainEventPublisher = mock(DomainEventPublisher.class);
+        bookBulkService = new BookBulkService(bookRepository, bookCache, entityCacheCoherence,
+                mock(OwnerStatsService.class), reservationService, domainEventPublisher,
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(bookBulkService, "maxIds", 5);
+        ReflectionTestUtils.setField(bookBulkService, "chunkSize", 2);
+    }
+
+    // visibility is whether the book left (HIDDEN) or joined (SHOWN) the shared catalog
+    @ParameterizedTest
+    @CsvSource({
+            "ARCHIVE,   false, false, UPDATED,   NONE",
+            "ARCHIVE,   false, true,  UPDATED,   HIDDEN",
+            "ARCHIVE,   true,  false, UNCHANGED, NONE",
+            "ARCHIVE,   true,  true,  UNCHANGED, NONE",
+            "UNARCHIVE, true,  true,  UPDATED,   SHOWN",
+            "UNARCHIVE, true,  false, UPDATED,   NONE",
+            "UNARCHIVE, false, true,  UNCHANGED, NONE",
+            "UNARCHIVE, false, false, UNCHANGED, NONE",
+            "SHARE,     false, false, UPDATED,   SHOWN",
+            "SHARE,     true,  false, UPDATED,   NONE",
+            "SHARE,     false, true,  UNCHANGED, NONE",
+            "SHARE,     true,  true,  UNCHANGED, NONE",
+            "UNSHARE,   false, true,  UPDATED,   HIDDEN",
+            "UNSHARE,   true,  true,  UPDATED,   NONE",
+            "UNSHARE,   false, false, UNCHANGED, NONE",
+            "UNSHARE,   true,  false, UNCHANGED, NONE"
+    })
+    void appliesTheActionToAnOwnBook(BookBulkAction action, boolean archived, boolean shareable,
+                                     BookBulkOutcome outcome, String visibility) {
+        add(10, OWNER, archived, shareable);
+
+        BookBulkResponse response = bookBulkService.apply(new BookBulkRequest(action, List.of(10), null), owner);
+
+        assertThat(response.getResults()).singleElement()
+                .satisfies(result -> assertThat(result.getOutcome()).isEqualTo(outcome));
+        assertThat(response.getUpdated()).isEqualTo(outcome == BookBulkOutcome.UPDATED ? 1 : 0);
+        assertThat(response.getUnchanged()).isEqualTo(outcome == BookBulkOutcome.UNCHANGED ? 1 : 0);
+        BookStateRow row = rows.get(10);
+        assertThat(row.archived()).isEqualTo(switch (action) {
+            case ARCHIVE -> true;
+            case UNARCHIVE -> false;
+            case SHARE, UNSHARE -> archived;
+        });
+        assertThat(row.shareable()).isEqualTo(switch (action) {
+            case SHARE -> true;
+            case UNSHARE -> false;
+            case ARCHIVE, UNARCHIVE -> shareable;
+        });
+        if (outcome == BookBulkOutcome.UPDATED) {
+            verify(bookCache).evictAll(Set.of(10));
+            verify(entityCacheCoherence).evictAll(Book.class, Set.of(10));
+        } else {
+            verifyNoInteractions(bookCache, entityCacheCoherence);
+            assertThat(updatedChunks).isEmpty();
+        }
+        switch (visibility) {
+            case "SHOWN" -> {
+                verify(reservationService).handOffAfterCommit(List.of(10));
+                verify(domainEventPublisher).publish(new DomainEvent.BooksUpdated(OWNER, List.of(10), List.of()));
+            }
+            case "HIDDEN" -> verify(domainEventPublisher).publish(new DomainEvent.BooksUpdated(OWNER, List.of(), List.of(10)));
+            default -> verifyNoInteractions(domainEventPublisher);
+        }
+    }
+
+    @Test
+    void neverUpdatesMissingOrForeignBooks() {
+        add(11, OTHER, false, true);
+
+        BookBulkResponse response = bookBulkService.apply(
+                new BookBulkRequest(BookBulkAction.ARCHIVE, List.of(99, 11), null), owner);
+
+        assertThat(response.getResults()).extracting(BookBulkResult::getOutcome)
+                .containsExactly(BookBulkOutcome.NOT_FOUND, BookBulkOutcome.NOT_OWNER);
+        assertThat(response.getRejected()).isEqualTo(2);
+        assertThat(rows.get(11).archived()).isFalse();
+        assertThat(updatedChunks).isEmpty();
+        verifyNoInteractions(bookCache, entityCacheCoherence, reservationService, domainEventPublisher);
+    }
+
+    @Test
+    void updatesOnlyTheOwnRowsThatChange() {
+        add(1, OWNER, false, true);
+        add(2, OWNER, true, true);
+        add(3, OTHER, false, true);
+        add(4, OWNER, false, false);
+
+        BookBulkResponse response = bookBulkService.apply(
+                new BookBulkRequest(BookBulkAction.ARCHIVE, List.of(4, 3, 2, 1, 5), null), owner);
+
+        assertThat(response.getResults()).extracting(BookBulkResult::getBookId).containsExactly(4, 3, 2, 1, 5);
+        assertThat(response.getResults()).extracting(BookBulkResult::getOutcome).containsExactly(
+                BookBulkOutcome.UPDATED, BookBulkOutcome.NOT_OWNER, BookBulkOutcome.UNCHANGED,
+                BookBulkOutcome.UPDATED, BookBulkOutcome.NOT_FOUND);
+        assertThat(response.getUpdated()).isEqualTo(2);
+        assertThat(response.getUnchanged()).isEqualTo(1);
+        assertThat(response.getRejected()).isEqualTo(2);
+        // other owners' ids and rows already archived never reach the UPDATE, so none of them is locked
+        assertThat(updatedChunks).containsExactly(List.of(4), List.of(1));
+        verify(domainEventPublisher).publish(new DomainEvent.BooksUpdated(OWNER, List.of(), List.of(1)));
+    }
+
+    @Test
+    void aRowChangedConcurrentlyIsReportedUnchanged() {
+        add(1, OWNER, false, true);
+        add(2, OWNER, false, true);
+        changedConcurrently.add(2);
+
+        BookBulkResponse response = bookBulkService.apply(
+                new BookBulkRequest(BookBulkAction.UNSHARE, List.of(1, 2), null), owner);
+
+        assertThat(response.getResults()).extracting(BookBulkResult::getOutcome)
+                .containsExactly(BookBulkOutcome.UPDATED, BookBulkOutcome.UNCHANGED);
+        verify(bookCache).evictAll(Set.of(1));
+        verify(domainEventPublisher).publish(new DomainEvent.BooksUpdated(OWNER, List.of(), List.of(1)));
+    }
+
+    @Test
+    void updatesEachChunkOnceAndDropsRepeatedIds() {
+        add(1, OWNER, false, false);
+        add(2, OWNER, false, false);
+        add(3, OWNER, false, false);
+
+        BookBulkResponse response = bookBulkService.apply(
+                new BookBulkRequest(BookBulkAction.SHARE, List.of(1, 2, 1, 3), null), owner);
+
+        assertThat(updatedChunks).containsExactly(List.of(1, 2), List.of(3));
+        assertThat(response.getUpdated()).isEqualTo(3);
+        verify(reservationService).handOffAfterCommit(List.of(1, 2));
+        verify(reservationService).handOffAfterCommit(List.of(3));
+    }
+
+    @Test
+    void selectsTheOwnBooksOfAnAuthor() {
+        add(1, OWNER, false, true);
+        when(bookRepository.findIdsByOwnerAndAuthorName(OWNER, "Herbert")).thenReturn(List.of(1));
+
+        BookBulkResponse response = bookBulkService.apply(
+                new BookBulkRequest(BookBulkAction.UNSHARE, null, " Herbert "), owner);
+
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(rows.get(1).shareable()).isFalse();
+    }
+
+    @Test
+    void rejectsBothOrNeitherSelection() {
+        assertThatThrownBy(() -> bookBulkService.apply(
+                new BookBulkRequest(BookBulkAction.ARCHIVE, List.of(1), "Herbert"), owner))
+                .isInstanceOf(OperationNotPermittedException.class);
+        assertThatThrownBy(() -> bookBulkService.apply(
+                new BookBulkRequest(BookBulkAction.ARCHIVE, List.of(), " "), owner))
+                .isInstanceOf(OperationNotPermittedException.class);
+    }
+
+    @Test
+    void rejectsMoreIdsThanTheLimit() {
+        assertThatThrownBy(() -> bookBulkService.apply(
+                new BookBulkRequest(BookBulkAction.ARCHIVE, List.of(1, 2, 3, 4, 5, 6), null), owner))
+                .isInstanceOf(OperationNotPermittedException.class);
+        verifyNoInteractions(bookRepository);
+    }
+
+    // mirrors the set-based UPDATE: the owner's rows whose flag differs, minus those a concurrent change took
+    private int update(Collection<Integer> ids, Integer ownerId, boolean value, boolean archivedFlag) {
+        updatedChunks.add(List.copyOf(ids));
+        int updated = 0;
+        for (Integer id : ids) {
+            BookStateRow row = rows.get(id);
+            if (row == null || !row.ownerId().equals(ownerId) || changedConcurrently.contains(id)
+                    || (archivedFlag ? row.archived() : row.shareable()) == value) {
+                continue;
+            }
+            rows.put(id, archivedFlag
+                    ? new BookStateRow(id, ownerId, value, row.shareable())
+                    : new BookStateRow(id, ownerId, row.archived(), value));
+            updated++;
+        }
+        return updated;
+    }
+
+    private void add(int id, int ownerId, boolean archived, boolean shareable) {
+        rows.put(id, new BookStateRow(id, ownerId, archived, shareable));
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.book_social_netwok.book;
+
+import com.example.book_social_netwok.cache.EntityCacheCoherence;
+import com.example.book_social_netwok.edition.Edition;
+import com.example.book_social_netwok.edition.EditionService;
+import com.example.book_social_netwok.event.DomainEvent;
+import com.example.book_social_netwok.event.DomainEventPublisher;
+import com.example.book_social_netwok.exception.BusinessException;
+import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.exception.ResourceNotFoundException;
+import com.example.book_social_netwok.file.FileStorageService;
+import com.example.book_social_netwok.history.ActiveLoan;
+import com.example.book_social_netwok.history.BookTransactionHistory;
+import com.example.book_social_netwok.history.BookTransactionHistoryRepository;
+import com.example.book_social_netwok.reservation.ReservationService;
+import com.example.book_social_netwok.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.FILE_NOT_SAVED;
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.NOT_BOOK_OWNER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class BookServiceTest {
+
+    private static final int OWNER = 1;
+    private static final int OTHER = 2;
+
+    // the rows the native toggles work on
+    private final Map<Integer, BookFlags> rows = new HashMap<>();
+
+    private BookRepository bookRepository;
+    private BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    private OwnerStatsService ownerStatsService;
+    private BookCache bookCache;
+    private EntityCacheCoherence entityCacheCoherence;
+    private DomainEventPublisher domainEventPublisher;
+    private ReservationService reservationService;
+    private FileStorageService fileStorageService;
+    private EditionService editionService;
+    private BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        when(bookRepository.toggleShareable(anyInt(), anyInt(), anyBoolean(), any())).thenAnswer(invocation ->
+                toggle(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), false));
+        when(bookRepository.toggleArchived(anyInt(), anyInt(), anyBoolean(), any())).thenAnswer(invocation ->
+                toggle(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), true));
+        when(bookRepository.findFlagsById(anyInt())).thenAnswer(invocation ->
+                Optional.ofNullable(rows.get(invocation.<Integer>getArgument(0))));
+        bookCache = mock(BookCache.class);
+        entityCacheCoherence = mock(EntityCacheCoherence.class);
+        domainEventPublisher = mock(DomainEventPublisher.class);
+        reservationService = mock(ReservationService.class);
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        fileStorageService = mock(FileStorageService.class);
+        editionService = mock(EditionService.class);
+        bookTransactionHistoryRepository = mock(BookTransactionHistoryRepository.class);
+        ownerStatsService = mock(OwnerStatsService.class);
+        bookService = new BookService(new BookMapper(fileStorageService), bookRepository, bookTransactionHistoryRepository,
+                fileStorageService, ownerStatsService, bookCache, entityCacheCoherence,
+                domainEventPublisher, reservationService, editionService);
+    }
+
+    @Test
+    void savesABookWithItsNormalizedIsbnAndEdition() {
+        Edition edition = Edition.builder().id(7).isbn13("9780306406157").build();
+        when(editionService.resolve("9780306406157", "Dune", "Herbert")).thenReturn(edition);
+
+        bookService.save(request("0-306-40615-2"), user(OWNER));
+
+        Book saved = savedBook();
+        assertThat(saved.getIsbn()).isEqualTo("9780306406157");
+        assertThat(saved.getEdition()).isSameAs(edition);
+    }
+
+    @Test
+    void savesABookWithAnUnparsableIsbnAsTypedAndWithoutEdition() {
+        bookService.save(request("ISBN pending"), user(OWNER));
+
+        Book saved = savedBook();
+        assertThat(saved.getIsbn()).isEqualTo("ISBN pending");
+        assertThat(saved.getEdition()).isNull();
+        verifyNoInteractions(editionService);
+    }
+
+    @Test
+    void sharingAnArchivedBookKeepsItHidden() {
+        rows.put(10, new BookFlags(OWNER, true, false));
+
+        bookService.updateSharableStatus(10, user(OWNER));
+
+        assertThat(rows.get(10)).isEqualTo(new BookFlags(OWNER, true, true));
+        verify(domainEventPublisher).publish(new DomainEvent.BookUpdated(10, OWNER, false));
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    void sharingAnActiveBookShowsItAndHandsItOff() {
+        rows.put(10, new BookFlags(OWNER, false, false));
+
+        bookService.updateSharableStatus(10, user(OWNER));
+
+        assertThat(rows.get(10)).isEqualTo(new BookFlags(OWNER, false, true));
+        verify(domainEventPublisher).publish(new DomainEvent.BookUpdated(10, OWNER, true));
+        verify(reservationService).handOffAfterCommit(List.of(10));
+        // the visible case is settled by the first statement alone
+        verify(bookRepository, times(1)).toggleShareable(anyInt(), anyInt(), anyBoolean(), any());
+    }
+
+    @Test
+    void unarchivingASharedBookShowsIt() {
+        rows.put(10, new BookFlags(OWNER, true, true));
+
+        bookService.updateArchivedStatus(10, user(OWNER));
+
+        assertThat(rows.get(10)).isEqualTo(new BookFlags(OWNER, false, true));
+        verify(domainEventPublisher).publish(new DomainEvent.BookUpdated(10, OWNER, true));
+    }
+
+    @Test
+    void archivingASharedBookHidesIt() {
+        rows.put(10, new BookFlags(OWNER, false, true));
+
+        bookService.updateArchivedStatus(10, user(OWNER));
+
+        assertThat(rows.get(10)).isEqualTo(new BookFlags(OWNER, true, true));
+        verify(domainEventPublisher).publish(new DomainEvent.BookUpdated(10, OWNER, false));
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    void evictsOnlyTheToggledRowFromTheCaches() {
+        rows.put(10, new BookFlags(OWNER, false, true));
+
+        bookService.updateSharableStatus(10, user(OWNER));
+
+        verify(bookCache).evict(10);
+        verify(entityCacheCoherence).evict(Book.class, 10);
+        verify(entityCacheCoherence, never()).evictAll(any(), any());
+    }
+
+    @Test
+    void probesTheRowOnlyWhenNothingChanged() {
+        rows.put(10, new BookFlags(OWNER, false, true));
+
+        bookService.updateSharableStatus(10, user(OWNER));
+        bookService.updateArchivedStatus(10, user(OWNER));
+
+        verify(bookRepository, never()).findFlagsById(anyInt());
+    }
+
+    @Test
+    void aMissingBookIsNotFound() {
+        assertThatThrownBy(() -> bookService.updateSharableStatus(99, user(OWNER)))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> bookService.updateArchivedStatus(99, user(OWNER)))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verifyNoInteractions(domainEventPublisher, bookCache, entityCacheCoherence);
+    }
+
+    @Test
+    void anotherOwnersBookIsRejectedAndLeftAlone() {
+        rows.put(10, new BookFlags(OTHER, false, true));
+
+        assertThatThrownBy(() -> bookService.updateSharableStatus(10, user(OWNER)))
+                .isInstanceOf(OperationNotPermittedException.class);
+        assertThatThrownBy(() -> bookService.updateArchivedStatus(10, user(OWNER)))
+                .isInstanceOf(OperationNotPermittedException.class);
+
+        assertThat(rows.get(10)).isEqualTo(new BookFlags(OTHER, false, true));
+        verify(bookRepository, times(2)).findFlagsById(10);
+        verifyNoInteractions(domainEventPublisher, bookCache, entityCacheCoherence);
+    }
+
+    @Test
+    void borrowingEvictsTheOwnersStats() {
+        Book book = Book.builder().id(10).title("Dune").authorName("Herbert")
+                .owner(User.builder().id(OWNER).build()).shareable(true).build();
+        when(bookRepository.findById(10)).thenReturn(Optional.of(book));
+        when(bookTransactionHistoryRepository.save(any(BookTransactionHistory.class)))
+                .thenAnswer(invocation -> BookTransactionHistory.builder().id(40).build());
+
+        assertThat(bookService.borrowBook(10, user(OTHER))).isEqualTo(40);
+
+        verify(ownerStatsService).evict(OWNER);
+        verifyNoMoreInteractions(ownerStatsService);
+    }
+
+    @Test
+    void aRejectedBorrowKeepsTheOwnersStats() {
+        Book book = Book.builder().id(10).owner(User.builder().id(OWNER).build()).shareable(true).build();
+        when(bookRepository.findById(10)).thenReturn(Optional.of(book));
+        when(bookTransactionHistoryRepository.existsOpenLoan(10)).thenReturn(true);
+
+        assertThatThrownBy(() -> bookService.borrowBook(10, user(OTHER)))
+                .isInstanceOf(OperationNotPermittedException.class);
+
+        verifyNoInteractions(ownerStatsService);
+    }
+
+    @Test
+    void returningAndApprovingEvictTheOwnersStats() {
+        ActiveLoan loan = new ActiveLoan(40, "Dune", OWNER, OTHER, false, true);
+        when(bookTransactionHistoryRepository.findByBookIdAndUserId(10, OTHER)).thenReturn(Optional.of(loan));
+        when(bookTransactionHistoryRepository.findByBookIdAndOwnerId(10, OWNER)).thenReturn(Optional.of(loan));
+        when(bookTransactionHistoryRepository.markReturned(eq(40), eq(OTHER), any())).thenReturn(1);
+        when(bookTransactionHistoryRepository.markReturnApproved(eq(40), eq(OWNER), any())).thenReturn(1);
+
+        bookService.returnBorrowBook(10, user(OTHER));
+        bookService.approveReturnBorrowBook(10, user(OWNER));
+
+        // the borrower returning changes the owner's counts, not their own
+        verify(ownerStatsService, times(2)).evict(OWNER);
+        verify(ownerStatsService, never()).evict(OTHER);
+    }
+
+    @Test
+    void anApprovalThatMatchedNothingKeepsTheOwnersStats() {
+        ActiveLoan loan = new ActiveLoan(40, "Dune", OWNER, OTHER, false, true);
+        when(bookTransactionHistoryRepository.findByBookIdAndOwnerId(10, OWNER)).thenReturn(Optional.of(loan));
+
+        assertThatThrownBy(() -> bookService.approveReturnBorrowBook(10, user(OWNER)))
+                .isInstanceOf(OperationNotPermittedException.class);
+
+        verifyNoInteractions(ownerStatsService, reservationService);
+    }
+
+    @Test
+    void replacesACoverAndDeletesThePreviousOneAfterSaving() {
+        Book book = coveredBook(OWNER);
+        when(fileStorageService.saveFile(any(), eq(OWNER))).thenReturn("blob:7");
+
+        bookService.uploadBookCoverPicture(cover(), user(OWNER), 10);
+
+        assertThat(book.getBookCover()).isEqualTo("blob:7");
+        InOrder inOrder = inOrder(bookRepository, fileStorageService);
+        inOrder.verify(bookRepository).save(book);
+        inOrder.verify(fileStorageService).deleteFile("blob:3");
+        verify(bookCache).evict(10);
+    }
+
+    @Test
+    void onlyTheOwnerReplacesACover() {
+        Book book = coveredBook(OTHER);
+
+        assertThatThrownBy(() -> bookService.uploadBookCoverPicture(cover(), user(OWNER), 10))
+                .isInstanceOf(OperationNotPermittedException.class)
+                .extracting("errorCode").isEqualTo(NOT_BOOK_OWNER);
+
+        assertThat(book.getBookCover()).isEqualTo("blob:3");
+        verifyNoInteractions(fileStorageService);
+        verify(bookRepository, never()).save(any());
+    }
+
+    @Test
+    void aFailedUploadKeepsThePreviousCover() {
+        Book book = coveredBook(OWNER);
+        when(fileStorageService.saveFile(any(), eq(OWNER))).thenReturn(null);
+
+        assertThatThrownBy(() -> bookService.uploadBookCoverPicture(cover(), user(OWNER), 10))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo(FILE_NOT_SAVED);
+
+        assertThat(book.getBookCover()).isEqualTo("blob:3");
+        verify(fileStorageService, never()).deleteFile(any());
+        verify(bookRepository, never()).save(any());
+    }
+
+    @Test
+    void aFailedSaveDeletesTheNewFileInstead() {
+        Book book = coveredBook(OWNER);
+        when(fileStorageService.saveFile(any(), eq(OWNER))).thenReturn("blob:7");
+        when(bookRepository.save(book)).thenThrow(new IllegalStateException("connection lost"));
+
+        assertThatThrownBy(() -> bookService.uploadBookCoverPicture(cover(), user(OWNER), 10))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(fileStorageService).deleteFile("blob:7");
+        verify(fileStorageService, never()).deleteFile("blob:3");
+    }
+
+    private Book savedBook() {
+        ArgumentCaptor<Book> saved = ArgumentCaptor.forClass(Book.class);
+        verify(bookRepository).save(saved.capture());
+        return saved.getValue();
+    }
+
+    private static BookRequest request(String isbn) {
+        return new BookRequest(null, "Dune", "Herbert", isbn, "Spice", true);
+    }
+
+    private Book coveredBook(int ownerId) {
+        Book book = Book.builder().id(10).owner(User.builder().id(ownerId).build()).bookCover("blob:3").build();
+        when(bookRepository.findById(10)).thenReturn(Optional.of(book));
+        return book;
+    }
+
+    private static MockMultipartFile cover() {
+        return new MockMultipartFile("file", "cover.png", "image/png", new byte[]{1, 2, 3});
+    }
+
+    // mirrors the native statements: flips the flag only for the owner and when the visibility afterwards matches
+    private int toggle(Integer bookId, Integer ownerId, boolean visibleAfter, boolean archivedFlag) {
+        BookFlags flags = rows.get(bookId);
+        if (flags == null || !flags.ownerId().equals(ownerId)) {
+            return 0;
+        }
+        BookFlags toggled = archivedFlag
+                ? new BookFlags(flags.ownerId(), !flags.archived(), flags.shareable())
+                : new BookFlags(flags.ownerId(), flags.archived(), !flags.shareable());
+        if (toggled.isVisible() != visibleAfter) {
+            return 0;
+        }
+        rows.put(bookId, toggled);
+        return 1;
+    }
+
+    private static Authentication user(int id) {
+        return new UsernamePasswordAuthenticationToken(User.builder().id(id).roles(List.of()).build(), null, List.of());
+    }
+}
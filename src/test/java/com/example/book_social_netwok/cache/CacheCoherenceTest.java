@@ -0,0 +1,86 @@
+package com.example.book_social_netwok.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheCoherenceTest {
+
+    private final LoopbackInvalidationBus bus = new LoopbackInvalidationBus();
+
+    private CacheCoherence node(String nodeId, List<Object> evicted) {
+        CacheCoherence cacheCoherence = new CacheCoherence(bus, new SimpleMeterRegistry(), nodeId, 1000);
+        cacheCoherence.register("books", evicted::add);
+        return cacheCoherence;
+    }
+
+    @Test
+    void peersEvictWhatANodePublishes() {
+        List<Object> onA = new ArrayList<>();
+        List<Object> onB = new ArrayList<>();
+        List<Object> onC = new ArrayList<>();
+        CacheCoherence a = node("a", onA);
+        node("b", onB);
+        node("c", onC);
+
+        a.publish("books", 7);
+        a.publish("books", null);
+
+        assertThat(onA).isEmpty();
+        assertThat(onB).containsExactly(7, null);
+        assertThat(onC).containsExactly(7, null);
+    }
+
+    @Test
+    void regionsWithoutAHandlerAreIgnored() {
+        List<Object> onB = new ArrayList<>();
+        CacheCoherence a = node("a", new ArrayList<>());
+        node("b", onB);
+
+        a.publish("ownerStats", 7);
+
+        assertThat(onB).isEmpty();
+    }
+
+    @Test
+    void aLateOrRepeatedMessageIsDropped() {
+        List<Object> onB = new ArrayList<>();
+        node("b", onB);
+
+        bus.publish(new CacheInvalidation("a", 20, "books", 7));
+        bus.publish(new CacheInvalidation("a", 10, "books", 7));
+        bus.publish(new CacheInvalidation("a", 20, "books", 7));
+        // versions are tracked per key, another key is not affected
+        bus.publish(new CacheInvalidation("a", 10, "books", 8));
+
+        assertThat(onB).containsExactly(7, 8);
+    }
+
+    @Test
+    void insideATransactionNothingIsSentBeforeTheCommit() {
+        List<Object> onA = new ArrayList<>();
+        List<Object> onB = new ArrayList<>();
+        CacheCoherence a = node("a", onA);
+        node("b", onB);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            a.publish("books", 7);
+            assertThat(onB).isEmpty();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // the origin evicts once more after the commit, for readers that loaded the old value meanwhile
+        assertThat(onA).containsExactly(7);
+        assertThat(onB).containsExactly(7);
+    }
+}
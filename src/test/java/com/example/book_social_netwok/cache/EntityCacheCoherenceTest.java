@@ -0,0 +1,52 @@
+package com.example.book_social_netwok.cache;
+
+import com.example.book_social_netwok.book.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class EntityCacheCoherenceTest {
+
+    private final LoopbackInvalidationBus bus = new LoopbackInvalidationBus();
+    private final List<Object> evictedOnPeer = new ArrayList<>();
+    private Cache localCache;
+    private EntityCacheCoherence entityCacheCoherence;
+
+    @BeforeEach
+    void setUp() {
+        localCache = mock(Cache.class);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(localCache);
+        entityCacheCoherence = new EntityCacheCoherence(entityManagerFactory,
+                new CacheCoherence(bus, new SimpleMeterRegistry(), "a", 1000));
+        new CacheCoherence(bus, new SimpleMeterRegistry(), "b", 1000)
+                .register("entity:" + Book.class.getName(), evictedOnPeer::add);
+    }
+
+    @Test
+    void evictsOneRowLocallyAndOnThePeers() {
+        entityCacheCoherence.evict(Book.class, 7);
+
+        verify(localCache).evict(Book.class, 7);
+        assertThat(evictedOnPeer).containsExactly(7);
+    }
+
+    @Test
+    void evictsEveryChangedRowWithoutClearingTheRegion() {
+        entityCacheCoherence.evictAll(Book.class, List.of(1, 2, 3));
+
+        verify(localCache).evict(Book.class, 1);
+        verify(localCache).evict(Book.class, 2);
+        verify(localCache).evict(Book.class, 3);
+        verify(localCache, never()).evict(Book.class);
+        assertThat(evictedOnPeer).containsExactly(1, 2, 3).doesNotContainNull();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.book_social_netwok.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JdbcInvalidationBusTest {
+
+    // rows committed so far, by id
+    private final SortedMap<Long, CacheInvalidationMessage> table = new TreeMap<>();
+    private final List<Object> received = new ArrayList<>();
+    private JdbcInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        CacheInvalidationMessageRepository repository = mock(CacheInvalidationMessageRepository.class);
+        when(repository.findAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            return table.tailMap(afterId + 1).values().stream().limit(pageable.getPageSize()).toList();
+        });
+        when(repository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<CacheInvalidationMessage> found = new ArrayList<>();
+            invocation.<Iterable<Long>>getArgument(0).forEach(id -> {
+                if (table.containsKey(id)) {
+                    found.add(table.get(id));
+                }
+            });
+            return found;
+        });
+        when(repository.findRecent(anyString(), any(LocalDateTime.class), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            String region = invocation.getArgument(0);
+            LocalDateTime since = invocation.getArgument(1);
+            long afterId = invocation.getArgument(2);
+            Pageable pageable = invocation.getArgument(3);
+            return table.tailMap(afterId + 1).values().stream()
+                    .filter(message -> message.getRegion().equals(region) && !message.getCreatedAt().isBefore(since))
+                    .limit(pageable.getPageSize())
+                    .toList();
+        });
+        bus = new JdbcInvalidationBus(repository, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(bus, "pollBatchSize", 2);
+        ReflectionTestUtils.setField(bus, "gapTimeout", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(bus, "maxGaps", 100);
+        bus.subscribe(invalidation -> received.add(invalidation.key()));
+    }
+
+    @Test
+    void deliversInIdOrderAcrossPages() {
+        commit(1, 2, 3, 4, 5);
+
+        bus.poll();
+
+        assertThat(received).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void aRowCommittedAfterALargerIdIsStillDelivered() {
+        commit(1, 3);
+        bus.poll();
+
+        commit(2, 4);
+        bus.poll();
+
+        assertThat(received).containsExactly(1, 3, 2, 4);
+    }
+
+    @Test
+    void aGapIsReadOnlyOnce() {
+        commit(1, 3);
+        bus.poll();
+        commit(2);
+        bus.poll();
+        bus.poll();
+
+        assertThat(received).containsExactly(1, 3, 2);
+    }
+
+    @Test
+    void aGapThatNeverFillsIsForgotten() {
+        ReflectionTestUtils.setField(bus, "gapTimeout", Duration.ZERO);
+        commit(1, 3);
+        bus.poll();
+        sleep();
+        bus.poll();
+
+        commit(2);
+        bus.poll();
+
+        assertThat(received).containsExactly(1, 3);
+    }
+
+    @Test
+    void replaysTheRecentMessagesOfOneRegionAcrossPages() {
+        commit(1, 2);
+        committedAt(3, "revoked-tokens", LocalDateTime.now().minusHours(1));
+        committedAt(4, "revoked-tokens", LocalDateTime.now());
+        committedAt(5, "revoked-tokens", LocalDateTime.now());
+        committedAt(6, "revoked-tokens", LocalDateTime.now());
+        List<Object> replayed = new ArrayList<>();
+
+        bus.replay("revoked-tokens", Duration.ofMinutes(15), invalidation -> replayed.add(invalidation.key()));
+
+        assertThat(replayed).containsExactly(4, 5, 6);
+        // a replay is not a poll, subscribers see these rows only if they are past the last seen id
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void keysKeepTheirType() {
+        assertThat(JdbcInvalidationBus.decodeKey(JdbcInvalidationBus.encodeKey(5))).isEqualTo(5);
+        assertThat(JdbcInvalidationBus.decodeKey(JdbcInvalidationBus.encodeKey(5L))).isEqualTo(5L);
+        assertThat(JdbcInvalidationBus.decodeKey(JdbcInvalidationBus.encodeKey("5"))).isEqualTo("5");
+        assertThat(JdbcInvalidationBus.decodeKey(JdbcInvalidationBus.encodeKey(null))).isNull();
+    }
+
+    // the key is the id, so the order of delivery shows in the received keys
+    private void commit(int... ids) {
+        for (int id : ids) {
+            table.put((long) id, CacheInvalidationMessage.builder()
+                    .id((long) id)
+                    .origin("peer")
+                    .version(id)
+                    .region("books")
+                    .cacheKey(JdbcInvalidationBus.encodeKey(id))
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+    }
+
+    private void committedAt(int id, String region, LocalDateTime createdAt) {
+        table.put((long) id, CacheInvalidationMessage.builder()
+                .id((long) id)
+                .origin("peer")
+                .version(id)
+                .region(region)
+                .cacheKey(JdbcInvalidationBus.encodeKey(id))
+                .createdAt(createdAt)
+                .build());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.book_social_netwok.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResourceVersionTest {
+
+    private static final VersionStamp STAMP = new VersionStamp(LocalDateTime.of(2024, 5, 1, 12, 0), 3L, 7L);
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books/1");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void answersAMatchingIfNoneMatchWith304() {
+        ResourceVersion version = ResourceVersion.of(STAMP, 1);
+        request.addHeader("If-None-Match", version.etag());
+
+        assertThat(version.isNotModified(webRequest())).isTrue();
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getHeader("ETag")).isEqualTo(version.etag());
+    }
+
+    @Test
+    void sendsTheValidatorsWithAFreshResponse() {
+        ResourceVersion version = ResourceVersion.of(STAMP, 1);
+
+        assertThat(version.isNotModified(webRequest())).isFalse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("ETag")).isEqualTo(version.etag());
+        assertThat(response.getDateHeader("Last-Modified")).isEqualTo(version.lastModifiedMillis());
+    }
+
+    @Test
+    void aChangedRowOrAnotherViewGetsAnotherTag() {
+        String etag = ResourceVersion.of(STAMP, 1, 0, 10).etag();
+
+        assertThat(ResourceVersion.of(new VersionStamp(STAMP.lastModified(), 4L, 7L), 1, 0, 10).etag()).isNotEqualTo(etag);
+        assertThat(ResourceVersion.of(new VersionStamp(STAMP.lastModified(), 3L, 8L), 1, 0, 10).etag()).isNotEqualTo(etag);
+        assertThat(ResourceVersion.of(STAMP, 2, 0, 10).etag()).isNotEqualTo(etag);
+        assertThat(ResourceVersion.of(STAMP, 1, 1, 10).etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void aStaleTagIsServedAgain() {
+        request.addHeader("If-None-Match", ResourceVersion.of(STAMP, 1).etag());
+        ResourceVersion changed = ResourceVersion.of(new VersionStamp(STAMP.lastModified(), 4L, 7L), 1);
+
+        assertThat(changed.isNotModified(webRequest())).isFalse();
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void anUnknownResourceIsNeverNotModified() {
+        request.addHeader("If-None-Match", "*");
+
+        assertThat(ResourceVersion.of(null).isNotModified(webRequest())).isFalse();
+        assertThat(ResourceVersion.of(new VersionStamp(null, 0L, 0L)).isNotModified(webRequest())).isFalse();
+        assertThat(response.getHeader("ETag")).isNull();
+    }
+
+    private ServletWebRequest webRequest() {
+        return new ServletWebRequest(request, response);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.book_social_netwok.config;
+
+import com.example.book_social_netwok.user.UserTokenVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import javax.sql.DataSource;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeEach
+    void setUp() {
+        new NativeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void registersAProxyForEveryWrappedJdbcInterface() {
+        for (Class<?> jdbcType : new Class<?>[]{DataSource.class, Connection.class, Statement.class,
+                PreparedStatement.class, CallableStatement.class, ResultSet.class}) {
+            assertThat(RuntimeHintsPredicates.proxies().forInterfaces(jdbcType)).accepts(hints);
+        }
+    }
+
+    @Test
+    void registersTheProjectionConstructors() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(UserTokenVersion.class)).accepts(hints);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.book_social_netwok.edition;
+
+import com.example.book_social_netwok.book.Book;
+import com.example.book_social_netwok.book.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class EditionLinkJobTest {
+
+    private final Map<Integer, Book> books = new TreeMap<>();
+    private final List<Integer> afterIds = new ArrayList<>();
+    private EditionService editionService;
+    private EditionLinkJob job;
+
+    @BeforeEach
+    void setUp() {
+        EditionRepository editionRepository = mock(EditionRepository.class);
+        // mirrors the query: books without an edition after the given id, in id order
+        when(editionRepository.findUnlinkedBooks(anyInt(), any(Pageable.class))).thenAnswer(invocation -> {
+            int afterId = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            afterIds.add(afterId);
+            return books.values().stream()
+                    .filter(book -> book.getEdition() == null && book.getId() > afterId)
+                    .limit(page.getPageSize())
+                    .map(book -> new UnlinkedBookRow(book.getId(), book.getIsbn(), book.getTitle(), book.getAuthorName()))
+                    .toList();
+        });
+        BookRepository bookRepository = mock(BookRepository.class);
+        when(bookRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<Integer> ids = invocation.getArgument(0);
+            List<Book> found = new ArrayList<>();
+            ids.forEach(id -> found.add(books.get(id)));
+            return found;
+        });
+        editionService = mock(EditionService.class);
+        when(editionService.resolve(anyString(), any(), any())).thenAnswer(invocation ->
+                Edition.builder().id(1).isbn13(invocation.getArgument(0)).build());
+
+        job = new EditionLinkJob(editionRepository, editionService, bookRepository, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(job, "batchSize", 2);
+    }
+
+    @Test
+    void linksEveryParsableBookAndNormalizesItsIsbn() {
+        add(1, "0-306-40615-2");
+        add(2, "not an isbn");
+        add(3, "9780306406157");
+        add(4, "978-0-8044-2957-3");
+
+        job.link();
+
+        assertThat(books.get(1).getEdition()).isNotNull();
+        assertThat(books.get(1).getIsbn()).isEqualTo("9780306406157");
+        assertThat(books.get(2).getEdition()).isNull();
+        assertThat(books.get(3).getEdition()).isNotNull();
+        assertThat(books.get(4).getIsbn()).isEqualTo("9780804429573");
+    }
+
+    @Test
+    void walksPastUnparsableBooksWithinARun() {
+        for (int id = 1; id <= 5; id++) {
+            add(id, "isbn " + id);
+        }
+
+        job.link();
+
+        assertThat(afterIds).containsExactly(0, 2, 4);
+    }
+
+    @Test
+    void doesNotReadUnparsableBooksAgainOnTheNextRun() {
+        add(10, "bad");
+        add(11, "bad");
+        job.link();
+        afterIds.clear();
+
+        add(12, "9780306406157");
+        job.link();
+
+        assertThat(afterIds).containsExactly(11);
+        assertThat(books.get(12).getEdition()).isNotNull();
+        assertThat(books.get(10).getEdition()).isNull();
+    }
+
+    @Test
+    void retriesAFailedBatchOnTheNextRun() {
+        add(1, "0-306-40615-2");
+        add(2, "bad");
+        add(3, "978-0-8044-2957-3");
+        when(editionService.resolve(eq("9780804429573"), any(), any()))
+                .thenThrow(new IllegalStateException("deadlock"))
+                .thenAnswer(invocation -> Edition.builder().id(2).isbn13(invocation.getArgument(0)).build());
+
+        assertThatThrownBy(job::link).isInstanceOf(IllegalStateException.class);
+        afterIds.clear();
+        job.link();
+
+        // the first batch committed, the failed one is read again
+        assertThat(afterIds.getFirst()).isEqualTo(2);
+        assertThat(books.get(3).getEdition()).isNotNull();
+    }
+
+    private void add(int id, String isbn) {
+        books.put(id, Book.builder().id(id).title("Title " + id).authorName("Author").isbn(isbn).build());
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.book_social_netwok.edition;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class EditionServiceTest {
+
+    private static final String ISBN = "9780306406157";
+
+    private EditionRepository editionRepository;
+    private EditionService editionService;
+
+    @BeforeEach
+    void setUp() {
+        editionRepository = mock(EditionRepository.class);
+        editionService = new EditionService(editionRepository);
+    }
+
+    @Test
+    void returnsAnExistingEditionWithoutInserting() {
+        Edition edition = Edition.builder().id(7).isbn13(ISBN).build();
+        when(editionRepository.findByIsbn13(ISBN)).thenReturn(Optional.of(edition));
+
+        assertThat(editionService.resolve(ISBN, "Dune", "Herbert")).isSameAs(edition);
+        verify(editionRepository, never()).createIfMissing(any(), any(), any());
+    }
+
+    @Test
+    void readsAConcurrentlyCreatedEditionWithALockingRead() {
+        // the plain read misses a row committed after the snapshot, the ignored insert then has to be followed by a locking read
+        Edition edition = Edition.builder().id(7).isbn13(ISBN).build();
+        when(editionRepository.findByIsbn13(ISBN)).thenReturn(Optional.empty());
+        when(editionRepository.findByIsbn13ForShare(ISBN)).thenReturn(Optional.of(edition));
+
+        assertThat(editionService.resolve(ISBN, "Dune", "Herbert")).isSameAs(edition);
+        verify(editionRepository).createIfMissing(ISBN, "Dune", "Herbert");
+        verify(editionRepository).findByIsbn13(ISBN);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.book_social_netwok.edition;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IsbnTest {
+
+    @Test
+    void keepsAValidIsbn13() {
+        assertThat(Isbn.toIsbn13("9780306406157")).contains("9780306406157");
+        assertThat(Isbn.toIsbn13("978-0-306-40615-7")).contains("9780306406157");
+        assertThat(Isbn.toIsbn13("978 0 306 40615 7")).contains("9780306406157");
+    }
+
+    @Test
+    void convertsAnIsbn10ToItsIsbn13Twin() {
+        assertThat(Isbn.toIsbn13("0306406152")).contains("9780306406157");
+        assertThat(Isbn.toIsbn13("0-306-40615-2")).contains("9780306406157");
+    }
+
+    @Test
+    void acceptsTenAsTheLastDigitOfAnIsbn10() {
+        assertThat(Isbn.toIsbn13("080442957X")).contains("9780804429573");
+        assertThat(Isbn.toIsbn13("0-8044-2957-x")).contains("9780804429573");
+    }
+
+    @Test
+    void rejectsAWrongCheckDigit() {
+        assertThat(Isbn.toIsbn13("9780306406158")).isEmpty();
+        assertThat(Isbn.toIsbn13("0306406153")).isEmpty();
+        assertThat(Isbn.toIsbn13("0804429570")).isEmpty();
+    }
+
+    @Test
+    void rejectsAnXAnywhereButTheLastIsbn10Digit() {
+        assertThat(Isbn.toIsbn13("08044X2957")).isEmpty();
+        assertThat(Isbn.toIsbn13("978030640615X")).isEmpty();
+        assertThat(Isbn.toIsbn13("080442957X123")).isEmpty();
+    }
+
+    @Test
+    void rejectsOtherText() {
+        assertThat(Isbn.toIsbn13(null)).isEmpty();
+        assertThat(Isbn.toIsbn13("")).isEmpty();
+        assertThat(Isbn.toIsbn13("030640615")).isEmpty();
+        assertThat(Isbn.toIsbn13("97803064061570")).isEmpty();
+        assertThat(Isbn.toIsbn13("ISBN 9780306406157")).isEmpty();
+        assertThat(Isbn.toIsbn13("978.0.306.40615.7")).isEmpty();
+    }
+}
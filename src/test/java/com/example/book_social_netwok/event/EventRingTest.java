@@ -0,0 +1,120 @@
+package com.example.book_social_netwok.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventRingTest {
+
+    private static DomainEvent event(int id) {
+        return new DomainEvent.UserActivated(id, "user" + id + "@example.com");
+    }
+
+    @Test
+    void roundsTheSizeUpToAPowerOfTwo() {
+        assertThat(new EventRing(5, WaitStrategy.SLEEPING).capacity()).isEqualTo(8);
+        assertThat(new EventRing(8, WaitStrategy.SLEEPING).capacity()).isEqualTo(8);
+    }
+
+    @Test
+    void pollsEventsInPublishOrder() throws InterruptedException {
+        EventRing ring = new EventRing(8, WaitStrategy.SLEEPING);
+        for (int i = 0; i < 3; i++) {
+            assertThat(ring.tryPublish(event(i))).isTrue();
+        }
+
+        List<DomainEvent> batch = new ArrayList<>();
+        int polled = ring.poll(batch, 10, TimeUnit.MILLISECONDS.toNanos(10));
+        ring.release(polled);
+
+        assertThat(polled).isEqualTo(3);
+        assertThat(batch).containsExactly(event(0), event(1), event(2));
+        assertThat(ring.lag()).isZero();
+    }
+
+    @Test
+    void rejectsWhenFullUntilTheConsumerReleases() throws InterruptedException {
+        EventRing ring = new EventRing(4, WaitStrategy.SLEEPING);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.tryPublish(event(i))).isTrue();
+        }
+        assertThat(ring.tryPublish(event(4))).isFalse();
+
+        List<DomainEvent> batch = new ArrayList<>();
+        int polled = ring.poll(batch, 2, TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(ring.tryPublish(event(4))).isFalse();
+        ring.release(polled);
+
+        assertThat(ring.tryPublish(event(4))).isTrue();
+        assertThat(ring.tryPublish(event(5))).isTrue();
+        assertThat(ring.tryPublish(event(6))).isFalse();
+    }
+
+    @Test
+    void pollLimitsTheBatchAndTimesOutWhenEmpty() throws InterruptedException {
+        EventRing ring = new EventRing(8, WaitStrategy.BLOCKING);
+        for (int i = 0; i < 5; i++) {
+            ring.tryPublish(event(i));
+        }
+
+        List<DomainEvent> batch = new ArrayList<>();
+        ring.release(ring.poll(batch, 2, TimeUnit.MILLISECONDS.toNanos(10)));
+        assertThat(batch).containsExactly(event(0), event(1));
+
+        batch.clear();
+        ring.release(ring.poll(batch, 10, TimeUnit.MILLISECONDS.toNanos(10)));
+        assertThat(batch).containsExactly(event(2), event(3), event(4));
+
+        batch.clear();
+        assertThat(ring.poll(batch, 10, TimeUnit.MILLISECONDS.toNanos(10))).isZero();
+        assertThat(batch).isEmpty();
+    }
+
+    @Test
+    void deliversEveryEventFromConcurrentProducersOnce() throws Exception {
+        EventRing ring = new EventRing(64, WaitStrategy.BLOCKING);
+        int producers = 4;
+        int perProducer = 2_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        assertThat(ring.publish(event(base + i), TimeUnit.SECONDS.toNanos(10))).isTrue();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        Set<DomainEvent> received = new HashSet<>();
+        List<DomainEvent> batch = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received.size() < producers * perProducer && System.nanoTime() < deadline) {
+            batch.clear();
+            int polled = ring.poll(batch, 32, TimeUnit.MILLISECONDS.toNanos(100));
+            received.addAll(batch);
+            ring.release(polled);
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        assertThat(received).hasSize(producers * perProducer);
+        assertThat(ring.lag()).isZero();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.book_social_netwok.feedback;
+
+import com.example.book_social_netwok.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.INVALID_CURSOR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FeedbackCursorTest {
+
+    @Test
+    void roundTripsThePositionOfEachSort() {
+        Feedback feedback = Feedback.builder()
+                .id(42)
+                .createdDate(LocalDateTime.of(2024, 5, 1, 12, 30, 15))
+                .note(4.5)
+                .helpfulCount(7)
+                .build();
+
+        for (FeedbackSort sort : FeedbackSort.values()) {
+            FeedbackCursor cursor = FeedbackCursor.after(sort, feedback);
+
+            assertThat(FeedbackCursor.decode(sort, cursor.encode())).isEqualTo(cursor);
+        }
+    }
+
+    @Test
+    void decodesTheKeysOfTheSort() {
+        Feedback feedback = Feedback.builder()
+                .id(3)
+                .createdDate(LocalDateTime.of(2024, 5, 1, 12, 30))
+                .note(2.0)
+                .helpfulCount(9)
+                .build();
+
+        assertThat(FeedbackCursor.decode(FeedbackSort.NEWEST, FeedbackCursor.after(FeedbackSort.NEWEST, feedback).encode()).dateKey())
+                .isEqualTo(feedback.getCreatedDate());
+        assertThat(FeedbackCursor.decode(FeedbackSort.LOWEST, FeedbackCursor.after(FeedbackSort.LOWEST, feedback).encode()).noteKey())
+                .isEqualTo(2.0);
+        assertThat(FeedbackCursor.decode(FeedbackSort.MOST_HELPFUL, FeedbackCursor.after(FeedbackSort.MOST_HELPFUL, feedback).encode()).intKey())
+                .isEqualTo(9);
+    }
+
+    @Test
+    void startsFromTheFirstPositionWithoutCursor() {
+        assertThat(FeedbackCursor.decode(FeedbackSort.HIGHEST, null)).isEqualTo(FeedbackCursor.first(FeedbackSort.HIGHEST));
+        assertThat(FeedbackCursor.decode(FeedbackSort.NEWEST, " ")).isEqualTo(FeedbackCursor.first(FeedbackSort.NEWEST));
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSort() {
+        String highest = FeedbackCursor.first(FeedbackSort.HIGHEST).encode();
+
+        assertThatThrownBy(() -> FeedbackCursor.decode(FeedbackSort.LOWEST, highest))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode")
+                .isEqualTo(INVALID_CURSOR);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        String badKey = Base64.getUrlEncoder().encodeToString("NEWEST|yesterday|1".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> FeedbackCursor.decode(FeedbackSort.NEWEST, "%%%"))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode")
+                .isEqualTo(INVALID_CURSOR);
+        assertThatThrownBy(() -> FeedbackCursor.decode(FeedbackSort.NEWEST, badKey))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode")
+                .isEqualTo(INVALID_CURSOR);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.book_social_netwok.feedback;
+
+import com.example.book_social_netwok.book.BookCache;
+import com.example.book_social_netwok.book.BookRepository;
+import com.example.book_social_netwok.edition.EditionRepository;
+import com.example.book_social_netwok.event.DomainEventPublisher;
+import com.example.book_social_netwok.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.BOOK_NOT_FOUND;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class FeedbackServiceTest {
+
+    private BookRepository bookRepository;
+    private BookRatingSummaryRepository bookRatingSummaryRepository;
+    private FeedbackService feedbackService;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        bookRatingSummaryRepository = mock(BookRatingSummaryRepository.class);
+        feedbackService = new FeedbackService(bookRepository, new FeedbackMapper(), mock(FeedbackRepository.class),
+                bookRatingSummaryRepository, mock(EditionRepository.class), mock(FeedbackVoteRepository.class),
+                mock(DomainEventPublisher.class), mock(BookCache.class));
+    }
+
+    @Test
+    void summarizesTheStoredRatings() {
+        when(bookRatingSummaryRepository.findById(7)).thenReturn(Optional.of(BookRatingSummary.builder()
+                .bookId(7).feedbackCount(2).noteSum(7.0).threeStars(1).fourStars(1).build()));
+
+        RatingSummaryResponse summary = feedbackService.findRatingSummary(7);
+
+        assertThat(summary.getAverage()).isEqualTo(3.5);
+        assertThat(summary.getHistogram()).isEqualTo(List.of(0L, 0L, 1L, 1L, 0L));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void aBookWithoutFeedbackHasAnEmptySummary() {
+        when(bookRatingSummaryRepository.findById(7)).thenReturn(Optional.empty());
+        when(bookRepository.existsById(7)).thenReturn(true);
+
+        RatingSummaryResponse summary = feedbackService.findRatingSummary(7);
+
+        assertThat(summary.getCount()).isZero();
+        assertThat(summary.getAverage()).isZero();
+    }
+
+    @Test
+    void aMissingBookIsNotFound() {
+        when(bookRatingSummaryRepository.findById(99)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> feedbackService.findRatingSummary(99))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .extracting("errorCode").isEqualTo(BOOK_NOT_FOUND);
+    }
+}
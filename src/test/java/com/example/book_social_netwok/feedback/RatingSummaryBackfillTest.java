@@ -0,0 +1,62 @@
+package com.example.book_social_netwok.feedback;
+
+import com.example.book_social_netwok.common.MaintenanceMarkerRepository;
+import com.example.book_social_netwok.edition.EditionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.mockito.Mockito.*;
+
+class RatingSummaryBackfillTest {
+
+    private FeedbackRepository feedbackRepository;
+    private BookRatingSummaryRepository bookRatingSummaryRepository;
+    private EditionRepository editionRepository;
+    private MaintenanceMarkerRepository maintenanceMarkerRepository;
+    private RatingSummaryBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        feedbackRepository = mock(FeedbackRepository.class);
+        bookRatingSummaryRepository = mock(BookRatingSummaryRepository.class);
+        editionRepository = mock(EditionRepository.class);
+        maintenanceMarkerRepository = mock(MaintenanceMarkerRepository.class);
+        backfill = new RatingSummaryBackfill(feedbackRepository, bookRatingSummaryRepository, editionRepository,
+                maintenanceMarkerRepository, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void aDatabaseThatWasCheckedBeforeIsNotCountedAgain() {
+        when(maintenanceMarkerRepository.existsById("rating-summary-backfill")).thenReturn(true);
+
+        backfill.backfill();
+
+        verifyNoInteractions(feedbackRepository, bookRatingSummaryRepository, editionRepository);
+        verify(maintenanceMarkerRepository, never()).markCompleted(any());
+    }
+
+    @Test
+    void rebuildsMissingSummariesOnceAndLeavesTheMarker() {
+        when(feedbackRepository.count()).thenReturn(10L);
+        when(bookRatingSummaryRepository.sumFeedbackCounts()).thenReturn(4L);
+
+        backfill.backfill();
+
+        verify(bookRatingSummaryRepository).rebuildFromFeedback();
+        verify(editionRepository).recountAllRatings();
+        verify(maintenanceMarkerRepository).markCompleted("rating-summary-backfill");
+    }
+
+    @Test
+    void summariesThatAlreadyAgreeOnlyGetTheMarker() {
+        when(feedbackRepository.count()).thenReturn(10L);
+        when(bookRatingSummaryRepository.sumFeedbackCounts()).thenReturn(10L);
+
+        backfill.backfill();
+
+        verify(bookRatingSummaryRepository, never()).rebuildFromFeedback();
+        verifyNoInteractions(editionRepository);
+        verify(maintenanceMarkerRepository).markCompleted("rating-summary-backfill");
+    }
+}
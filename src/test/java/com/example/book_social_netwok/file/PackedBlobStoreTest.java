@@ -0,0 +1,121 @@
+package com.example.book_social_netwok.file;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PackedBlobStoreTest {
+
+    private static final int HEADER_BYTES = 20;
+
+    @TempDir
+    Path directory;
+
+    private PackedBlobStore open(DataSize segmentSize) throws IOException {
+        PackedBlobStore store = new PackedBlobStore(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(store, "directory", directory);
+        ReflectionTestUtils.setField(store, "segmentSize", segmentSize);
+        ReflectionTestUtils.setField(store, "maxBlobSize", DataSize.ofKilobytes(1));
+        ReflectionTestUtils.setField(store, "compactionGarbageRatio", 0.5);
+        store.open();
+        return store;
+    }
+
+    @Test
+    void blobsSurviveAReopenWithAndWithoutASnapshot() throws IOException {
+        PackedBlobStore store = open(DataSize.ofKilobytes(64));
+        String kept = store.put(bytes(100, 1));
+        String deleted = store.put(bytes(50, 2));
+        store.snapshot();
+        // written after the snapshot, only replay finds these
+        String late = store.put(bytes(70, 3));
+        store.delete(deleted);
+
+        PackedBlobStore reopened = open(DataSize.ofKilobytes(64));
+
+        assertThat(reopened.get(kept)).isEqualTo(bytes(100, 1));
+        assertThat(reopened.get(late)).isEqualTo(bytes(70, 3));
+        assertThat(reopened.get(deleted)).isNull();
+        assertThat(reopened.put(bytes(10, 4))).isNotIn(kept, deleted, late);
+    }
+
+    @Test
+    void aTornAppendIsDroppedAndOverwritten() throws IOException {
+        PackedBlobStore store = open(DataSize.ofKilobytes(64));
+        String first = store.put(bytes(100, 1));
+        String torn = store.put(bytes(100, 2));
+        // a crash left the second record's body half written
+        corrupt(directory.resolve("00000001.seg"), HEADER_BYTES + 100 + HEADER_BYTES + 60);
+
+        PackedBlobStore reopened = open(DataSize.ofKilobytes(64));
+        assertThat(reopened.get(first)).isEqualTo(bytes(100, 1));
+        assertThat(reopened.get(torn)).isNull();
+
+        String next = reopened.put(bytes(30, 3));
+        PackedBlobStore again = open(DataSize.ofKilobytes(64));
+        assertThat(again.get(first)).isEqualTo(bytes(100, 1));
+        assertThat(again.get(next)).isEqualTo(bytes(30, 3));
+    }
+
+    @Test
+    void aDeletedBlobStaysDeletedWhenTheIndexIsRebuiltAfterCompaction() throws IOException {
+        PackedBlobStore store = open(DataSize.ofBytes(256));
+        // segment 1: a large live blob and a small one deleted later, mostly live so it is not compacted
+        String live = store.put(bytes(170, 1));
+        String deleted = store.put(bytes(40, 2));
+        // segment 2: the tombstone of the small blob and a blob that comes and goes, all garbage
+        store.delete(deleted);
+        store.delete(store.put(bytes(150, 3)));
+        // segment 3 becomes the active one
+        String last = store.put(bytes(150, 4));
+
+        store.compact();
+        assertThat(Files.exists(directory.resolve("00000002.seg"))).isFalse();
+        Files.write(directory.resolve("index.snapshot"), new byte[]{1, 2, 3});
+
+        PackedBlobStore rebuilt = open(DataSize.ofBytes(256));
+        assertThat(rebuilt.get(live)).isEqualTo(bytes(170, 1));
+        assertThat(rebuilt.get(last)).isEqualTo(bytes(150, 4));
+        assertThat(rebuilt.get(deleted)).isNull();
+    }
+
+    @Test
+    void compactionKeepsTheLiveBlobs() throws IOException {
+        PackedBlobStore store = open(DataSize.ofBytes(256));
+        String survivor = store.put(bytes(40, 1));
+        store.delete(store.put(bytes(150, 2)));
+        String next = store.put(bytes(150, 3));
+
+        store.compact();
+
+        assertThat(Files.exists(directory.resolve("00000001.seg"))).isFalse();
+        assertThat(store.get(survivor)).isEqualTo(bytes(40, 1));
+        PackedBlobStore reopened = open(DataSize.ofBytes(256));
+        assertThat(reopened.get(survivor)).isEqualTo(bytes(40, 1));
+        assertThat(reopened.get(next)).isEqualTo(bytes(150, 3));
+    }
+
+    private static byte[] bytes(int length, int fill) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) fill);
+        return bytes;
+    }
+
+    private static void corrupt(Path segment, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xff}), position);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.book_social_netwok.geo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookGeoIndexTest {
+
+    private static final Comparator<BookGeoIndex.Match> ORDER =
+            Comparator.comparingDouble(BookGeoIndex.Match::distanceKm).thenComparing(BookGeoIndex.Match::bookId);
+
+    private final Random random = new Random(42);
+    private final List<GeoUserRow> owners = new ArrayList<>();
+    private final List<GeoBookRow> books = new ArrayList<>();
+    private BookGeoIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // owners clustered around Paris plus a few near the pole and the antimeridian
+        for (int ownerId = 1; ownerId <= 300; ownerId++) {
+            owners.add(new GeoUserRow(ownerId, 48.85 + random.nextGaussian() * 0.3, 2.35 + random.nextGaussian() * 0.4));
+        }
+        owners.add(new GeoUserRow(301, 89.95, 10.0));
+        owners.add(new GeoUserRow(302, 89.97, -170.0));
+        owners.add(new GeoUserRow(303, 10.0, 179.98));
+        owners.add(new GeoUserRow(304, 10.0, -179.98));
+        for (int bookId = 1; bookId <= 1200; bookId++) {
+            books.add(new GeoBookRow(bookId, 1 + bookId % owners.size()));
+        }
+
+        GeoRepository geoRepository = mock(GeoRepository.class);
+        when(geoRepository.streamLocatedUsers()).thenAnswer(invocation -> owners.stream());
+        when(geoRepository.streamVisibleBooks()).thenAnswer(invocation -> books.stream());
+        index = new BookGeoIndex(geoRepository, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(index, "cellDegrees", 0.1);
+        index.load();
+    }
+
+    @Test
+    void ringSearchMatchesAFullScan() {
+        for (int i = 0; i < 50; i++) {
+            GeoPoint origin = new GeoPoint(48.85 + random.nextGaussian() * 0.5, 2.35 + random.nextGaussian() * 0.5);
+            double radiusKm = 1 + random.nextDouble() * 99;
+            int limit = 1 + random.nextInt(30);
+
+            assertThat(index.findNearby(origin, radiusKm, 1, GeoCursor.FIRST, limit))
+                    .containsExactlyElementsOf(scan(origin, radiusKm, 1, GeoCursor.FIRST, limit));
+        }
+    }
+
+    @Test
+    void pagesWalkThroughEveryBookInRangeOnce() {
+        GeoPoint origin = new GeoPoint(48.85, 2.35);
+        List<BookGeoIndex.Match> all = new ArrayList<>();
+        GeoCursor cursor = GeoCursor.FIRST;
+        while (true) {
+            List<BookGeoIndex.Match> page = index.findNearby(origin, 50, null, cursor, 7);
+            if (page.isEmpty()) {
+                break;
+            }
+            all.addAll(page);
+            BookGeoIndex.Match last = page.get(page.size() - 1);
+            cursor = GeoCursor.decode(new GeoCursor(last.distanceKm(), last.bookId()).encode());
+        }
+
+        assertThat(all).containsExactlyElementsOf(scan(origin, 50, null, GeoCursor.FIRST, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void searchesNearThePoleAndAcrossTheAntimeridian() {
+        GeoPoint pole = new GeoPoint(89.9, 100.0);
+        GeoPoint dateLine = new GeoPoint(10.0, -179.99);
+
+        assertThat(index.findNearby(pole, 20, null, GeoCursor.FIRST, 100))
+                .containsExactlyElementsOf(scan(pole, 20, null, GeoCursor.FIRST, 100))
+                .isNotEmpty();
+        assertThat(index.findNearby(dateLine, 20, null, GeoCursor.FIRST, 100))
+                .containsExactlyElementsOf(scan(dateLine, 20, null, GeoCursor.FIRST, 100))
+                .isNotEmpty();
+    }
+
+    private List<BookGeoIndex.Match> scan(GeoPoint origin, double radiusKm, Integer excludedOwnerId, GeoCursor after,
+                                          int limit) {
+        Map<Integer, GeoPoint> locations = new HashMap<>();
+        owners.forEach(owner -> locations.put(owner.userId(), new GeoPoint(owner.latitude(), owner.longitude())));
+        return books.stream()
+                .filter(book -> !Objects.equals(book.ownerId(), excludedOwnerId))
+                .map(book -> new BookGeoIndex.Match(book.bookId(), origin.distanceKm(locations.get(book.ownerId()))))
+                .filter(match -> match.distanceKm() <= radiusKm && after.isBefore(match.distanceKm(), match.bookId()))
+                .sorted(ORDER)
+                .limit(limit)
+                .toList();
+    }
+}
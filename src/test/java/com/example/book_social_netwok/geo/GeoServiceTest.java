@@ -0,0 +1,62 @@
+package com.example.book_social_netwok.geo;
+
+import com.example.book_social_netwok.book.BookService;
+import com.example.book_social_netwok.event.DomainEventPublisher;
+import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.user.User;
+import com.example.book_social_netwok.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GeoServiceTest {
+
+    private final Authentication reader = new UsernamePasswordAuthenticationToken(
+            User.builder().id(1).roles(List.of()).build(), null, List.of());
+    private GeoService geoService;
+
+    @BeforeEach
+    void setUp() {
+        BookGeoIndex bookGeoIndex = mock(BookGeoIndex.class);
+        when(bookGeoIndex.findOwnerLocation(1)).thenReturn(Optional.of(new GeoPoint(48.85, 2.35)));
+        geoService = new GeoService(bookGeoIndex, mock(BookService.class), mock(UserRepository.class),
+                mock(DomainEventPublisher.class));
+        ReflectionTestUtils.setField(geoService, "maxRadiusKm", 100.0);
+        ReflectionTestUtils.setField(geoService, "maxPageSize", 50);
+    }
+
+    @Test
+    void rejectsOnlyOneCoordinate() {
+        assertThatThrownBy(() -> geoService.findNearbyBooks(48.85, null, 10, null, 10, reader))
+                .isInstanceOf(OperationNotPermittedException.class);
+        assertThatThrownBy(() -> geoService.findNearbyBooks(null, 2.35, 10, null, 10, reader))
+                .isInstanceOf(OperationNotPermittedException.class);
+    }
+
+    @Test
+    void rejectsNotANumber() {
+        assertThatThrownBy(() -> geoService.findNearbyBooks(Double.NaN, 2.35, 10, null, 10, reader))
+                .isInstanceOf(OperationNotPermittedException.class);
+        assertThatThrownBy(() -> geoService.findNearbyBooks(48.85, Double.NaN, 10, null, 10, reader))
+                .isInstanceOf(OperationNotPermittedException.class);
+        assertThatThrownBy(() -> geoService.findNearbyBooks(null, null, Double.NaN, null, 10, reader))
+                .isInstanceOf(OperationNotPermittedException.class);
+    }
+
+    @Test
+    void rejectsACursorWithoutAFiniteDistance() {
+        String cursor = new GeoCursor(Double.NaN, 3).encode();
+
+        assertThatThrownBy(() -> geoService.findNearbyBooks(null, null, 10, cursor, 10, reader))
+                .isInstanceOf(OperationNotPermittedException.class);
+    }
+}
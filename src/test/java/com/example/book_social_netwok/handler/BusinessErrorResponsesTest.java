@@ -0,0 +1,64 @@
+package com.example.book_social_netwok.handler;
+
+import com.example.book_social_netwok.exception.BusinessException;
+import com.example.book_social_netwok.exception.OperationNotPermittedException;
+import com.example.book_social_netwok.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.BOOK_NOT_FOUND;
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.NOT_BOOK_OWNER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BusinessErrorResponsesTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BusinessErrorResponses businessErrorResponses = new BusinessErrorResponses(meterRegistry);
+
+    @Test
+    void answersACodeOnlyRejectionWithThePreallocatedResponse() {
+        ResponseEntity<ExceptionResponse> first = businessErrorResponses.reject(new ResourceNotFoundException(BOOK_NOT_FOUND));
+        ResponseEntity<ExceptionResponse> second = businessErrorResponses.reject(new ResourceNotFoundException(BOOK_NOT_FOUND));
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(first.getBody().getBusinessErrorCode()).isEqualTo(BOOK_NOT_FOUND.getCode());
+        assertThat(first.getBody().getError()).isEqualTo(BOOK_NOT_FOUND.getDescription());
+    }
+
+    @Test
+    void buildsAFreshResponseForADetailedMessage() {
+        ResponseEntity<ExceptionResponse> template = businessErrorResponses.reject(new OperationNotPermittedException(NOT_BOOK_OWNER));
+        ResponseEntity<ExceptionResponse> detailed = businessErrorResponses.reject(
+                new OperationNotPermittedException(NOT_BOOK_OWNER, "Book 7 belongs to someone else"));
+
+        assertThat(detailed).isNotSameAs(template);
+        assertThat(detailed.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(detailed.getBody().getBusinessErrorCode()).isEqualTo(NOT_BOOK_OWNER.getCode());
+        assertThat(detailed.getBody().getBusinessErrorDescription()).isEqualTo(NOT_BOOK_OWNER.getDescription());
+        assertThat(detailed.getBody().getError()).isEqualTo("Book 7 belongs to someone else");
+        // the template is left untouched for the next code-only rejection
+        assertThat(template.getBody().getError()).isEqualTo(NOT_BOOK_OWNER.getDescription());
+    }
+
+    @Test
+    void countsEveryRejectionUnderItsCode() {
+        businessErrorResponses.reject(new ResourceNotFoundException(BOOK_NOT_FOUND));
+        businessErrorResponses.reject(new BusinessException(BOOK_NOT_FOUND, "No book 7"));
+        businessErrorResponses.reject(new OperationNotPermittedException(NOT_BOOK_OWNER));
+
+        assertThat(meterRegistry.get("business.rejections").tag("code", BOOK_NOT_FOUND.name()).counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("business.rejections").tag("code", NOT_BOOK_OWNER.name()).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void capturesNoStackTrace() {
+        BusinessException ex = new OperationNotPermittedException(NOT_BOOK_OWNER);
+
+        assertThat(ex.getStackTrace()).isEmpty();
+        assertThat(ex.isDetailed()).isFalse();
+        assertThat(ex.getMessage()).isEqualTo(NOT_BOOK_OWNER.getDescription());
+    }
+}
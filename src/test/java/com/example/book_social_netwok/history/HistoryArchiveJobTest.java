@@ -0,0 +1,127 @@
+package com.example.book_social_netwok.history;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class HistoryArchiveJobTest {
+
+    // hot rows by id, true when the return was approved
+    private final TreeMap<Integer, Boolean> hot = new TreeMap<>();
+    private final TreeSet<Integer> archived = new TreeSet<>();
+    private final List<Integer> copiedPerBatch = new ArrayList<>();
+
+    private BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private HistoryArchiveJob historyArchiveJob;
+
+    @BeforeEach
+    void setUp() {
+        bookTransactionHistoryRepository = mock(BookTransactionHistoryRepository.class);
+        when(bookTransactionHistoryRepository.findArchivableIds(any(), any())).thenAnswer(invocation -> {
+            Pageable page = invocation.getArgument(1);
+            return hot.entrySet().stream().filter(row -> row.getValue())
+                    .map(row -> row.getKey()).limit(page.getPageSize()).toList();
+        });
+        doAnswer(invocation -> {
+            invocation.<Collection<Integer>>getArgument(0).forEach(hot::remove);
+            return null;
+        }).when(bookTransactionHistoryRepository).deleteAllByIdInBatch(any());
+        when(bookTransactionHistoryRepository.count()).thenAnswer(invocation -> (long) hot.size());
+        ArchivedBookTransactionRepository archivedBookTransactionRepository = mock(ArchivedBookTransactionRepository.class);
+        when(archivedBookTransactionRepository.copyFromHistory(any())).thenAnswer(invocation -> copy(invocation.getArgument(0)));
+        meterRegistry = new SimpleMeterRegistry();
+        historyArchiveJob = new HistoryArchiveJob(bookTransactionHistoryRepository, archivedBookTransactionRepository,
+                mock(PlatformTransactionManager.class), meterRegistry);
+        ReflectionTestUtils.setField(historyArchiveJob, "approvedRetention", Duration.ofDays(1));
+        ReflectionTestUtils.setField(historyArchiveJob, "batchSize", 2);
+        ReflectionTestUtils.setField(historyArchiveJob, "maxBatches", 10);
+    }
+
+    @Test
+    void movesOnlyApprovedReturnsInBatches() {
+        hot(1, true);
+        hot(2, false);
+        hot(3, true);
+        hot(4, true);
+        hot(5, false);
+
+        historyArchiveJob.archive();
+
+        assertThat(archived).containsExactly(1, 3, 4);
+        assertThat(hot).containsOnlyKeys(2, 5);
+        assertThat(copiedPerBatch).containsExactly(2, 1);
+        assertThat(meterRegistry.get("history.archived").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("history.hot.size").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void replaysABatchWhoseCopyIsAlreadyArchived() {
+        // a run stopped after the copy and before the hot rows were deleted
+        hot(1, true);
+        hot(2, true);
+        hot(3, true);
+        archived.add(1);
+        archived.add(2);
+
+        historyArchiveJob.archive();
+
+        // the ignored duplicates do not fail the batch, the hot rows still go
+        assertThat(archived).containsExactly(1, 2, 3);
+        assertThat(hot).isEmpty();
+        assertThat(copiedPerBatch).containsExactly(0, 1);
+    }
+
+    @Test
+    void stopsAfterTheBatchLimit() {
+        ReflectionTestUtils.setField(historyArchiveJob, "maxBatches", 2);
+        for (int id = 1; id <= 7; id++) {
+            hot(id, true);
+        }
+
+        historyArchiveJob.archive();
+
+        assertThat(archived).containsExactly(1, 2, 3, 4);
+        assertThat(hot).containsOnlyKeys(5, 6, 7);
+    }
+
+    @Test
+    void anEmptyRunOnlyRefreshesTheSize() {
+        hot(1, false);
+
+        historyArchiveJob.archive();
+
+        verify(bookTransactionHistoryRepository, never()).deleteAllByIdInBatch(any());
+        assertThat(meterRegistry.get("history.hot.size").gauge().value()).isEqualTo(1);
+    }
+
+    // mirrors INSERT IGNORE: ids already in the archive are skipped and not counted
+    private int copy(Collection<Integer> ids) {
+        int inserted = 0;
+        for (Integer id : ids) {
+            if (Boolean.TRUE.equals(hot.get(id)) && archived.add(id)) {
+                inserted++;
+            }
+        }
+        copiedPerBatch.add(inserted);
+        return inserted;
+    }
+
+    private void hot(int id, boolean approved) {
+        hot.put(id, approved);
+    }
+}
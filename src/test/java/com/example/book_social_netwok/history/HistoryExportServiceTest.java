@@ -0,0 +1,101 @@
+package com.example.book_social_netwok.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class HistoryExportServiceTest {
+
+    private static final int USER = 5;
+    private static final LocalDateTime BORROWED_AT = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    // the order cursors are opened and closed in
+    private final List<String> cursors = new ArrayList<>();
+
+    private BookTransactionHistoryRepository bookTransactionHistoryRepository;
+    private ArchivedBookTransactionRepository archivedBookTransactionRepository;
+    private PlatformTransactionManager transactionManager;
+    private HistoryExportService historyExportService;
+
+    @BeforeEach
+    void setUp() {
+        bookTransactionHistoryRepository = mock(BookTransactionHistoryRepository.class);
+        archivedBookTransactionRepository = mock(ArchivedBookTransactionRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        historyExportService = new HistoryExportService(bookTransactionHistoryRepository, archivedBookTransactionRepository,
+                new ObjectMapper().findAndRegisterModules(), transactionManager);
+    }
+
+    @Test
+    void writesArchivedLoansBeforeTheHotOnesOneCursorAtATime() throws IOException {
+        when(archivedBookTransactionRepository.streamBorrowedBooks(USER)).thenAnswer(invocation ->
+                cursor("archive", row(1, "Dune"), row(2, "Emma")));
+        when(bookTransactionHistoryRepository.streamBorrowedBooks(USER)).thenAnswer(invocation ->
+                cursor("hot", row(9, "Ulysses")));
+
+        String csv = write(historyExportService.exportBorrowedBooks(USER, HistoryExportFormat.CSV));
+
+        assertThat(csv.lines()).containsExactly(
+                "transactionId,bookId,title,authorName,isbn,borrowerId,ownerId,returned,returnedApproved,borrowedAt,lastModifiedAt",
+                "1,101,Dune,Author,9780306406157,5,1,true,true,2024-03-01T10:00,",
+                "2,102,Emma,Author,9780306406157,5,1,true,true,2024-03-01T10:00,",
+                "9,109,Ulysses,Author,9780306406157,5,1,true,true,2024-03-01T10:00,");
+        assertThat(cursors).containsExactly("open archive", "close archive", "open hot", "close hot");
+    }
+
+    @Test
+    void opensTheTransactionOnlyOnceTheBodyIsWritten() throws IOException {
+        when(archivedBookTransactionRepository.streamLentBooks(USER)).thenAnswer(invocation -> cursor("archive"));
+        when(bookTransactionHistoryRepository.streamLentBooks(USER)).thenAnswer(invocation -> cursor("hot", row(9, "Ulysses")));
+
+        StreamingResponseBody body = historyExportService.exportLentBooks(USER, HistoryExportFormat.NDJSON);
+
+        verifyNoInteractions(transactionManager, bookTransactionHistoryRepository, archivedBookTransactionRepository);
+        String ndjson = write(body);
+        verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()));
+        verify(transactionManager).commit(any());
+        assertThat(ndjson.lines()).singleElement().asString()
+                .contains("\"transactionId\":9", "\"title\":\"Ulysses\"");
+    }
+
+    @Test
+    void quotesCsvFieldsThatNeedIt() throws IOException {
+        when(archivedBookTransactionRepository.streamBorrowedBooks(USER)).thenAnswer(invocation -> cursor("archive"));
+        when(bookTransactionHistoryRepository.streamBorrowedBooks(USER)).thenAnswer(invocation ->
+                cursor("hot", row(1, "Dune, \"Messiah\"")));
+
+        String csv = write(historyExportService.exportBorrowedBooks(USER, HistoryExportFormat.CSV));
+
+        assertThat(csv.lines()).element(1).asString().startsWith("1,101,\"Dune, \"\"Messiah\"\"\",Author,");
+    }
+
+    private Stream<BookTransactionExportRow> cursor(String name, BookTransactionExportRow... rows) {
+        cursors.add("open " + name);
+        return Stream.of(rows).onClose(() -> cursors.add("close " + name));
+    }
+
+    private static BookTransactionExportRow row(int transactionId, String title) {
+        return new BookTransactionExportRow(transactionId, 100 + transactionId, title, "Author", "9780306406157",
+                USER, 1, true, true, BORROWED_AT, null);
+    }
+
+    private static String write(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toString(UTF_8);
+    }
+}
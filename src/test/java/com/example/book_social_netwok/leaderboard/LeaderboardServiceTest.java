@@ -0,0 +1,83 @@
+package com.example.book_social_netwok.leaderboard;
+
+import com.example.book_social_netwok.event.DomainEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class LeaderboardServiceTest {
+
+    private LeaderboardRepository leaderboardRepository;
+    private LeaderboardService leaderboardService;
+
+    @BeforeEach
+    void setUp() {
+        leaderboardRepository = mock(LeaderboardRepository.class);
+        leaderboardService = new LeaderboardService(leaderboardRepository, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(leaderboardService, "windowBuckets", 24);
+        ReflectionTestUtils.setField(leaderboardService, "bucketMillis", 3_600_000L);
+        ReflectionTestUtils.setField(leaderboardService, "topK", 10);
+        ReflectionTestUtils.setField(leaderboardService, "minRatings", 2);
+    }
+
+    @Test
+    void aNewEntryTakesTheVisibilityFromTheEventWithoutAQuery() {
+        leaderboardService.onEvents(List.of(borrowed(1, true), borrowed(2, false)));
+        leaderboardService.refresh();
+
+        assertThat(leaderboardService.findTrending(10)).extracting(LeaderboardEntryResponse::getBookId)
+                .containsExactly(1);
+        verifyNoInteractions(leaderboardRepository);
+    }
+
+    @Test
+    void anExistingEntryKeepsTheVisibilityOfTheLastUpdate() {
+        leaderboardService.onEvents(List.of(
+                borrowed(1, true),
+                new DomainEvent.BookUpdated(1, 9, false),
+                // read before the book was hidden, committed after
+                borrowed(1, true)));
+        leaderboardService.refresh();
+
+        assertThat(leaderboardService.findTrending(10)).isEmpty();
+    }
+
+    @Test
+    void ratesFromTheSummaryTotalsCarriedByTheEvent() {
+        // the summary already held ratings from before the board knew the book
+        leaderboardService.onEvents(List.of(feedback(1, 4, 18.0), feedback(2, 3, 6.0)));
+        leaderboardService.refresh();
+
+        assertThat(leaderboardService.findTopRated(10)).satisfiesExactly(
+                first -> {
+                    assertThat(first.getBookId()).isEqualTo(1);
+                    assertThat(first.getRate()).isEqualTo(4.5);
+                },
+                second -> assertThat(second.getRate()).isEqualTo(2.0));
+    }
+
+    @Test
+    void aLateEventDoesNotRollTheTotalsBack() {
+        leaderboardService.onEvents(List.of(feedback(1, 5, 25.0), feedback(1, 4, 8.0)));
+        leaderboardService.refresh();
+
+        assertThat(leaderboardService.findTopRated(10)).singleElement()
+                .satisfies(entry -> assertThat(entry.getRate()).isEqualTo(5.0));
+    }
+
+    private static DomainEvent.BookBorrowed borrowed(int bookId, boolean visible) {
+        return new DomainEvent.BookBorrowed(bookId, "Title " + bookId, "Author", 9, 5, 100 + bookId, visible);
+    }
+
+    private static DomainEvent.FeedbackAdded feedback(int bookId, long feedbackCount, double noteSum) {
+        return new DomainEvent.FeedbackAdded(bookId, "Title " + bookId, "Author", 200 + bookId, 5,
+                feedbackCount, noteSum, true);
+    }
+}
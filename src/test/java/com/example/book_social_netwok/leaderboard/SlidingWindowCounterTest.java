@@ -0,0 +1,72 @@
+package com.example.book_social_netwok.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowCounterTest {
+
+    private static final long BUCKET = 1000;
+
+    @Test
+    void sumsIncrementsInsideTheWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(3, BUCKET);
+
+        counter.increment(0);
+        counter.increment(500);
+        counter.increment(1500);
+        counter.increment(2999);
+
+        assertThat(counter.sum(2999)).isEqualTo(4);
+    }
+
+    @Test
+    void dropsBucketsThatLeftTheWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(3, BUCKET);
+        counter.increment(0);
+        counter.increment(1000);
+
+        assertThat(counter.sum(3000)).isEqualTo(1);
+        assertThat(counter.sum(4000)).isZero();
+    }
+
+    @Test
+    void reusedSlotStartsFromOne() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(3, BUCKET);
+        counter.increment(0);
+        counter.increment(0);
+
+        counter.increment(3000);
+
+        assertThat(counter.sum(3000)).isEqualTo(1);
+    }
+
+    @Test
+    void ignoresIncrementsOlderThanTheSlot() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(3, BUCKET);
+        counter.increment(3000);
+
+        counter.increment(0);
+
+        assertThat(counter.sum(3000)).isEqualTo(1);
+    }
+
+    @Test
+    void keepsCountingUnderContention() throws InterruptedException {
+        SlidingWindowCounter counter = new SlidingWindowCounter(4, BUCKET);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int n = 0; n < 10_000; n++) {
+                    counter.increment(100);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(counter.sum(100)).isEqualTo(80_000);
+    }
+}
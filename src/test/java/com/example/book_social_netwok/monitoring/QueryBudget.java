@@ -0,0 +1,17 @@
+package com.example.book_social_netwok.monitoring;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Most SQL statements the request made by the annotated test may run, authentication included.
+ * Read by {@link QueryBudgetTests} from the X-SQL-Stats header of the response.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int statements();
+}
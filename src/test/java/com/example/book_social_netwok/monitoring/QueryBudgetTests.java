@@ -0,0 +1,128 @@
+package com.example.book_social_netwok.monitoring;
+
+import com.example.book_social_netwok.book.Book;
+import com.example.book_social_netwok.book.BookRepository;
+import com.example.book_social_netwok.user.User;
+import com.example.book_social_netwok.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the hot book endpoints once each and fails when one of them runs more SQL statements
+ * than the {@link QueryBudget} of its test.
+ */
+@SpringBootTest(properties = "application.query-budget.response-header=true")
+@AutoConfigureMockMvc
+class QueryBudgetTests {
+
+    private static final Pattern STATEMENTS = Pattern.compile("statements=(\\d+);");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private User owner;
+    private User reader;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(user());
+        reader = userRepository.save(user());
+        book = bookRepository.save(Book.builder()
+                .title("Dune")
+                .authorName("Frank Herbert")
+                .isbn("9780441172719")
+                .synopsis("Spice")
+                .shareable(true)
+                .owner(owner)
+                .createdBy(owner.getId())
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.delete(book);
+        userRepository.deleteAll(List.of(owner, reader));
+    }
+
+    @Test
+    @QueryBudget(statements = 4)
+    void findBookById(TestInfo testInfo) throws Exception {
+        assertWithinBudget(testInfo, get("/books/{book-id}", book.getId()));
+    }
+
+    @Test
+    @QueryBudget(statements = 4)
+    void findAllBooks(TestInfo testInfo) throws Exception {
+        assertWithinBudget(testInfo, get("/books"));
+    }
+
+    @Test
+    @QueryBudget(statements = 3)
+    void findBooksByIds(TestInfo testInfo) throws Exception {
+        assertWithinBudget(testInfo, get("/books").param("ids", book.getId().toString()));
+    }
+
+    @Test
+    @QueryBudget(statements = 3)
+    void findBooksByIdsInBatch(TestInfo testInfo) throws Exception {
+        assertWithinBudget(testInfo, post("/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\": [" + book.getId() + "]}"));
+    }
+
+    private void assertWithinBudget(TestInfo testInfo, MockHttpServletRequestBuilder request) throws Exception {
+        QueryBudget budget = testInfo.getTestMethod().orElseThrow().getAnnotation(QueryBudget.class);
+        MvcResult result = mockMvc.perform(request.with(authentication(
+                        new UsernamePasswordAuthenticationToken(reader, null, reader.getAuthorities()))))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String stats = result.getResponse().getHeader(QueryStatsFilter.STATS_HEADER);
+        assertThat(stats).as("X-SQL-Stats header").isNotNull();
+        Matcher matcher = STATEMENTS.matcher(stats);
+        assertThat(matcher.find()).as(stats).isTrue();
+        assertThat(Long.parseLong(matcher.group(1)))
+                .as("%s ran %s, its budget is %d statements", testInfo.getDisplayName(), stats, budget.statements())
+                .isLessThanOrEqualTo(budget.statements());
+    }
+
+    private static User user() {
+        return User.builder()
+                .firstname("Ada")
+                .lastname("Reader")
+                .email(UUID.randomUUID() + "@example.com")
+                .password("not-a-hash")
+                .enabled(true)
+                .roles(new ArrayList<>())
+                .build();
+    }
+}
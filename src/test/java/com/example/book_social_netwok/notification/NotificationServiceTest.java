@@ -0,0 +1,90 @@
+package com.example.book_social_netwok.notification;
+
+import com.example.book_social_netwok.cache.CacheCoherence;
+import com.example.book_social_netwok.cache.LoopbackInvalidationBus;
+import com.example.book_social_netwok.event.DomainEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationServiceTest {
+
+    private static final int OWNER = 9;
+
+    private final LoopbackInvalidationBus bus = new LoopbackInvalidationBus();
+
+    private NotificationService node(String nodeId, int replaySize) {
+        NotificationService notificationService = new NotificationService(new SimpleMeterRegistry(), bus,
+                new CacheCoherence(bus, new SimpleMeterRegistry(), nodeId, 1000));
+        ReflectionTestUtils.setField(notificationService, "bufferSize", 8);
+        ReflectionTestUtils.setField(notificationService, "replaySize", replaySize);
+        ReflectionTestUtils.setField(notificationService, "emitterTimeoutMillis", 60_000L);
+        return notificationService;
+    }
+
+    @Test
+    void replaysWhatCameAfterTheLastEventId() {
+        NotificationService notifications = node("a", 8);
+        notifications.onEvents(List.of(borrowed(1), borrowed(2), borrowed(3)));
+        List<Notification> all = notifications.missedSince(OWNER, "0");
+
+        List<Notification> missed = notifications.missedSince(OWNER, Long.toString(all.getFirst().id()));
+
+        assertThat(all).extracting(Notification::bookId).containsExactly(1, 2, 3);
+        assertThat(missed).extracting(Notification::bookId).containsExactly(2, 3);
+        assertThat(notifications.missedSince(OWNER, Long.toString(all.getLast().id()))).isEmpty();
+    }
+
+    @Test
+    void idsKeepGrowingForOneRecipient() {
+        NotificationService notifications = node("a", 8);
+        notifications.onEvents(List.of(borrowed(1), borrowed(2), borrowed(3)));
+
+        assertThat(notifications.missedSince(OWNER, "0")).extracting(Notification::id).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void withoutAUsableLastEventIdNothingIsReplayed() {
+        NotificationService notifications = node("a", 8);
+        notifications.onEvents(List.of(borrowed(1)));
+
+        assertThat(notifications.missedSince(OWNER, null)).isEmpty();
+        assertThat(notifications.missedSince(OWNER, " ")).isEmpty();
+        assertThat(notifications.missedSince(OWNER, "not-a-number")).isEmpty();
+        assertThat(notifications.missedSince(7, "0")).isEmpty();
+    }
+
+    @Test
+    void onlyTheLatestNotificationsAreKeptForReplay() {
+        NotificationService notifications = node("a", 2);
+        notifications.onEvents(List.of(borrowed(1), borrowed(2), borrowed(3)));
+
+        assertThat(notifications.missedSince(OWNER, "0")).extracting(Notification::bookId).containsExactly(2, 3);
+    }
+
+    @Test
+    void aStreamResumedOnAnotherNodeReplaysWithTheSameIds() {
+        NotificationService first = node("a", 8);
+        NotificationService second = node("b", 8);
+        first.onEvents(List.of(borrowed(1), borrowed(2)));
+        List<Notification> seenOnFirst = first.missedSince(OWNER, "0");
+
+        List<Notification> missedOnSecond = second.missedSince(OWNER, Long.toString(seenOnFirst.getFirst().id()));
+
+        assertThat(missedOnSecond).singleElement().satisfies(notification -> {
+            assertThat(notification.id()).isEqualTo(seenOnFirst.getLast().id());
+            assertThat(notification.type()).isEqualTo(NotificationType.BOOK_BORROWED);
+            assertThat(notification.bookTitle()).isEqualTo("Title | 2");
+            assertThat(notification.transactionId()).isEqualTo(102);
+        });
+    }
+
+    // the title holds the separator on purpose
+    private static DomainEvent.BookBorrowed borrowed(int bookId) {
+        return new DomainEvent.BookBorrowed(bookId, "Title | " + bookId, "Author", OWNER, 5, 100 + bookId, true);
+    }
+}
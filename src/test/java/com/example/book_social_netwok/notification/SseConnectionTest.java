@@ -0,0 +1,74 @@
+package com.example.book_social_netwok.notification;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+class SseConnectionTest {
+
+    // drain tasks are only run when the test says so, like a client that is not reading yet
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private SseEmitter emitter;
+    private SseConnection connection;
+
+    @BeforeEach
+    void setUp() {
+        emitter = mock(SseEmitter.class);
+        connection = new SseConnection(9, emitter, 2, tasks::add, dropped::incrementAndGet);
+    }
+
+    @Test
+    void aFullBufferDropsTheOldestEvent() throws Exception {
+        SseEmitter.SseEventBuilder first = SseEmitter.event().id("1");
+        SseEmitter.SseEventBuilder second = SseEmitter.event().id("2");
+        SseEmitter.SseEventBuilder third = SseEmitter.event().id("3");
+
+        connection.enqueue(first);
+        connection.enqueue(second);
+        connection.enqueue(third);
+        runTasks();
+
+        assertThat(dropped).hasValue(1);
+        verify(emitter, never()).send(same(first));
+        verify(emitter).send(same(second));
+        verify(emitter).send(same(third));
+    }
+
+    @Test
+    void schedulesOneDrainForABurst() {
+        connection.enqueue(SseEmitter.event().id("1"));
+        connection.enqueue(SseEmitter.event().id("2"));
+
+        assertThat(tasks).hasSize(1);
+    }
+
+    @Test
+    void aFailedWriteClosesTheConnection() throws Exception {
+        doThrow(new IOException("broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+
+        connection.enqueue(SseEmitter.event().id("1"));
+        runTasks();
+        connection.enqueue(SseEmitter.event().id("2"));
+
+        assertThat(connection.isClosed()).isTrue();
+        verify(emitter).completeWithError(any());
+        verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.removeFirst().run();
+        }
+    }
+}
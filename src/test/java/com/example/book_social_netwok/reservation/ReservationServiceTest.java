@@ -0,0 +1,309 @@
+package com.example.book_social_netwok.reservation;
+
+import com.example.book_social_netwok.book.Book;
+import com.example.book_social_netwok.book.BookFlags;
+import com.example.book_social_netwok.book.BookRepository;
+import com.example.book_social_netwok.event.DomainEventPublisher;
+import com.example.book_social_netwok.exception.BusinessException;
+import com.example.book_social_netwok.history.BookTransactionHistoryRepository;
+import com.example.book_social_netwok.user.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static com.example.book_social_netwok.handler.BusinessErrorCodes.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives the waitlist through its states against in-memory repositories.
+ */
+class ReservationServiceTest {
+
+    private static final int BOOK_ID = 7;
+    private static final int OWNER_ID = 1;
+
+    private final List<Reservation> reservations = new ArrayList<>();
+    private final Map<Integer, ReservationQueue> queues = new HashMap<>();
+    private BookFlags flags = new BookFlags(OWNER_ID, false, true);
+    private boolean onLoan = true;
+
+    private ReservationRepository reservationRepository;
+    private ReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository = mock(ReservationRepository.class);
+        ReservationQueueRepository queueRepository = mock(ReservationQueueRepository.class);
+        BookRepository bookRepository = mock(BookRepository.class);
+        BookTransactionHistoryRepository historyRepository = mock(BookTransactionHistoryRepository.class);
+
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> {
+            Reservation reservation = invocation.getArgument(0);
+            reservation.setId(reservations.size() + 1);
+            reservations.add(reservation);
+            return reservation;
+        });
+        when(reservationRepository.findById(anyInt())).thenAnswer(invocation -> byId(invocation.getArgument(0)));
+        when(reservationRepository.findBookIdById(anyInt())).thenAnswer(invocation ->
+                byId(invocation.getArgument(0)).map(reservation -> reservation.getBook().getId()));
+        when(reservationRepository.findActiveByBookIdAndUserId(anyInt(), anyInt())).thenAnswer(invocation ->
+                waiting().filter(r -> r.getUser().getId().equals(invocation.getArgument(1))).findFirst()
+                        .or(() -> held().filter(r -> r.getUser().getId().equals(invocation.getArgument(1)))));
+        when(reservationRepository.findHeldByBookId(anyInt())).thenAnswer(invocation -> held());
+        when(reservationRepository.findFirstByBookIdAndStatusOrderByOrdinal(anyInt(), eq(ReservationStatus.WAITING)))
+                .thenAnswer(invocation -> waiting().findFirst());
+        when(reservationRepository.countWaiting(anyInt())).thenAnswer(invocation -> waiting().count());
+        when(reservationRepository.countWaitingBefore(anyInt(), anyLong())).thenAnswer(invocation -> {
+            long ordinal = invocation.getArgument(1);
+            return waiting().filter(r -> r.getOrdinal() < ordinal).count();
+        });
+        when(reservationRepository.findBookIdsWithWaiting(anyCollection())).thenAnswer(invocation ->
+                waiting().findAny().isPresent() && invocation.<Collection<Integer>>getArgument(0).contains(BOOK_ID)
+                        ? List.of(BOOK_ID)
+                        : List.of());
+        when(reservationRepository.findAllHoldDeadlines()).thenReturn(List.of());
+        when(reservationRepository.findExpiredHoldIds(any(), any(Pageable.class))).thenAnswer(invocation -> {
+            LocalDateTime now = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return reservations.stream()
+                    .filter(r -> r.getStatus() == ReservationStatus.HELD && !r.getHoldExpiresAt().isAfter(now))
+                    .limit(page.getPageSize())
+                    .map(Reservation::getId)
+                    .toList();
+        });
+
+        when(queueRepository.findForUpdate(anyInt())).thenAnswer(invocation ->
+                Optional.ofNullable(queues.get(invocation.<Integer>getArgument(0))));
+        when(queueRepository.existsById(anyInt())).thenAnswer(invocation -> queues.containsKey(invocation.<Integer>getArgument(0)));
+        doAnswer(invocation -> {
+            queues.putIfAbsent(invocation.getArgument(0), new ReservationQueue(invocation.getArgument(0), 0));
+            return null;
+        }).when(queueRepository).createIfMissing(anyInt());
+
+        when(bookRepository.findFlagsById(anyInt())).thenAnswer(invocation -> Optional.of(flags));
+        when(bookRepository.getReferenceById(anyInt())).thenAnswer(invocation ->
+                Book.builder().id(invocation.getArgument(0)).title("Dune").build());
+        when(historyRepository.existsOpenLoan(anyInt())).thenAnswer(invocation -> onLoan);
+
+        service = new ReservationService(reservationRepository, queueRepository, bookRepository, historyRepository,
+                mock(DomainEventPublisher.class), mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "holdDuration", Duration.ofHours(24));
+        ReflectionTestUtils.setField(service, "timerTick", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(service, "wheelSize", 64);
+        ReflectionTestUtils.setField(service, "sweepBatchSize", 10);
+        service.start();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+        service.stop();
+    }
+
+    @Test
+    void positionsFollowTheEnqueueOrderAndCloseUpAfterACancel() {
+        ReservationResponse first = service.reserve(BOOK_ID, reader(10));
+        ReservationResponse second = service.reserve(BOOK_ID, reader(11));
+        ReservationResponse third = service.reserve(BOOK_ID, reader(12));
+        assertThat(List.of(first.getPosition(), second.getPosition(), third.getPosition())).containsExactly(1L, 2L, 3L);
+
+        service.cancel(second.getId(), reader(11));
+
+        ReservationResponse after = service.findReservation(BOOK_ID, reader(12));
+        assertThat(after.getPosition()).isEqualTo(2L);
+        assertThat(after.getWaiting()).isEqualTo(2);
+        // the cancel did not renumber anyone
+        assertThat(reservations).extracting(Reservation::getOrdinal).containsExactly(0L, 1L, 2L);
+    }
+
+    @Test
+    void anAvailableBookCannotBeReserved() {
+        onLoan = false;
+
+        assertThatThrownBy(() -> service.reserve(BOOK_ID, reader(10)))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo(BOOK_AVAILABLE);
+    }
+
+    @Test
+    void aReaderCannotQueueTwice() {
+        service.reserve(BOOK_ID, reader(10));
+
+        assertThatThrownBy(() -> service.reserve(BOOK_ID, reader(10)))
+                .extracting("errorCode").isEqualTo(RESERVATION_EXISTS);
+    }
+
+    @Test
+    void theReturnedBookIsHeldForTheHeadWaiterOnly() {
+        service.reserve(BOOK_ID, reader(10));
+        service.reserve(BOOK_ID, reader(11));
+
+        onLoan = false;
+        service.handOff(BOOK_ID);
+
+        assertThat(reservation(10).getStatus()).isEqualTo(ReservationStatus.HELD);
+        assertThat(reservation(10).getHoldExpiresAt()).isAfter(LocalDateTime.now());
+        assertThatThrownBy(() -> service.claimHold(BOOK_ID, 11)).extracting("errorCode").isEqualTo(BOOK_HELD);
+
+        service.claimHold(BOOK_ID, 10);
+        assertThat(reservation(10).getStatus()).isEqualTo(ReservationStatus.FULFILLED);
+    }
+
+    @Test
+    void cancellingAHoldOffersTheBookToTheNextWaiter() {
+        ReservationResponse first = service.reserve(BOOK_ID, reader(10));
+        service.reserve(BOOK_ID, reader(11));
+        onLoan = false;
+        service.handOff(BOOK_ID);
+
+        service.cancel(first.getId(), reader(10));
+
+        assertThat(reservation(10).getStatus()).isEqualTo(ReservationStatus.CANCELLED);
+        assertThat(reservation(11).getStatus()).isEqualTo(ReservationStatus.HELD);
+    }
+
+    @Test
+    void anExpiredHoldPassesTheBookOn() {
+        service.reserve(BOOK_ID, reader(10));
+        service.reserve(BOOK_ID, reader(11));
+        onLoan = false;
+        service.handOff(BOOK_ID);
+        reservation(10).setHoldExpiresAt(LocalDateTime.now().minusMinutes(1));
+
+        service.expireHold(reservation(10).getId());
+
+        assertThat(reservation(10).getStatus()).isEqualTo(ReservationStatus.EXPIRED);
+        assertThat(reservation(11).getStatus()).isEqualTo(ReservationStatus.HELD);
+    }
+
+    @Test
+    void aHoldThatExpiresWhileTheBookIsHiddenIsOfferedOnceItIsVisibleAgain() {
+        service.reserve(BOOK_ID, reader(10));
+        service.reserve(BOOK_ID, reader(11));
+        onLoan = false;
+        service.handOff(BOOK_ID);
+
+        flags = new BookFlags(OWNER_ID, true, true);
+        reservation(10).setHoldExpiresAt(LocalDateTime.now().minusMinutes(1));
+        service.expireHold(reservation(10).getId());
+
+        assertThat(reservation(10).getStatus()).isEqualTo(ReservationStatus.EXPIRED);
+        assertThat(reservation(11).getStatus()).isEqualTo(ReservationStatus.WAITING);
+
+        flags = new BookFlags(OWNER_ID, false, true);
+        service.handOffAll(List.of(BOOK_ID));
+
+        assertThat(reservation(11).getStatus()).isEqualTo(ReservationStatus.HELD);
+    }
+
+    @Test
+    void theSweepExpiresAHoldThatNoTimerOnThisNodeKnows() {
+        // offered by a node that went down before its timer fired
+        service.reserve(BOOK_ID, reader(10));
+        service.reserve(BOOK_ID, reader(11));
+        reservation(10).setStatus(ReservationStatus.HELD);
+        reservation(10).setHoldExpiresAt(LocalDateTime.now().minusMinutes(1));
+        onLoan = false;
+
+        service.sweepExpiredHolds();
+
+        assertThat(reservation(10).getStatus()).isEqualTo(ReservationStatus.EXPIRED);
+        assertThat(reservation(11).getStatus()).isEqualTo(ReservationStatus.HELD);
+    }
+
+    @Test
+    void theSweepLeavesRunningHoldsAlone() {
+        service.reserve(BOOK_ID, reader(10));
+        onLoan = false;
+        service.handOff(BOOK_ID);
+
+        service.sweepExpiredHolds();
+
+        assertThat(reservation(10).getStatus()).isEqualTo(ReservationStatus.HELD);
+    }
+
+    @Test
+    void aLongWaitlistCostsOneCountPerReadAndNoRenumbering() {
+        int waiters = 5_000;
+        for (int i = 0; i < waiters; i++) {
+            reservations.add(Reservation.builder()
+                    .id(i + 1)
+                    .book(Book.builder().id(BOOK_ID).build())
+                    .user(User.builder().id(1_000 + i).build())
+                    .ordinal(i)
+                    .status(ReservationStatus.WAITING)
+                    .build());
+        }
+        queues.put(BOOK_ID, new ReservationQueue(BOOK_ID, waiters));
+        // every other reader ahead of the last one gives up
+        for (int i = 0; i < waiters - 1; i += 2) {
+            service.cancel(i + 1, reader(1_000 + i));
+        }
+
+        ReservationResponse last = service.findReservation(BOOK_ID, reader(1_000 + waiters - 1));
+
+        assertThat(last.getPosition()).isEqualTo(waiters / 2L);
+        assertThat(last.getWaiting()).isEqualTo(waiters / 2L);
+        assertThat(reservations).extracting(Reservation::getOrdinal).doesNotHaveDuplicates().isSorted();
+        verify(reservationRepository, times(1)).countWaitingBefore(BOOK_ID, waiters - 1L);
+        verify(reservationRepository, never()).save(any(Reservation.class));
+    }
+
+    @Test
+    void theHeadWaiterMayBorrowWhenNoHoldIsOut() {
+        service.reserve(BOOK_ID, reader(10));
+        service.reserve(BOOK_ID, reader(11));
+        onLoan = false;
+
+        assertThatThrownBy(() -> service.claimHold(BOOK_ID, 11)).extracting("errorCode").isEqualTo(WAITLIST_AHEAD);
+        assertThatThrownBy(() -> service.claimHold(BOOK_ID, 99)).extracting("errorCode").isEqualTo(WAITLIST_AHEAD);
+
+        service.claimHold(BOOK_ID, 10);
+        assertThat(reservation(10).getStatus()).isEqualTo(ReservationStatus.FULFILLED);
+    }
+
+    @Test
+    void aBookWithoutWaitlistIsBorrowedFreely() {
+        service.claimHold(BOOK_ID, 99);
+
+        assertThat(reservations).isEmpty();
+    }
+
+    private Optional<Reservation> byId(Integer id) {
+        return reservations.stream().filter(r -> r.getId().equals(id)).findFirst();
+    }
+
+    private Stream<Reservation> waiting() {
+        return reservations.stream()
+                .filter(r -> r.getStatus() == ReservationStatus.WAITING)
+                .sorted(Comparator.comparingLong(Reservation::getOrdinal));
+    }
+
+    private Optional<Reservation> held() {
+        return reservations.stream().filter(r -> r.getStatus() == ReservationStatus.HELD).findFirst();
+    }
+
+    private Reservation reservation(int userId) {
+        return reservations.stream().filter(r -> r.getUser().getId() == userId).findFirst().orElseThrow();
+    }
+
+    private static Authentication reader(int userId) {
+        User user = User.builder().id(userId).roles(List.of()).build();
+        return new UsernamePasswordAuthenticationToken(user, null, List.of());
+    }
+}
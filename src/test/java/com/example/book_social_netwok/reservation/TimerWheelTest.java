@@ -0,0 +1,79 @@
+package com.example.book_social_netwok.reservation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTest {
+
+    private static final Duration TICK = Duration.ofMillis(10);
+
+    // 8 buckets of 10 ms, one revolution is 80 ms
+    private final TimerWheel wheel = new TimerWheel(TICK, 8, Runnable::run, "timer-wheel-test");
+
+    @AfterEach
+    void close() {
+        wheel.close();
+    }
+
+    @Test
+    void runsATaskOnceItsDelayHasPassed() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        wheel.schedule(fired::countDown, Duration.ofMillis(50));
+
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    @Test
+    void runsOverdueTasksOnTheNextTick() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(2);
+
+        wheel.schedule(fired::countDown, Duration.ZERO);
+        wheel.schedule(fired::countDown, Duration.ofMillis(-500));
+
+        assertThat(fired.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void aDelayLongerThanOneRevolutionWaitsForItsRound() throws InterruptedException {
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch fired = new CountDownLatch(2);
+        long start = System.nanoTime();
+
+        // both land in the same bucket, the later one only after another revolution
+        wheel.schedule(() -> {
+            order.add("late");
+            fired.countDown();
+        }, Duration.ofMillis(200));
+        wheel.schedule(() -> {
+            order.add("early");
+            fired.countDown();
+        }, Duration.ofMillis(40));
+
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly("early", "late");
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(190));
+    }
+
+    @Test
+    void aFailingTaskDoesNotStopTheWheel() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+
+        wheel.schedule(() -> {
+            throw new IllegalStateException("boom");
+        }, Duration.ofMillis(10));
+        wheel.schedule(fired::countDown, Duration.ofMillis(30));
+
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.book_social_netwok.security;
+
+import com.example.book_social_netwok.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffloadingPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, meterRegistry);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void hashesOnThePoolAndReturnsToTheCaller() {
+        RecordingEncoder delegate = new RecordingEncoder();
+        PasswordEncoder encoder = new OffloadingPasswordEncoder(delegate, executor);
+
+        String encoded = encoder.encode("secret");
+
+        assertThat(encoded).isEqualTo("{noop}secret");
+        assertThat(encoder.matches("secret", encoded)).isTrue();
+        assertThat(delegate.lastThread).startsWith("password-hashing-");
+    }
+
+    @Test
+    void rethrowsTheDelegateFailureUnwrapped() {
+        assertThatThrownBy(() -> executor.call(() -> {
+            throw new IllegalArgumentException("bad hash");
+        })).isInstanceOf(IllegalArgumentException.class).hasMessage("bad hash");
+    }
+
+    @Test
+    void rejectsWhenThePoolAndQueueAreFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> executor.call(() -> {
+            started.countDown();
+            await(release);
+            return null;
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> executor.call(() -> null));
+        awaitQueued();
+
+        assertThatThrownBy(() -> executor.call(() -> "third")).isInstanceOf(ServiceOverloadedException.class);
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+    }
+
+    private void awaitQueued() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("password.hashing.queue.size").gauge().value() < 1) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class RecordingEncoder implements PasswordEncoder {
+
+        private volatile String lastThread;
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            lastThread = Thread.currentThread().getName();
+            return "{noop}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            lastThread = Thread.currentThread().getName();
+            return encodedPassword.equals("{noop}" + rawPassword);
+        }
+    }
+}
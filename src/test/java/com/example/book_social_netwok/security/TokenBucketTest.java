@@ -0,0 +1,60 @@
+package com.example.book_social_netwok.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long INTERVAL = 100;
+    private static final int CAPACITY = 3;
+
+    private TokenBucket bucket(long now) {
+        return new TokenBucket(INTERVAL, INTERVAL * CAPACITY, now);
+    }
+
+    @Test
+    void allowsABurstUpToTheCapacity() {
+        TokenBucket bucket = bucket(0);
+
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void refillsOneTokenPerEmissionInterval() {
+        TokenBucket bucket = bucket(0);
+        for (int i = 0; i < CAPACITY; i++) {
+            bucket.tryAcquire(0);
+        }
+
+        assertThat(bucket.tryAcquire(40)).isEqualTo(60);
+        assertThat(bucket.tryAcquire(100)).isZero();
+        assertThat(bucket.tryAcquire(100)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void idleTimeDoesNotBankMoreThanTheBurst() {
+        TokenBucket bucket = bucket(0);
+
+        long later = 1_000_000;
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(bucket.tryAcquire(later)).isZero();
+        }
+        assertThat(bucket.tryAcquire(later)).isPositive();
+    }
+
+    @Test
+    void isFullOnceEveryTokenIsBack() {
+        TokenBucket bucket = bucket(0);
+        assertThat(bucket.isFull(0)).isTrue();
+
+        bucket.tryAcquire(0);
+        bucket.tryAcquire(0);
+
+        assertThat(bucket.isFull(100)).isFalse();
+        assertThat(bucket.isFull(200)).isTrue();
+    }
+}
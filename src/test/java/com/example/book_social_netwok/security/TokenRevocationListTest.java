@@ -0,0 +1,165 @@
+package com.example.book_social_netwok.security;
+
+import com.example.book_social_netwok.cache.CacheCoherence;
+import com.example.book_social_netwok.cache.CacheInvalidation;
+import com.example.book_social_netwok.cache.LoopbackInvalidationBus;
+import com.example.book_social_netwok.user.UserRepository;
+import com.example.book_social_netwok.user.UserTokenVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationListTest {
+
+    private static final long LIFETIME = 60_000;
+
+    private final DurableBus bus = new DurableBus();
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private TokenRevocationList node(String nodeId) {
+        CacheCoherence cacheCoherence = new CacheCoherence(bus, new SimpleMeterRegistry(), nodeId, 1000);
+        return new TokenRevocationList(LIFETIME, 1 << 16, cacheCoherence, userRepository);
+    }
+
+    // what the container does on start
+    private TokenRevocationList started(String nodeId) {
+        TokenRevocationList revocations = node(nodeId);
+        revocations.restore();
+        return revocations;
+    }
+
+    @Test
+    void revokesEveryTokenBelowTheNewVersion() {
+        TokenRevocationList revocations = node("a");
+
+        revocations.revokeAllFor("reader@example.com", 3);
+
+        assertThat(revocations.isRevoked("t1", "reader@example.com", 0)).isTrue();
+        assertThat(revocations.isRevoked("t2", "reader@example.com", 2)).isTrue();
+        assertThat(revocations.isRevoked("t3", "reader@example.com", 3)).isFalse();
+        assertThat(revocations.isRevoked("t4", "other@example.com", 0)).isFalse();
+    }
+
+    @Test
+    void aTokenIssuedRightAfterTheRevocationStaysValid() {
+        TokenRevocationList revocations = node("a");
+
+        revocations.revokeAllFor("reader@example.com", 1);
+
+        // issued within the same second as the revocation, only the version tells them apart
+        assertThat(revocations.isRevoked("fresh", "reader@example.com", 1)).isFalse();
+    }
+
+    @Test
+    void anOlderRevocationDoesNotLowerTheVersion() {
+        TokenRevocationList revocations = node("a");
+
+        revocations.revokeAllFor("reader@example.com", 5);
+        revocations.revokeAllFor("reader@example.com", 2);
+
+        assertThat(revocations.isRevoked("t", "reader@example.com", 4)).isTrue();
+    }
+
+    @Test
+    void revokesSingleTokens() {
+        TokenRevocationList revocations = node("a");
+
+        revocations.revoke("logged-out");
+
+        assertThat(revocations.isRevoked("logged-out", "reader@example.com", 0)).isTrue();
+        assertThat(revocations.isRevoked("still-active", "reader@example.com", 0)).isFalse();
+    }
+
+    @Test
+    void revocationsReachTheOtherNodes() {
+        TokenRevocationList first = node("a");
+        TokenRevocationList second = node("b");
+
+        first.revoke("logged-out");
+        first.revokeAllFor("reader@example.com", 2);
+
+        assertThat(second.isRevoked("logged-out", "other@example.com", 0)).isTrue();
+        assertThat(second.isRevoked("t", "reader@example.com", 1)).isTrue();
+        assertThat(second.isRevoked("t", "reader@example.com", 2)).isFalse();
+    }
+
+    @Test
+    void peersKeepTheHighestVersionWhateverOrderTheyHearOf() {
+        TokenRevocationList first = node("a");
+        TokenRevocationList second = node("b");
+        TokenRevocationList third = node("c");
+
+        second.revokeAllFor("reader@example.com", 4);
+        first.revokeAllFor("reader@example.com", 3);
+
+        for (TokenRevocationList revocations : List.of(first, second, third)) {
+            assertThat(revocations.isRevoked("t", "reader@example.com", 3)).isTrue();
+            assertThat(revocations.isRevoked("t", "reader@example.com", 4)).isFalse();
+        }
+    }
+
+    @Test
+    void revocationsSurviveARestart() {
+        TokenRevocationList before = started("a");
+        before.revoke("logged-out");
+        before.revokeAllFor("reader@example.com", 2);
+
+        // the only node went down, the replacement starts with nothing in memory
+        TokenRevocationList after = started("a-restarted");
+
+        assertThat(after.isRevoked("logged-out", "other@example.com", 0)).isTrue();
+        assertThat(after.isRevoked("t", "reader@example.com", 1)).isTrue();
+        assertThat(after.isRevoked("t", "reader@example.com", 2)).isFalse();
+        assertThat(after.isRevoked("still-active", "other@example.com", 0)).isFalse();
+    }
+
+    @Test
+    void aRestartedNodeRejectsTokensBelowTheStoredVersion() {
+        // the bus message was lost or purged, the version stored with the user still counts
+        when(userRepository.findTokenVersionsModifiedSince(any()))
+                .thenReturn(List.of(new UserTokenVersion("reader@example.com", 3)));
+
+        TokenRevocationList revocations = started("a");
+
+        assertThat(revocations.isRevoked("t", "reader@example.com", 2)).isTrue();
+        assertThat(revocations.isRevoked("t", "reader@example.com", 3)).isFalse();
+        assertThat(revocations.isRevoked("t", "other@example.com", 0)).isFalse();
+    }
+
+    @Test
+    void replaysOnlyTheLastTokenLifetime() {
+        started("a");
+
+        node("b").restore();
+
+        assertThat(bus.replayWindows).containsOnly(Duration.ofMillis(LIFETIME));
+    }
+
+    // keeps what was published, like the table behind the JDBC bus
+    private static final class DurableBus extends LoopbackInvalidationBus {
+
+        private final List<CacheInvalidation> published = new ArrayList<>();
+        private final List<Duration> replayWindows = new ArrayList<>();
+
+        @Override
+        public void publish(CacheInvalidation invalidation) {
+            published.add(invalidation);
+            super.publish(invalidation);
+        }
+
+        @Override
+        public void replay(String region, Duration window, Consumer<CacheInvalidation> subscriber) {
+            replayWindows.add(window);
+            published.stream().filter(invalidation -> invalidation.region().equals(region)).forEach(subscriber);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.book_social_netwok.suggest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixTrieTest {
+
+    private static final int TOP_K = 3;
+
+    @Test
+    void ranksByScoreThenText() {
+        PrefixTrie trie = trie(
+                title(1, "Dune", 5),
+                title(2, "Dune Messiah", 9),
+                title(3, "Dubliners", 5),
+                title(4, "Dracula", 1),
+                title(5, "Emma", 100));
+
+        assertThat(texts(trie.lookup("du"))).containsExactly("Dune Messiah", "Dubliners", "Dune");
+        assertThat(texts(trie.lookup("d"))).containsExactly("Dune Messiah", "Dubliners", "Dune");
+        assertThat(texts(trie.lookup("dune"))).containsExactly("Dune Messiah", "Dune");
+        assertThat(texts(trie.lookup("dr"))).containsExactly("Dracula");
+    }
+
+    @Test
+    void findsTitlesByTheStartOfAnyWord() {
+        PrefixTrie trie = trie(
+                title(1, "The Lord of the Rings", 10),
+                title(2, "Ringworld", 3));
+
+        assertThat(texts(trie.lookup("rin"))).containsExactly("The Lord of the Rings", "Ringworld");
+        assertThat(texts(trie.lookup("lord of"))).containsExactly("The Lord of the Rings");
+        assertThat(texts(trie.lookup("ord"))).isEmpty();
+    }
+
+    @Test
+    void aSuggestionReachedByTwoKeysIsListedOnce() {
+        PrefixTrie trie = trie(title(1, "Tell the Truth", 4));
+
+        assertThat(texts(trie.lookup("t"))).containsExactly("Tell the Truth");
+    }
+
+    @Test
+    void stopsInsideAMergedEdge() {
+        PrefixTrie trie = trie(title(1, "Foundation", 1), title(2, "Foundryman", 2));
+
+        assertThat(texts(trie.lookup("found"))).containsExactly("Foundryman", "Foundation");
+        assertThat(texts(trie.lookup("foundat"))).containsExactly("Foundation");
+        assertThat(trie.lookup("foundx")).isEmpty();
+        assertThat(trie.lookup("foundationx")).isEmpty();
+        assertThat(trie.lookup("x")).isEmpty();
+    }
+
+    @Test
+    void normalizesCaseAccentsAndSpaces() {
+        assertThat(PrefixTrie.normalize("  Les  Misérables ")).isEqualTo("les miserables");
+        assertThat(PrefixTrie.normalize(null)).isEmpty();
+
+        PrefixTrie trie = trie(title(1, "Les Misérables", 1));
+        assertThat(texts(trie.lookup(PrefixTrie.normalize("MISÉ")))).containsExactly("Les Misérables");
+    }
+
+    @Test
+    void theEmptyTrieFindsNothing() {
+        assertThat(PrefixTrie.EMPTY.lookup("a")).isEmpty();
+        assertThat(PrefixTrie.EMPTY.size()).isZero();
+    }
+
+    @Test
+    void everyPrefixGetsTheSameTopKAsAFullScan() {
+        Random random = new Random(7);
+        String[] words = {"the", "red", "rose", "river", "road", "rain", "ring", "a", "sea", "sean", "seal", "star"};
+        // distinct texts, so the ranking is a total order and both sides agree on ties
+        Set<String> texts = new LinkedHashSet<>();
+        while (texts.size() < 300) {
+            StringBuilder text = new StringBuilder();
+            for (int w = 0, count = 1 + random.nextInt(4); w < count; w++) {
+                text.append(w == 0 ? "" : " ").append(words[random.nextInt(words.length)]);
+            }
+            texts.add(text.toString());
+        }
+        List<PrefixTrie.Suggestion> suggestions = new ArrayList<>();
+        for (String text : texts) {
+            suggestions.add(title(suggestions.size(), text, random.nextInt(20)));
+        }
+        PrefixTrie trie = trie(suggestions.toArray(PrefixTrie.Suggestion[]::new));
+
+        Set<String> prefixes = new TreeSet<>();
+        for (PrefixTrie.Suggestion suggestion : suggestions) {
+            for (String key : PrefixTrie.keysOf(suggestion.text())) {
+                for (int length = 1; length <= key.length(); length++) {
+                    prefixes.add(key.substring(0, length));
+                }
+            }
+        }
+        for (String prefix : prefixes) {
+            assertThat(trie.lookup(prefix)).as(prefix).containsExactlyElementsOf(scan(suggestions, prefix));
+        }
+    }
+
+    private static List<PrefixTrie.Suggestion> scan(List<PrefixTrie.Suggestion> suggestions, String prefix) {
+        return suggestions.stream()
+                .filter(suggestion -> PrefixTrie.keysOf(suggestion.text()).stream().anyMatch(key -> key.startsWith(prefix)))
+                .sorted(PrefixTrie.ranking())
+                .limit(TOP_K)
+                .toList();
+    }
+
+    private static PrefixTrie trie(PrefixTrie.Suggestion... suggestions) {
+        List<PrefixTrie.Key> keys = new ArrayList<>();
+        for (int i = 0; i < suggestions.length; i++) {
+            for (String key : PrefixTrie.keysOf(suggestions[i].text())) {
+                keys.add(new PrefixTrie.Key(key, i));
+            }
+        }
+        return PrefixTrie.build(List.of(suggestions), keys, TOP_K);
+    }
+
+    private static PrefixTrie.Suggestion title(int bookId, String text, long score) {
+        return new PrefixTrie.Suggestion("t:" + bookId, SuggestionType.TITLE, text, bookId, score);
+    }
+
+    private static List<String> texts(List<PrefixTrie.Suggestion> suggestions) {
+        return suggestions.stream().map(PrefixTrie.Suggestion::text).toList();
+    }
+}
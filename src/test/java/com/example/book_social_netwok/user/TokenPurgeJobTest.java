@@ -0,0 +1,123 @@
+package com.example.book_social_netwok.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenPurgeJobTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    // the token table by id
+    private final TreeMap<Integer, Row> tokens = new TreeMap<>();
+    private final List<List<Integer>> deletedBatches = new ArrayList<>();
+
+    private SimpleMeterRegistry meterRegistry;
+    private TokenPurgeJob tokenPurgeJob;
+
+    @BeforeEach
+    void setUp() {
+        TokenRepository tokenRepository = mock(TokenRepository.class);
+        when(tokenRepository.findValidatedIds(any())).thenAnswer(invocation -> tokens.entrySet().stream()
+                .filter(token -> token.getValue().validated())
+                .map(token -> token.getKey())
+                .limit(invocation.<Pageable>getArgument(0).getPageSize())
+                .toList());
+        when(tokenRepository.findExpiredIds(any(), any())).thenAnswer(invocation -> tokens.entrySet().stream()
+                .filter(token -> token.getValue().expiresAt().isBefore(invocation.<LocalDateTime>getArgument(0)))
+                .map(token -> token.getKey())
+                .limit(invocation.<Pageable>getArgument(1).getPageSize())
+                .toList());
+        when(tokenRepository.findOldestExpiryBefore(any())).thenAnswer(invocation -> tokens.values().stream()
+                .map(Row::expiresAt)
+                .filter(expiresAt -> expiresAt.isBefore(invocation.<LocalDateTime>getArgument(0)))
+                .min(LocalDateTime::compareTo));
+        doAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            deletedBatches.add(List.copyOf(ids));
+            ids.forEach(tokens::remove);
+            return null;
+        }).when(tokenRepository).deleteAllByIdInBatch(any());
+        when(tokenRepository.count()).thenAnswer(invocation -> (long) tokens.size());
+        meterRegistry = new SimpleMeterRegistry();
+        tokenPurgeJob = new TokenPurgeJob(tokenRepository, meterRegistry);
+        ReflectionTestUtils.setField(tokenPurgeJob, "expiredRetention", Duration.ofDays(1));
+        ReflectionTestUtils.setField(tokenPurgeJob, "batchSize", 2);
+        ReflectionTestUtils.setField(tokenPurgeJob, "maxBatches", 10);
+    }
+
+    @Test
+    void deletesValidatedAndLongExpiredTokensInBatches() {
+        validated(1);
+        validated(2);
+        validated(3);
+        expired(4, Duration.ofDays(3));
+        expired(5, Duration.ofDays(2));
+        // recently expired, kept so a fresh code can still be sent
+        expired(6, Duration.ofHours(2));
+        pending(7);
+
+        tokenPurgeJob.purge();
+
+        assertThat(tokens).containsOnlyKeys(6, 7);
+        assertThat(deletedBatches).containsExactly(List.of(1, 2), List.of(3), List.of(4, 5));
+        assertThat(meterRegistry.get("activation.tokens.purged").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("activation.tokens.size").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("activation.tokens.purge.lag").gauge().value()).isZero();
+    }
+
+    @Test
+    void reportsTheLagOfWhatTheBatchLimitLeftBehind() {
+        ReflectionTestUtils.setField(tokenPurgeJob, "maxBatches", 1);
+        expired(1, Duration.ofDays(5));
+        expired(2, Duration.ofDays(4));
+        expired(3, Duration.ofDays(3));
+
+        tokenPurgeJob.purge();
+
+        assertThat(tokens).containsOnlyKeys(3);
+        // token 3 has been purgeable for two days
+        assertThat(meterRegistry.get("activation.tokens.purge.lag").gauge().value())
+                .isCloseTo(Duration.ofDays(2).toSeconds(), within(5.0));
+    }
+
+    @Test
+    void deletesNothingWhenNothingIsPurgeable() {
+        pending(1);
+        expired(2, Duration.ofHours(1));
+
+        tokenPurgeJob.purge();
+
+        assertThat(deletedBatches).isEmpty();
+        assertThat(meterRegistry.get("activation.tokens.purged").counter().count()).isZero();
+    }
+
+    private void validated(int id) {
+        tokens.put(id, new Row(true, NOW.plusMinutes(10)));
+    }
+
+    private void expired(int id, Duration ago) {
+        tokens.put(id, new Row(false, NOW.minus(ago)));
+    }
+
+    private void pending(int id) {
+        tokens.put(id, new Row(false, NOW.plusMinutes(10)));
+    }
+
+    private record Row(boolean validated, LocalDateTime expiresAt) {
+    }
+}